@@ -0,0 +1,252 @@
+/*
+ * Room availability index for DBProject
+ * =====================================
+ *
+ * Target DBMS: 'Postgres'
+ *
+ */
+
+
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.util.ArrayList;
+import java.util.BitSet;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.TreeMap;
+import java.util.TreeSet;
+import java.util.concurrent.locks.ReentrantReadWriteLock;
+
+/**
+ * Keeps, for every room of every hotel, a bit set of the days it is booked,
+ * so that "which rooms of hotel H are free in this week" is answered from
+ * memory instead of running Room EXCEPT Booking over both tables.
+ *
+ * The index is loaded from Room and Booking once and then kept current by
+ * DBProject.addRoom and DBProject.bookRoom.  Bookings made by other
+ * processes are not seen; verify() compares the index with the database and
+ * load() builds a fresh one.
+ *
+ */
+public class AvailabilityIndex {
+
+   // the booked days of one room, bit i is the epoch day base + i
+   private static class RoomDays {
+      int base;
+      BitSet days = new BitSet();
+
+      void book (int day) {
+         if (days.isEmpty()) {
+            base = day;
+         } else if (day < base) {
+            // keep base at the earliest booked day
+            BitSet shifted = new BitSet();
+            int shift = base - day;
+            for (int i = days.nextSetBit(0); i >= 0; i = days.nextSetBit(i + 1)) {
+               shifted.set(i + shift);
+            }//end for
+            days = shifted;
+            base = day;
+         }//end if
+         days.set(day - base);
+      }//end book
+
+      boolean isBooked (int day) {
+         int i = day - base;
+         return !days.isEmpty() && i >= 0 && days.get(i);
+      }//end isBooked
+
+      // true when no day in [from, to] is booked
+      boolean isFree (int from, int to) {
+         if (days.isEmpty() || to < base) {
+            return true;
+         }//end if
+         int next = days.nextSetBit(Math.max(from - base, 0));
+         return next < 0 || next > to - base;
+      }//end isFree
+
+      boolean sameAs (RoomDays other) {
+         if (days.isEmpty() || other.days.isEmpty()) {
+            return days.isEmpty() && other.days.isEmpty();
+         }//end if
+         return base == other.base && days.equals(other.days);
+      }//end sameAs
+   }//end RoomDays
+
+   // hotelID -> roomNo -> booked days, rooms in number order
+   private final Map<Integer, TreeMap<Integer, RoomDays>> _hotels = new HashMap<Integer, TreeMap<Integer, RoomDays>>();
+   private final ReentrantReadWriteLock _lock = new ReentrantReadWriteLock();
+
+   /**
+    * Builds an index from the Room and Booking tables.
+    *
+    * @param esql the database to read
+    * @return the loaded index
+    * @throws java.sql.SQLException when the tables could not be read
+    */
+   public static AvailabilityIndex load (DBProject esql) throws SQLException {
+      final AvailabilityIndex index = new AvailabilityIndex();
+      esql.streamQuery("SELECT hotelID, roomNo FROM Room", new RowHandler() {
+         public void handleRow (ResultSet rs) throws SQLException {
+            index.addRoom(rs.getInt(1), rs.getInt(2));
+         }
+      });
+      // in date order every room's base is its first day, so book() never shifts the bits
+      esql.streamQuery("SELECT hotelID, roomNo, bookingDate FROM Booking ORDER BY bookingDate", new RowHandler() {
+         public void handleRow (ResultSet rs) throws SQLException {
+            index.addBooking(rs.getInt(1), rs.getInt(2), DBProject.toEpochDay(rs.getDate(3)));
+         }
+      });
+      return index;
+   }//end load
+
+   /**
+    * Records a new room.
+    */
+   public void addRoom (int hotelID, int roomNo) {
+      _lock.writeLock().lock();
+      try {
+         room(hotelID, roomNo);
+      } finally {
+         _lock.writeLock().unlock();
+      }//end try
+   }//end addRoom
+
+   /**
+    * Records a booking of a room on a day.
+    *
+    * @param day the booking date as an epoch day (see DBProject.toEpochDay)
+    */
+   public void addBooking (int hotelID, int roomNo, int day) {
+      _lock.writeLock().lock();
+      try {
+         room(hotelID, roomNo).book(day);
+      } finally {
+         _lock.writeLock().unlock();
+      }//end try
+   }//end addBooking
+
+   /**
+    * Tells whether a room has a booking on a day.
+    */
+   public boolean isBooked (int hotelID, int roomNo, int day) {
+      _lock.readLock().lock();
+      try {
+         TreeMap<Integer, RoomDays> rooms = _hotels.get(hotelID);
+         RoomDays room = rooms == null ? null : rooms.get(roomNo);
+         return room != null && room.isBooked(day);
+      } finally {
+         _lock.readLock().unlock();
+      }//end try
+   }//end isBooked
+
+   /**
+    * Returns the rooms of a hotel without any booking between two days.
+    *
+    * @param from the first day, as an epoch day
+    * @param to the last day, included
+    * @return the room numbers, in ascending order
+    */
+   public int[] freeRooms (int hotelID, int from, int to) {
+      _lock.readLock().lock();
+      try {
+         TreeMap<Integer, RoomDays> rooms = _hotels.get(hotelID);
+         if (rooms == null) {
+            return new int[0];
+         }//end if
+         int[] free = new int[rooms.size()];
+         int n = 0;
+         for (Map.Entry<Integer, RoomDays> e : rooms.entrySet()) {
+            if (e.getValue().isFree(from, to)) {
+               free[n++] = e.getKey();
+            }//end if
+         }//end for
+         int[] result = new int[n];
+         System.arraycopy(free, 0, result, 0, n);
+         return result;
+      } finally {
+         _lock.readLock().unlock();
+      }//end try
+   }//end freeRooms
+
+   /**
+    * Returns the number of rooms of a hotel that have never been booked.
+    */
+   public int countNeverBooked (int hotelID) {
+      _lock.readLock().lock();
+      try {
+         TreeMap<Integer, RoomDays> rooms = _hotels.get(hotelID);
+         if (rooms == null) {
+            return 0;
+         }//end if
+         int count = 0;
+         for (RoomDays room : rooms.values()) {
+            if (room.days.isEmpty()) {
+               ++count;
+            }//end if
+         }//end for
+         return count;
+      } finally {
+         _lock.readLock().unlock();
+      }//end try
+   }//end countNeverBooked
+
+   /**
+    * Compares the index with the database.
+    *
+    * @param esql the database to compare with
+    * @return one line for every room that differs, empty when consistent
+    * @throws java.sql.SQLException when the tables could not be read
+    */
+   public List<String> verify (DBProject esql) throws SQLException {
+      AvailabilityIndex fresh = load(esql);
+      List<String> differences = new ArrayList<String>();
+      _lock.readLock().lock();
+      try {
+         TreeSet<Integer> hotels = new TreeSet<Integer>(_hotels.keySet());
+         hotels.addAll(fresh._hotels.keySet());
+         for (Integer hotelID : hotels) {
+            TreeMap<Integer, RoomDays> mine = _hotels.get(hotelID);
+            TreeMap<Integer, RoomDays> theirs = fresh._hotels.get(hotelID);
+            TreeSet<Integer> rooms = new TreeSet<Integer>();
+            if (mine != null) {
+               rooms.addAll(mine.keySet());
+            }//end if
+            if (theirs != null) {
+               rooms.addAll(theirs.keySet());
+            }//end if
+            for (Integer roomNo : rooms) {
+               RoomDays a = mine == null ? null : mine.get(roomNo);
+               RoomDays b = theirs == null ? null : theirs.get(roomNo);
+               if (a == null) {
+                  differences.add("hotel " + hotelID + " room " + roomNo + ": missing from the index");
+               } else if (b == null) {
+                  differences.add("hotel " + hotelID + " room " + roomNo + ": not in the database");
+               } else if (!a.sameAs(b)) {
+                  differences.add("hotel " + hotelID + " room " + roomNo + ": booked days differ");
+               }//end if
+            }//end for
+         }//end for
+      } finally {
+         _lock.readLock().unlock();
+      }//end try
+      return differences;
+   }//end verify
+
+   // callers hold the write lock
+   private RoomDays room (int hotelID, int roomNo) {
+      TreeMap<Integer, RoomDays> rooms = _hotels.get(hotelID);
+      if (rooms == null) {
+         rooms = new TreeMap<Integer, RoomDays>();
+         _hotels.put(hotelID, rooms);
+      }//end if
+      RoomDays room = rooms.get(roomNo);
+      if (room == null) {
+         room = new RoomDays();
+         rooms.put(roomNo, room);
+      }//end if
+      return room;
+   }//end room
+
+}//end AvailabilityIndex
@@ -0,0 +1,400 @@
+/*
+ * Benchmark for DBProject
+ * =======================
+ *
+ * Target DBMS: 'Postgres'
+ *
+ */
+
+
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Date;
+import java.util.List;
+import java.util.Random;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * Measures every menu operation against a loaded database.  Each operation
+ * runs on bench.threads threads, first for bench.warmupSeconds without
+ * measuring, so the JIT, the statement caches and the database buffers
+ * settle, then for bench.measureSeconds while the latency of every call
+ * that succeeds is recorded.  The result is one tab separated line per
+ * operation with the throughput, the average, median, 99th percentile and
+ * largest latency, and the number of calls that failed.
+ *
+ * Parameters are drawn from a random sample of the loaded rows, so the same
+ * run works at any scale the data was generated at (see bench.sh).  Writes
+ * are committed, reload the database between runs that must be compared.
+ * The -Ddbproject.* options of DBProject apply, so a run with and one
+ * without an index or cache shows what it is worth.
+ *
+ * Usage: java Benchmark <dbname> <port> <user>
+ *
+ */
+public class Benchmark {
+
+   // a menu operation with parameters drawn from the sample
+   private static abstract class Operation {
+      final String name;
+
+      Operation (String name) {
+         this.name = name;
+      }
+
+      abstract void run (DBProject esql, Random random) throws SQLException;
+   }//end Operation
+
+   // discards report rows, only the database and the fetch are measured
+   private static final ReportWriter NO_OUTPUT = new ReportWriter() {
+      public void header (String[] columns) {
+      }
+
+      public void row (Object[] values) {
+      }
+   };
+
+   private final DBProject _esql;
+   private final int _sampleSize;
+
+   // sampled rows the parameters are drawn from
+   private final List<int[]> _rooms = new ArrayList<int[]>();
+   private final List<Object[]> _customers = new ArrayList<Object[]>();
+   private final List<Object[]> _companies = new ArrayList<Object[]>();
+   private final List<Integer> _repairs = new ArrayList<Integer>();
+   private final List<Integer> _cleaners = new ArrayList<Integer>();
+   private final List<Integer> _managers = new ArrayList<Integer>();
+   private int _firstDay;
+   private int _lastDay;
+   private AtomicInteger _nextRoomNo;
+
+   /**
+    * Creates a benchmark and reads its sample from the database.
+    *
+    * @param esql the loaded database
+    * @param sampleSize the number of rows sampled per table
+    * @throws java.sql.SQLException when the sample could not be read
+    */
+   public Benchmark (DBProject esql, int sampleSize) throws SQLException {
+      this._esql = esql;
+      this._sampleSize = sampleSize;
+      sample();
+   }//end Benchmark
+
+   private void sample () throws SQLException {
+      this._esql.forEachRow("SELECT hotelID, roomNo FROM Room ORDER BY random() LIMIT ?", new RowHandler() {
+         public void handleRow (ResultSet rs) throws SQLException {
+            _rooms.add(new int[] { rs.getInt(1), rs.getInt(2) });
+         }
+      }, this._sampleSize);
+      this._esql.forEachRow("SELECT customerID, fname, lname FROM Customer ORDER BY random() LIMIT ?",
+         new RowHandler() {
+         public void handleRow (ResultSet rs) throws SQLException {
+            _customers.add(new Object[] { rs.getInt(1), rs.getString(2).trim(), rs.getString(3).trim() });
+         }
+      }, this._sampleSize);
+      this._esql.forEachRow("SELECT cmpID, name FROM MaintenanceCompany ORDER BY random() LIMIT ?",
+         new RowHandler() {
+         public void handleRow (ResultSet rs) throws SQLException {
+            _companies.add(new Object[] { rs.getInt(1), rs.getString(2).trim() });
+         }
+      }, this._sampleSize);
+      this._esql.forEachRow("SELECT rID FROM Repair ORDER BY random() LIMIT ?", new RowHandler() {
+         public void handleRow (ResultSet rs) throws SQLException {
+            _repairs.add(rs.getInt(1));
+         }
+      }, this._sampleSize);
+      this._esql.forEachRow("SELECT SSN FROM Staff WHERE role = 'HouseCleaning' ORDER BY random() LIMIT ?",
+         new RowHandler() {
+         public void handleRow (ResultSet rs) throws SQLException {
+            _cleaners.add(rs.getInt(1));
+         }
+      }, this._sampleSize);
+      this._esql.forEachRow("SELECT SSN FROM Staff WHERE role = 'Manager' ORDER BY random() LIMIT ?",
+         new RowHandler() {
+         public void handleRow (ResultSet rs) throws SQLException {
+            _managers.add(rs.getInt(1));
+         }
+      }, this._sampleSize);
+      this._esql.forEachRow("SELECT MIN(bookingDate), MAX(bookingDate), (SELECT MAX(roomNo) FROM Room) FROM Booking",
+         new RowHandler() {
+         public void handleRow (ResultSet rs) throws SQLException {
+            _firstDay = DBProject.toEpochDay(rs.getDate(1));
+            _lastDay = DBProject.toEpochDay(rs.getDate(2));
+            // new rooms get numbers no hotel uses yet
+            _nextRoomNo = new AtomicInteger(rs.getInt(3) + 1);
+         }
+      });
+      if (this._rooms.isEmpty() || this._customers.isEmpty() || this._companies.isEmpty()
+            || this._repairs.isEmpty() || this._cleaners.isEmpty() || this._managers.isEmpty()
+            || this._nextRoomNo == null) {
+         throw new SQLException("The database needs rows in every table, load data/*.csv first");
+      }//end if
+   }//end sample
+
+   /**
+    * Returns the operations, in menu order.
+    */
+   private List<Operation> operations () {
+      List<Operation> ops = new ArrayList<Operation>();
+      ops.add(new Operation("addCustomer") {
+         void run (DBProject esql, Random r) throws SQLException {
+            DBProject.addCustomer(esql, word(r), word(r), word(r), 1000000000L + r.nextInt(999999999),
+               day(r), r.nextBoolean() ? "Male" : "Female");
+         }
+      });
+      ops.add(new Operation("addRoom") {
+         void run (DBProject esql, Random r) throws SQLException {
+            DBProject.addRoom(esql, room(r)[0], _nextRoomNo.getAndIncrement(), "Suite");
+         }
+      });
+      ops.add(new Operation("addMaintenanceCompany") {
+         void run (DBProject esql, Random r) throws SQLException {
+            DBProject.addMaintenanceCompany(esql, word(r), word(r), r.nextBoolean());
+         }
+      });
+      ops.add(new Operation("addRepair") {
+         void run (DBProject esql, Random r) throws SQLException {
+            int[] room = room(r);
+            DBProject.addRepair(esql, room[0], room[1], (Integer) pick(r, _companies)[0], day(r), word(r), "Small");
+         }
+      });
+      ops.add(new Operation("bookRoom") {
+         void run (DBProject esql, Random r) throws SQLException {
+            int[] room = room(r);
+            DBProject.bookRoom(esql, (Integer) pick(r, _customers)[0], room[0], room[1], day(r), 1 + r.nextInt(4),
+               50 + r.nextInt(2000));
+         }
+      });
+      ops.add(new Operation("assignHouseCleaningToRoom") {
+         void run (DBProject esql, Random r) throws SQLException {
+            int[] room = room(r);
+            DBProject.assignHouseCleaningToRoom(esql, pick(r, _cleaners), room[0], room[1]);
+         }
+      });
+      ops.add(new Operation("repairRequest") {
+         void run (DBProject esql, Random r) throws SQLException {
+            DBProject.repairRequest(esql, pick(r, _managers), pick(r, _repairs), day(r), word(r));
+         }
+      });
+      ops.add(new Operation("numberOfAvailableRooms") {
+         void run (DBProject esql, Random r) throws SQLException {
+            DBProject.numberOfAvailableRooms(esql, room(r)[0]);
+         }
+      });
+      ops.add(new Operation("numberOfBookedRooms") {
+         void run (DBProject esql, Random r) throws SQLException {
+            DBProject.numberOfBookedRooms(esql, room(r)[0]);
+         }
+      });
+      ops.add(new Operation("listHotelRoomBookingsForAWeek") {
+         void run (DBProject esql, Random r) throws SQLException {
+            DBProject.listHotelRoomBookingsForAWeek(esql, room(r)[0], day(r), NO_OUTPUT);
+         }
+      });
+      ops.add(new Operation("topKHighestRoomPriceForADateRange") {
+         void run (DBProject esql, Random r) throws SQLException {
+            Date start = day(r);
+            DBProject.topKHighestRoomPriceForADateRange(esql, start,
+               DBProject.fromEpochDay(DBProject.toEpochDay(start) + 30), 10, NO_OUTPUT);
+         }
+      });
+      ops.add(new Operation("topKHighestPriceBookingsForACustomer") {
+         void run (DBProject esql, Random r) throws SQLException {
+            Object[] c = pick(r, _customers);
+            DBProject.topKHighestPriceBookingsForACustomer(esql, (String) c[1], (String) c[2], 10, NO_OUTPUT);
+         }
+      });
+      ops.add(new Operation("totalCostForCustomer") {
+         void run (DBProject esql, Random r) throws SQLException {
+            Object[] c = pick(r, _customers);
+            DBProject.totalCostForCustomer(esql, room(r)[0], (String) c[1], (String) c[2],
+               DBProject.fromEpochDay(_firstDay), DBProject.fromEpochDay(_lastDay), NO_OUTPUT);
+         }
+      });
+      ops.add(new Operation("listRepairsMade") {
+         void run (DBProject esql, Random r) throws SQLException {
+            DBProject.listRepairsMade(esql, (String) pick(r, _companies)[1], NO_OUTPUT);
+         }
+      });
+      ops.add(new Operation("topKMaintenanceCompany") {
+         void run (DBProject esql, Random r) throws SQLException {
+            DBProject.topKMaintenanceCompany(esql, 10, NO_OUTPUT);
+         }
+      });
+      ops.add(new Operation("numberOfRepairsForEachRoomPerYear") {
+         void run (DBProject esql, Random r) throws SQLException {
+            int[] room = room(r);
+            DBProject.numberOfRepairsForEachRoomPerYear(esql, room[0], room[1], NO_OUTPUT);
+         }
+      });
+      ops.add(new Operation("repairTrend") {
+         void run (DBProject esql, Random r) throws SQLException {
+            DBProject.repairTrend(esql, room(r)[0], NO_OUTPUT);
+         }
+      });
+      ops.add(new Operation("hotelOccupancy") {
+         void run (DBProject esql, Random r) throws SQLException {
+            DBProject.hotelOccupancy(esql, room(r)[0]);
+         }
+      });
+      ops.add(new Operation("customerSummary") {
+         void run (DBProject esql, Random r) throws SQLException {
+            Object[] c = pick(r, _customers);
+            DBProject.customerSummary(esql, room(r)[0], (String) c[1], (String) c[2],
+               DBProject.fromEpochDay(_firstDay), DBProject.fromEpochDay(_lastDay), 10, NO_OUTPUT);
+         }
+      });
+      return ops;
+   }//end operations
+
+   /**
+    * Runs one operation on several threads and returns its result line.
+    */
+   private String measure (final Operation op, int threads, final long warmupMs, final long measureMs)
+         throws InterruptedException {
+      final long[][] latencies = new long[threads][];
+      final int[] counts = new int[threads];
+      final int[] errors = new int[threads];
+      final String[] lastError = new String[1];
+      Thread[] workers = new Thread[threads];
+      for (int t = 0; t < threads; ++t) {
+         final int id = t;
+         workers[t] = new Thread(op.name + "-" + t) {
+            public void run () {
+               Random random = new Random(31L * id + op.name.hashCode());
+               long[] recorded = new long[1024];
+               int n = 0;
+               long warmupEnd = System.nanoTime() + warmupMs * 1000000L;
+               long measureEnd = warmupEnd + measureMs * 1000000L;
+               long now;
+               while ((now = System.nanoTime()) < measureEnd) {
+                  try {
+                     op.run(_esql, random);
+                  }catch (Exception e){
+                     // counted apart, a failed call's time is not a latency
+                     if (now >= warmupEnd) {
+                        ++errors[id];
+                     }//end if
+                     lastError[0] = e.getMessage();
+                     continue;
+                  }//end try
+                  long elapsed = System.nanoTime() - now;
+                  if (now >= warmupEnd) {
+                     if (n == recorded.length) {
+                        recorded = Arrays.copyOf(recorded, n * 2);
+                     }//end if
+                     recorded[n++] = elapsed;
+                  }//end if
+               }//end while
+               latencies[id] = recorded;
+               counts[id] = n;
+            }
+         };
+         workers[t].start();
+      }//end for
+      for (Thread worker : workers) {
+         worker.join();
+      }//end for
+
+      int total = 0;
+      int failed = 0;
+      for (int t = 0; t < threads; ++t) {
+         total += counts[t];
+         failed += errors[t];
+      }//end for
+      long[] all = new long[total];
+      int pos = 0;
+      for (int t = 0; t < threads; ++t) {
+         System.arraycopy(latencies[t], 0, all, pos, counts[t]);
+         pos += counts[t];
+      }//end for
+      Arrays.sort(all);
+      long sum = 0;
+      for (long l : all) {
+         sum += l;
+      }//end for
+      if (failed > 0) {
+         System.err.println(op.name + ": " + failed + " errors, last: " + lastError[0]);
+      }//end if
+      return String.format("%s\t%d\t%.1f\t%.3f\t%.3f\t%.3f\t%.3f\t%d", op.name, total,
+         total * 1000.0 / measureMs, total == 0 ? 0.0 : sum / 1e6 / total, percentile(all, 0.50),
+         percentile(all, 0.99), total == 0 ? 0.0 : all[total - 1] / 1e6, failed);
+   }//end measure
+
+   // in milliseconds, from sorted nanoseconds
+   private static double percentile (long[] sorted, double p) {
+      if (sorted.length == 0) {
+         return 0.0;
+      }//end if
+      int i = (int) Math.ceil(p * sorted.length) - 1;
+      return sorted[Math.max(0, Math.min(i, sorted.length - 1))] / 1e6;
+   }//end percentile
+
+   private int[] room (Random r) {
+      return this._rooms.get(r.nextInt(this._rooms.size()));
+   }//end room
+
+   private Date day (Random r) {
+      return DBProject.fromEpochDay(this._firstDay + r.nextInt(Math.max(1, this._lastDay - this._firstDay + 1)));
+   }//end day
+
+   private static <T> T pick (Random r, List<T> sample) {
+      return sample.get(r.nextInt(sample.size()));
+   }//end pick
+
+   private static String word (Random r) {
+      char[] c = new char[4 + r.nextInt(4)];
+      for (int i = 0; i < c.length; ++i) {
+         c[i] = (char) ('a' + r.nextInt(26));
+      }//end for
+      return new String(c);
+   }//end word
+
+   /**
+    * Runs the benchmark.  Options: bench.threads (1), bench.warmupSeconds
+    * (5), bench.measureSeconds (10), bench.sampleSize (10000) and bench.ops,
+    * a comma separated list of operation names (all).
+    *
+    * @param args the database name, port and user
+    */
+   public static void main (String[] args) {
+      if (args.length != 3) {
+         System.err.println("Usage: java [-Dbench.threads=N ...] Benchmark <dbname> <port> <user>");
+         return;
+      }//end if
+      int threads = Integer.getInteger("bench.threads", 1).intValue();
+      long warmupMs = Integer.getInteger("bench.warmupSeconds", 5).intValue() * 1000L;
+      long measureMs = Integer.getInteger("bench.measureSeconds", 10).intValue() * 1000L;
+      String only = System.getProperty("bench.ops");
+      List<String> selected = only == null ? null : Arrays.asList(only.split(","));
+
+      DBProject esql = null;
+      try {
+         // keep the connection messages off the result lines
+         java.io.PrintStream results = System.out;
+         System.setOut(System.err);
+         esql = new DBProject(args[0], args[1], args[2], "");
+         Benchmark bench = new Benchmark(esql, Integer.getInteger("bench.sampleSize", 10000).intValue());
+         results.println("operation\tcalls\tops/s\tavg ms\tp50 ms\tp99 ms\tmax ms\terrors");
+         for (Operation op : bench.operations()) {
+            if (selected == null || selected.contains(op.name)) {
+               results.println(bench.measure(op, threads, warmupMs, measureMs));
+            }//end if
+         }//end for
+      }catch (Exception e){
+         System.err.println(e.getMessage());
+      }finally{
+         try {
+            if (esql != null) {
+               esql.cleanup();
+            }//end if
+         }catch (Exception e){
+            // ignored.
+         }//end try
+      }//end try
+   }//end main
+
+}//end Benchmark
@@ -0,0 +1,47 @@
+/*
+ * Booking conflicts for DBProject
+ * ===============================
+ *
+ * Target DBMS: 'Postgres'
+ *
+ */
+
+
+import java.sql.SQLException;
+import java.text.SimpleDateFormat;
+import java.util.Date;
+
+/**
+ * Thrown by DBProject.bookRoom when the room already has a booking on the
+ * day.  With the availability index the conflict is found in memory before
+ * anything is sent; otherwise, and for bookings made at the same time, the
+ * unique index bookingRoomDateUnique (postgresql/migrations) rejects the
+ * insert and the server's unique violation is turned into this exception.
+ *
+ */
+public class BookingConflictException extends SQLException {
+
+   private static final long serialVersionUID = 1L;
+
+   // SQLState of a unique violation
+   public static final String UNIQUE_VIOLATION = "23505";
+
+   /**
+    * Creates the exception for a room and day.
+    */
+   public BookingConflictException (int hotelID, int roomNo, Date day) {
+      super("Room " + roomNo + " of hotel " + hotelID + " is already booked on "
+         + new SimpleDateFormat("MM/dd/yy").format(day), UNIQUE_VIOLATION);
+   }//end BookingConflictException
+
+   /**
+    * Tells whether the server rejected an insert for booking a room twice on
+    * the same day.  The index name is checked rather than the SQLState alone,
+    * since the primary key raises the same state and old drivers report none.
+    */
+   public static boolean isRoomConflict (SQLException e) {
+      String message = e.getMessage();
+      return message != null && message.toLowerCase().indexOf("bookingroomdateunique") >= 0;
+   }//end isRoomConflict
+
+}//end BookingConflictException
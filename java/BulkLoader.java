@@ -0,0 +1,441 @@
+/*
+ * Bulk loader for DBProject
+ * =========================
+ *
+ * Target DBMS: 'Postgres'
+ *
+ */
+
+
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.FileNotFoundException;
+import java.io.IOException;
+import java.math.BigDecimal;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.Charset;
+import java.sql.SQLException;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.Callable;
+import java.util.concurrent.Future;
+
+/**
+ * Loads the nine data/*.csv files from the client, so they need not be
+ * copied to the database server first as for the COPY of create.sql.  The
+ * tables must exist (create.sql) and are emptied first.
+ *
+ * The files are read through a FileChannel into one buffer and split in
+ * place: numbers, dates and booleans are parsed from the bytes, only text
+ * values become Strings, and dates are shared per day.  Every table is
+ * loaded in one transaction on its own connection, its inserts sent as
+ * JDBC batches of batchRows rows (see DBProject.begin).  Tables whose
+ * references are loaded run at the same time: Hotel, Customer and
+ * MaintenanceCompany first, then Staff and Room, then Booking, Repair and
+ * Assigned, then Request.
+ *
+ * Hotel and Staff reference each other, so hotels are loaded without a
+ * manager and, once Staff is in, every hotel gets the staff member with the
+ * Manager role as create.sql does.  At the end the ID sequences start after
+ * the loaded keys again and the tables are analyzed.
+ *
+ */
+public class BulkLoader {
+
+   // one csv file, its columns and how each is parsed: n number, d date,
+   // s text, r and g text cast to StaffRole and GenderType, b boolean,
+   // x always NULL
+   private static class Table {
+      final String name;
+      final String file;
+      final String insert;
+      final String kinds;
+
+      Table (String name, String file, String columns, String kinds) {
+         this.name = name;
+         this.file = file;
+         this.kinds = kinds;
+         StringBuilder sql = new StringBuilder("INSERT INTO ").append(name).append('(').append(columns)
+            .append(") VALUES (");
+         for (int i = 0; i < kinds.length(); ++i) {
+            sql.append(i == 0 ? "" : ", ");
+            // text is not assigned to enum columns without a cast, as in Queries.ADD_CUSTOMER
+            switch (kinds.charAt(i)) {
+               case 'r': sql.append("CAST(? AS StaffRole)"); break;
+               case 'g': sql.append("CAST(? AS GenderType)"); break;
+               default: sql.append('?'); break;
+            }//end switch
+         }//end for
+         this.insert = sql.append(')').toString();
+      }
+   }//end Table
+
+   private static final Table HOTEL = new Table("Hotel", "hotel.csv", "hotelID, address, manager", "nsx");
+   private static final Table STAFF = new Table("Staff", "staff.csv",
+      "SSN, fName, lName, address, role, employerID", "nsssrn");
+   private static final Table ROOM = new Table("Room", "room.csv", "hotelID, roomNo, roomType", "nns");
+   private static final Table CUSTOMER = new Table("Customer", "customer.csv",
+      "customerID, fName, lName, Address, phNo, DOB, gender", "nsssndg");
+   private static final Table COMPANY = new Table("MaintenanceCompany", "maintenanceCompany.csv",
+      "cmpID, name, address, isCertified", "nssb");
+   private static final Table BOOKING = new Table("Booking", "booking.csv",
+      "bID, customer, hotelID, roomNo, bookingDate, noOfPeople, price", "nnnndnn");
+   private static final Table REPAIR = new Table("Repair", "repair.csv",
+      "rID, hotelID, roomNo, mCompany, repairDate, description, repairType", "nnnndss");
+   private static final Table REQUEST = new Table("Request", "request.csv",
+      "reqID, managerID, repairID, requestDate, description", "nnnds");
+   private static final Table ASSIGNED = new Table("Assigned", "assigned.csv",
+      "asgID, staffID, hotelID, roomNo", "nnnn");
+
+   // the tables of a step only reference tables of earlier steps
+   private static final Table[][] STEPS = {
+      { HOTEL, CUSTOMER, COMPANY },
+      { STAFF, ROOM },
+      { BOOKING, REPAIR, ASSIGNED },
+      { REQUEST } };
+
+   private static final String SET_MANAGERS =
+      "UPDATE Hotel SET manager = Staff.SSN FROM Staff "
+      + "WHERE Hotel.hotelID = Staff.employerID AND Staff.role = 'Manager'";
+
+   // sequence, table and key, as in create.sql
+   private static final String[][] SEQUENCES = {
+      { "customer_id_seq", "Customer", "customerID" },
+      { "maintenancecompany_id_seq", "MaintenanceCompany", "cmpID" },
+      { "repair_id_seq", "Repair", "rID" },
+      { "booking_id_seq", "Booking", "bID" },
+      { "assigned_id_seq", "Assigned", "asgID" },
+      { "request_id_seq", "Request", "reqID" } };
+
+   private static final Charset UTF_8 = Charset.forName("UTF-8");
+
+   private final DBProject _esql;
+   private final int _batchRows;
+
+   /**
+    * Creates a loader.
+    *
+    * @param esql the database
+    * @param batchRows the inserts sent in one batch
+    */
+   public BulkLoader (DBProject esql, int batchRows) {
+      this._esql = esql;
+      this._batchRows = Math.max(1, batchRows);
+   }//end BulkLoader
+
+   /**
+    * Replaces the contents of the tables with the files of a directory.
+    *
+    * @param dir the directory holding the nine csv files
+    * @param out receives the rows, seconds and rows per second of every table and the total
+    * @return the number of rows loaded
+    * @throws java.sql.SQLException when a table could not be loaded
+    * @throws java.io.IOException when a file is missing or could not be read
+    */
+   public long load (File dir, ReportWriter out) throws SQLException, IOException {
+      for (Table[] step : STEPS) {
+         for (Table table : step) {
+            if (!new File(dir, table.file).canRead()) {
+               throw new FileNotFoundException(new File(dir, table.file).getPath());
+            }//end if
+         }//end for
+      }//end for
+      long start = System.nanoTime();
+      // RepairCount goes too, the company trigger adds a row for every company
+      this._esql.executeUpdate("TRUNCATE Hotel, Staff, Room, Customer, MaintenanceCompany, Booking, Repair, "
+         + "Request, Assigned, RepairCount");
+      out.header(new String[] { "table", "rows", "seconds", "rowsPerSecond" });
+      long total = 0;
+      for (Table[] step : STEPS) {
+         List<Future<long[]>> loads = new ArrayList<Future<long[]>>();
+         for (final Table table : step) {
+            final File file = new File(dir, table.file);
+            loads.add(this._esql.submit(new Callable<long[]>() {
+               public long[] call () throws Exception {
+                  long tableStart = System.nanoTime();
+                  return new long[] { load(table, file), System.nanoTime() - tableStart };
+               }
+            }));
+         }//end for
+         // every load of the step ends before a failure is reported
+         SQLException failed = null;
+         RuntimeException broken = null;
+         for (int i = 0; i < step.length; ++i) {
+            try {
+               long[] loaded = DBProject.await(loads.get(i));
+               report(out, step[i].name, loaded[0], loaded[1]);
+               total += loaded[0];
+            }catch (SQLException e){
+               failed = failed == null ? e : failed;
+            }catch (RuntimeException e){
+               broken = broken == null ? e : broken;
+            }//end try
+         }//end for
+         if (failed != null) {
+            throw failed;
+         }//end if
+         if (broken != null) {
+            throw broken;
+         }//end if
+         if (step[0] == STAFF) {
+            this._esql.executeUpdate(SET_MANAGERS);
+         }//end if
+      }//end for
+      for (String[] sequence : SEQUENCES) {
+         this._esql.executeCount("SELECT setval('" + sequence[0] + "', (SELECT COALESCE(MAX(" + sequence[2]
+            + "), 0)::bigint + 1 FROM " + sequence[1] + "), false)");
+      }//end for
+      this._esql.reloadData();
+      report(out, "total", total, System.nanoTime() - start);
+      return total;
+   }//end load
+
+   private static void report (ReportWriter out, String table, long rows, long nanos) {
+      double seconds = nanos / 1e9;
+      out.row(new Object[] { table, rows, String.format("%.3f", seconds),
+         Math.round(rows / Math.max(seconds, 1e-9)) });
+   }//end report
+
+   // loads one file in one transaction on the calling thread, returns the row count
+   private long load (Table table, File file) throws SQLException, IOException {
+      FileChannel in = new FileInputStream(file).getChannel();
+      long rows = 0;
+      try {
+         Fields fields = new Fields(in, table.kinds.length(), file.getName());
+         Map<Integer, java.sql.Date> days = new HashMap<Integer, java.sql.Date>();
+         this._esql.begin(true);
+         try {
+            while (fields.next()) {
+               Object[] params = new Object[table.kinds.length()];
+               for (int f = 0; f < params.length; ++f) {
+                  params[f] = fields.value(f, table.kinds.charAt(f), days);
+               }//end for
+               this._esql.executeUpdate(table.insert, params);
+               if (++rows % this._batchRows == 0) {
+                  this._esql.flush();
+               }//end if
+            }//end while
+            this._esql.commit();
+         } finally {
+            // nothing to do after a commit
+            this._esql.rollback();
+         }//end try
+      } finally {
+         in.close();
+      }//end try
+      this._esql.executeUpdate("ANALYZE " + table.name);
+      return rows;
+   }//end load
+
+   /**
+    * The fields of the current line of a file in COPY text format, comma
+    * separated, \N for NULL and backslash escapes, as offsets into the read
+    * buffer.
+    */
+   private static class Fields {
+      private final FileChannel _in;
+      private final String _file;
+      private final int[] _start;
+      private final int[] _end;
+      private byte[] _text = new byte[64];
+      private ByteBuffer _buf = ByteBuffer.allocate(1 << 20);
+      private boolean _eof = false;
+      private long _line = 0;
+
+      Fields (FileChannel in, int columns, String file) {
+         this._in = in;
+         this._file = file;
+         this._start = new int[columns];
+         this._end = new int[columns];
+         this._buf.flip();
+      }
+
+      // moves to the next line, false at the end of the file
+      boolean next () throws IOException {
+         while (true) {
+            byte[] b = this._buf.array();
+            int from = this._buf.position();
+            int limit = this._buf.limit();
+            int eol = from;
+            while (eol < limit && b[eol] != '\n') {
+               ++eol;
+            }//end while
+            if (eol == limit && !this._eof) {
+               fill();
+               continue;
+            }//end if
+            if (eol == limit && from == limit) {
+               return false;
+            }//end if
+            this._buf.position(eol < limit ? eol + 1 : limit);
+            ++this._line;
+            int end = eol > from && b[eol - 1] == '\r' ? eol - 1 : eol;
+            if (end > from) {
+               split(b, from, end);
+               return true;
+            }//end if
+         }//end while
+      }
+
+      // keeps the partial line and reads more, growing the buffer for long lines
+      private void fill () throws IOException {
+         this._buf.compact();
+         if (!this._buf.hasRemaining()) {
+            ByteBuffer grown = ByteBuffer.allocate(this._buf.capacity() * 2);
+            this._buf.flip();
+            grown.put(this._buf);
+            this._buf = grown;
+         }//end if
+         if (this._in.read(this._buf) < 0) {
+            this._eof = true;
+         }//end if
+         this._buf.flip();
+      }
+
+      private void split (byte[] b, int from, int end) {
+         int f = 0;
+         this._start[0] = from;
+         for (int i = from; i < end; ++i) {
+            if (b[i] == '\\') {
+               ++i;
+            } else if (b[i] == ',') {
+               if (f + 1 >= this._start.length) {
+                  throw error("more than " + this._start.length + " fields");
+               }//end if
+               this._end[f] = i;
+               this._start[++f] = i + 1;
+            }//end if
+         }//end for
+         this._end[f] = end;
+         if (f + 1 != this._start.length) {
+            throw error((f + 1) + " fields instead of " + this._start.length);
+         }//end if
+      }
+
+      // the value of a field to bind
+      Object value (int f, char kind, Map<Integer, java.sql.Date> days) {
+         byte[] b = this._buf.array();
+         int from = this._start[f];
+         int end = this._end[f];
+         if (kind == 'x' || (end - from == 2 && b[from] == '\\' && b[from + 1] == 'N')) {
+            return null;
+         }//end if
+         switch (kind) {
+            case 'n':
+               return number(b, from, end);
+            case 'd': {
+               int day = epochDay(b, from, end);
+               java.sql.Date date = days.get(day);
+               if (date == null) {
+                  date = DBProject.fromEpochDay(day);
+                  days.put(day, date);
+               }//end if
+               return date;
+            }
+            case 'b': {
+               byte c = b[from];
+               return Boolean.valueOf(c == 't' || c == 'T' || c == 'y' || c == 'Y' || c == '1'
+                  || ((c == 'o' || c == 'O') && end - from == 2 && (b[from + 1] == 'n' || b[from + 1] == 'N')));
+            }
+            default:
+               return text(b, from, end);
+         }//end switch
+      }
+
+      private Object number (byte[] b, int from, int end) {
+         int i = from;
+         boolean negative = i < end && b[i] == '-';
+         if (negative) {
+            ++i;
+         }//end if
+         long unscaled = 0;
+         int scale = -1;
+         for (; i < end; ++i) {
+            if (b[i] == '.' && scale < 0) {
+               scale = 0;
+               continue;
+            }//end if
+            if (b[i] < '0' || b[i] > '9' || unscaled > (Long.MAX_VALUE - 9) / 10) {
+               throw error("not a number");
+            }//end if
+            unscaled = unscaled * 10 + (b[i] - '0');
+            if (scale >= 0) {
+               ++scale;
+            }//end if
+         }//end for
+         if (end == from || (negative && end == from + 1)) {
+            throw error("not a number");
+         }//end if
+         unscaled = negative ? -unscaled : unscaled;
+         return scale < 0 ? (Object) Long.valueOf(unscaled) : BigDecimal.valueOf(unscaled, scale);
+      }
+
+      // M/d/yyyy as in the shipped files, or yyyy-MM-dd
+      private int epochDay (byte[] b, int from, int end) {
+         int[] part = new int[3];
+         int p = 0;
+         int digits = 0;
+         boolean iso = false;
+         for (int i = from; i < end; ++i) {
+            if (b[i] == '/' || b[i] == '-') {
+               iso = b[i] == '-';
+               if (++p > 2 || digits == 0) {
+                  throw error("not a date");
+               }//end if
+               digits = 0;
+            } else if (b[i] >= '0' && b[i] <= '9' && digits < 4) {
+               part[p] = part[p] * 10 + (b[i] - '0');
+               ++digits;
+            } else {
+               throw error("not a date");
+            }//end if
+         }//end for
+         if (p != 2 || digits == 0) {
+            throw error("not a date");
+         }//end if
+         int year = iso ? part[0] : part[2];
+         int month = iso ? part[1] : part[0];
+         int day = iso ? part[2] : part[1];
+         if (month < 1 || month > 12 || day < 1 || day > 31) {
+            throw error("not a date");
+         }//end if
+         // days from civil, proleptic Gregorian
+         int y = month <= 2 ? year - 1 : year;
+         int era = (y >= 0 ? y : y - 399) / 400;
+         int yoe = y - era * 400;
+         int doy = (153 * (month + (month > 2 ? -3 : 9)) + 2) / 5 + day - 1;
+         int doe = yoe * 365 + yoe / 4 - yoe / 100 + doy;
+         return era * 146097 + doe - 719468;
+      }
+
+      // the only String made per field, the driver binds nothing else
+      private String text (byte[] b, int from, int end) {
+         if (this._text.length < end - from) {
+            this._text = new byte[end - from];
+         }//end if
+         int n = 0;
+         for (int i = from; i < end; ++i) {
+            byte c = b[i];
+            if (c == '\\' && i + 1 < end) {
+               c = b[++i];
+               switch (c) {
+                  case 'n': c = '\n'; break;
+                  case 'r': c = '\r'; break;
+                  case 't': c = '\t'; break;
+                  default: break;
+               }//end switch
+            }//end if
+            this._text[n++] = c;
+         }//end for
+         return new String(this._text, 0, n, UTF_8);
+      }
+
+      private IllegalArgumentException error (String problem) {
+         return new IllegalArgumentException(this._file + " line " + this._line + ": " + problem);
+      }
+   }//end Fields
+
+}//end BulkLoader
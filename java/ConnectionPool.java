@@ -0,0 +1,215 @@
+/*
+ * Connection pool for DBProject
+ * =============================
+ *
+ * Target DBMS: 'Postgres'
+ *
+ */
+
+
+import java.sql.DriverManager;
+import java.sql.Connection;
+import java.sql.Statement;
+import java.sql.SQLException;
+import java.util.ArrayList;
+import java.util.Iterator;
+import java.util.LinkedList;
+import java.util.List;
+import java.util.Timer;
+import java.util.TimerTask;
+
+/**
+ * A bounded pool of physical connections.  Idle connections are checked with
+ * a cheap query before they are handed out again and closed once they have
+ * been idle for too long, so long running processes do not hold on to
+ * sockets nobody uses.
+ *
+ */
+public class ConnectionPool implements ConnectionSource {
+
+   private final String _url;
+   private final String _user;
+   private final String _passwd;
+
+   private final int _maxSize;
+   private final long _idleTimeout;
+   private final long _validateAfter;
+   private final long _borrowTimeout;
+   private final int _statementCacheSize;
+
+   // most recently returned connection first
+   private final LinkedList<PooledConnection> _idle = new LinkedList<PooledConnection>();
+   private int _total = 0;
+   private boolean _closed = false;
+
+   private final Timer _evictor;
+
+   /**
+    * Creates a new pool.  No connection is opened until the first borrow.
+    *
+    * @param url the JDBC URL of the database
+    * @param user the user name used to login to the database
+    * @param passwd the user login password
+    * @param maxSize the largest number of physical connections
+    * @param idleTimeout milliseconds after which an idle connection is closed
+    * @param validateAfter milliseconds of idleness after which a connection is validated on borrow
+    * @param borrowTimeout milliseconds to wait for a free connection
+    * @param statementCacheSize prepared statements cached per connection
+    */
+   public ConnectionPool (String url, String user, String passwd, int maxSize, long idleTimeout,
+                          long validateAfter, long borrowTimeout, int statementCacheSize) {
+      this._url = url;
+      this._user = user;
+      this._passwd = passwd;
+      this._maxSize = maxSize;
+      this._idleTimeout = idleTimeout;
+      this._validateAfter = validateAfter;
+      this._borrowTimeout = borrowTimeout;
+      this._statementCacheSize = statementCacheSize;
+
+      this._evictor = new Timer("pool-evictor", true);
+      long period = Math.max(1000, idleTimeout / 2);
+      this._evictor.schedule(new TimerTask() {
+         public void run () {
+            evictIdle();
+         }
+      }, period, period);
+   }//end ConnectionPool
+
+   /**
+    * Borrows a connection, opening a new one when all are in use and the
+    * pool is not full yet, otherwise waiting for one to be returned.
+    *
+    * @return a validated connection
+    * @throws java.sql.SQLException when no connection became available in time
+    */
+   public PooledConnection getConnection () throws SQLException {
+      long deadline = System.currentTimeMillis() + this._borrowTimeout;
+      while (true) {
+         PooledConnection conn = null;
+         boolean create = false;
+         synchronized (this) {
+            if (this._closed) {
+               throw new SQLException("Connection pool is closed");
+            }//end if
+            if (!this._idle.isEmpty()) {
+               conn = this._idle.removeFirst();
+            } else if (this._total < this._maxSize) {
+               ++this._total;
+               create = true;
+            } else {
+               long wait = deadline - System.currentTimeMillis();
+               if (wait <= 0) {
+                  throw new SQLException("Timed out waiting for a database connection");
+               }//end if
+               try {
+                  this.wait(wait);
+               }catch (InterruptedException e){
+                  Thread.currentThread().interrupt();
+                  throw new SQLException("Interrupted while waiting for a database connection");
+               }//end try
+               continue;
+            }//end if
+         }//end synchronized
+
+         if (create) {
+            try {
+               Connection physical = DriverManager.getConnection(this._url, this._user, this._passwd);
+               return new PooledConnection(this, physical, this._statementCacheSize);
+            }catch (SQLException e){
+               discarded();
+               throw e;
+            }//end try
+         }//end if
+
+         if (System.currentTimeMillis() - conn.lastUsed < this._validateAfter || isValid(conn)) {
+            return conn;
+         }//end if
+         conn.closePhysical();
+         discarded();
+      }//end while
+   }//end getConnection
+
+   /**
+    * Takes a connection back.  Broken connections are closed instead.
+    */
+   void release (PooledConnection conn) {
+      boolean close;
+      synchronized (this) {
+         close = this._closed || conn.isBroken();
+         if (close) {
+            --this._total;
+         } else {
+            conn.lastUsed = System.currentTimeMillis();
+            this._idle.addFirst(conn);
+         }//end if
+         this.notifyAll();
+      }//end synchronized
+      if (close) {
+         conn.closePhysical();
+      }//end if
+   }//end release
+
+   /**
+    * Closes the connections that have been idle longer than the idle timeout.
+    */
+   void evictIdle () {
+      List<PooledConnection> expired = new ArrayList<PooledConnection>();
+      synchronized (this) {
+         long now = System.currentTimeMillis();
+         Iterator<PooledConnection> it = this._idle.iterator();
+         while (it.hasNext()) {
+            PooledConnection conn = it.next();
+            if (now - conn.lastUsed > this._idleTimeout) {
+               it.remove();
+               --this._total;
+               expired.add(conn);
+            }//end if
+         }//end while
+         this.notifyAll();
+      }//end synchronized
+      for (PooledConnection conn : expired) {
+         conn.closePhysical();
+      }//end for
+   }//end evictIdle
+
+   /**
+    * Closes the pool and every idle connection.  Borrowed connections are
+    * closed when they are returned.
+    */
+   public void close () {
+      List<PooledConnection> idle;
+      synchronized (this) {
+         this._closed = true;
+         idle = new ArrayList<PooledConnection>(this._idle);
+         this._total -= idle.size();
+         this._idle.clear();
+         this.notifyAll();
+      }//end synchronized
+      this._evictor.cancel();
+      for (PooledConnection conn : idle) {
+         conn.closePhysical();
+      }//end for
+   }//end close
+
+   private synchronized void discarded () {
+      --this._total;
+      this.notifyAll();
+   }//end discarded
+
+   // the pg73 driver predates Connection.isValid(), so run a trivial query
+   private static boolean isValid (PooledConnection conn) {
+      try {
+         Statement stmt = conn.connection().createStatement();
+         try {
+            stmt.executeQuery("SELECT 1").close();
+         } finally {
+            stmt.close();
+         }//end try
+         return true;
+      }catch (SQLException e){
+         return false;
+      }//end try
+   }//end isValid
+
+}//end ConnectionPool
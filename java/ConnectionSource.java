@@ -0,0 +1,33 @@
+/*
+ * Connection sources for DBProject
+ * ================================
+ *
+ * Target DBMS: 'Postgres'
+ *
+ */
+
+
+import java.sql.SQLException;
+
+/**
+ * A small DataSource-style interface for anything that can hand out database
+ * connections.  Connections obtained here must be given back by calling
+ * PooledConnection.close() once the caller is done with them.
+ *
+ */
+public interface ConnectionSource {
+
+   /**
+    * Borrows a connection.
+    *
+    * @return a connection that is ready to use
+    * @throws java.sql.SQLException when no connection could be obtained
+    */
+   PooledConnection getConnection () throws SQLException;
+
+   /**
+    * Closes every physical connection held by this source.
+    */
+   void close ();
+
+}//end ConnectionSource
@@ -0,0 +1,127 @@
+/*
+ * Customer name resolution for DBProject
+ * ======================================
+ *
+ * Target DBMS: 'Postgres'
+ *
+ */
+
+
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+/**
+ * Resolves a customer name to the IDs of the customers with that name, so
+ * the name based reports can read Booking by customer instead of joining
+ * Customer on its blank padded name columns.  Lookups go through the
+ * customerNameIndex (lname, fname, customerID) and the answers are kept in
+ * a bounded LRU cache; DBProject.addCustomer adds new IDs to cached names.
+ *
+ * Names that match no customer are not cached, and customers added by
+ * other processes under an already cached name are not seen until the entry
+ * is evicted.
+ *
+ */
+public class CustomerNames {
+
+   private final DBProject _esql;
+   private final Map<String, int[]> _cache;
+
+   /**
+    * Creates a resolver.
+    *
+    * @param esql the database to look names up in
+    * @param capacity the number of names kept, 0 to always ask the database
+    */
+   public CustomerNames (DBProject esql, final int capacity) {
+      this._esql = esql;
+      this._cache = new LinkedHashMap<String, int[]>(16, 0.75f, true) {
+         protected boolean removeEldestEntry (Map.Entry<String, int[]> eldest) {
+            return size() > capacity;
+         }
+      };
+   }//end CustomerNames
+
+   /**
+    * Returns the IDs of the customers with a name.  Trailing blanks do not
+    * count, as in the CHAR(30) columns.
+    *
+    * @return the customer IDs, empty when there is none
+    * @throws java.sql.SQLException when the name could not be looked up
+    */
+   public int[] resolve (String fName, String lName) throws SQLException {
+      String key = key(fName, lName);
+      synchronized (this._cache) {
+         int[] ids = this._cache.get(key);
+         if (ids != null) {
+            return ids;
+         }//end if
+      }//end synchronized
+      final int[][] found = { new int[4] };
+      final int[] n = { 0 };
+      this._esql.forEachRow(Queries.CUSTOMER_IDS_BY_NAME, new RowHandler() {
+         public void handleRow (ResultSet rs) throws SQLException {
+            if (n[0] == found[0].length) {
+               int[] grown = new int[n[0] * 2];
+               System.arraycopy(found[0], 0, grown, 0, n[0]);
+               found[0] = grown;
+            }//end if
+            found[0][n[0]++] = rs.getInt(1);
+         }
+      }, lName, fName);
+      int[] ids = new int[n[0]];
+      System.arraycopy(found[0], 0, ids, 0, n[0]);
+      if (ids.length > 0) {
+         synchronized (this._cache) {
+            // a concurrent addCustomer may have cached a longer list meanwhile
+            int[] cached = this._cache.get(key);
+            if (cached == null || cached.length < ids.length) {
+               this._cache.put(key, ids);
+            } else {
+               ids = cached;
+            }//end if
+         }//end synchronized
+      }//end if
+      return ids;
+   }//end resolve
+
+   /**
+    * Records a new customer under a name that may already be cached.
+    */
+   public void addCustomer (int customerID, String fName, String lName) {
+      String key = key(fName, lName);
+      synchronized (this._cache) {
+         int[] ids = this._cache.get(key);
+         if (ids != null) {
+            int[] grown = new int[ids.length + 1];
+            System.arraycopy(ids, 0, grown, 0, ids.length);
+            grown[ids.length] = customerID;
+            this._cache.put(key, grown);
+         }//end if
+      }//end synchronized
+   }//end addCustomer
+
+   /**
+    * Forgets every cached name, after the customers were reloaded.
+    */
+   public void clear () {
+      synchronized (this._cache) {
+         this._cache.clear();
+      }//end synchronized
+   }//end clear
+
+   private static String key (String fName, String lName) {
+      return trimEnd(lName) + '\u0000' + trimEnd(fName);
+   }//end key
+
+   private static String trimEnd (String s) {
+      int end = s.length();
+      while (end > 0 && s.charAt(end - 1) == ' ') {
+         --end;
+      }//end while
+      return s.substring(0, end);
+   }//end trimEnd
+
+}//end CustomerNames
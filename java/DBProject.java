@@ -1,1438 +1,2954 @@
-/*
- * Template JAVA User Interface
- * =============================
- *
- * Database Management Systems
- * Department of Computer Science &amp; Engineering
- * University of California - Riverside
- *
- * Target DBMS: 'Postgres'
- *
- */
-
-
-import java.sql.DriverManager;
-import java.sql.Connection;
-import java.sql.Statement;
-import java.sql.ResultSet;
-import java.sql.ResultSetMetaData;
-import java.sql.SQLException;
-import java.io.File;
-import java.io.FileReader;
-import java.io.BufferedReader;
-import java.io.InputStreamReader;
-// Student imports:
-import java.util.Date;
-import java.text.SimpleDateFormat;
-
-import java.util.Date;
-import java.text.SimpleDateFormat;
-/**
- * This class defines a simple embedded SQL utility class that is designed to
- * work with PostgreSQL JDBC drivers.
- *
- */
-public class DBProject {
-
-   // reference to physical database connection.
-   private Connection _connection = null;
-
-   // handling the keyboard inputs through a BufferedReader
-   // This variable can be global for convenience.
-   static BufferedReader in = new BufferedReader(
-                                new InputStreamReader(System.in));
-
-   /**
-    * Creates a new instance of DBProject
-    *
-    * @param hostname the MySQL or PostgreSQL server hostname
-    * @param database the name of the database
-    * @param username the user name used to login to the database
-    * @param password the user login password
-    * @throws java.sql.SQLException when failed to make a connection.
-    */
-   public DBProject (String dbname, String dbport, String user, String passwd) throws SQLException {
-
-      System.out.print("Connecting to database...");
-      try{
-         // constructs the connection URL
-         String url = "jdbc:postgresql://localhost:" + dbport + "/" + dbname;
-         System.out.println ("Connection URL: " + url + "\n");
-
-         // obtain a physical connection
-         this._connection = DriverManager.getConnection(url, user, passwd);
-         System.out.println("Done");
-      }catch (Exception e){
-         System.err.println("Error - Unable to Connect to Database: " + e.getMessage() );
-         System.out.println("Make sure you started postgres on this machine");
-         System.exit(-1);
-      }//end catch
-   }//end DBProject
-
-   /**
-    * Method to execute an update SQL statement.  Update SQL instructions
-    * includes CREATE, INSERT, UPDATE, DELETE, and DROP.
-    *
-    * @param sql the input SQL string
-    * @throws java.sql.SQLException when update failed
-    */
-   public void executeUpdate (String sql) throws SQLException {
-      // creates a statement object
-      Statement stmt = this._connection.createStatement ();
-
-      // issues the update instruction
-      stmt.executeUpdate (sql);
-
-      // close the instruction
-      stmt.close ();
-   }//end executeUpdate
-
-   /**
-    * Method to execute an input query SQL instruction (i.e. SELECT).  This
-    * method issues the query to the DBMS and outputs the results to
-    * standard out.
-    *
-    * @param query the input query string
-    * @return the number of rows returned
-    * @throws java.sql.SQLException when failed to execute the query
-    */
-   public int executeQuery (String query) throws SQLException {
-      // creates a statement object
-      Statement stmt = this._connection.createStatement ();
-
-      // issues the query instruction
-      ResultSet rs = stmt.executeQuery (query);
-
-      /*
-       ** obtains the metadata object for the returned result set.  The metadata
-       ** contains row and column info.
-       */
-      ResultSetMetaData rsmd = rs.getMetaData ();
-      int numCol = rsmd.getColumnCount ();
-      int rowCount = 0;
-
-      // iterates through the result set and output them to standard out.
-      boolean outputHeader = true;
-      while (rs.next()){
-	 if(outputHeader){
-	    for(int i = 1; i <= numCol; i++){
-		System.out.print(rsmd.getColumnName(i) + "\t");
-	    }
-	    System.out.println();
-	    outputHeader = false;
-	 }
-         for (int i=1; i<=numCol; ++i)
-            System.out.print (rs.getString (i) + "\t");
-         System.out.println ();
-         ++rowCount;
-      }//end while
-      stmt.close ();
-      return rowCount;
-   }//end executeQuery
-
-   /**
-    * Method to close the physical connection if it is open.
-    */
-   public void cleanup(){
-      try{
-         if (this._connection != null){
-            this._connection.close ();
-         }//end if
-      }catch (SQLException e){
-         // ignored.
-      }//end try
-   }//end cleanup
-
-   /**
-    * The main execution method
-    *
-    * @param args the command line arguments this inclues the <mysql|pgsql> <login file>
-    */
-   public static void main (String[] args) {
-      if (args.length != 3) {
-         System.err.println (
-            "Usage: " +
-            "java [-classpath <classpath>] " +
-            DBProject.class.getName () +
-            " <dbname> <port> <user>");
-         return;
-      }//end if
-      
-      Greeting();
-      DBProject esql = null;
-      try{
-         // use postgres JDBC driver.
-         Class.forName ("org.postgresql.Driver").newInstance ();
-         // instantiate the DBProject object and creates a physical
-         // connection.
-         String dbname = args[0];
-         String dbport = args[1];
-         String user = args[2];
-         esql = new DBProject (dbname, dbport, user, "");
-
-         boolean keepon = true;
-         while(keepon) {
-            // These are sample SQL statements
-				System.out.println("MAIN MENU");
-				System.out.println("---------");
-				System.out.println("1. Add new customer");
-				System.out.println("2. Add new room");
-				System.out.println("3. Add new maintenance company");
-				System.out.println("4. Add new repair");
-				System.out.println("5. Add new Booking"); 
-				System.out.println("6. Assign house cleaning staff to a room");
-				System.out.println("7. Raise a repair request");
-				System.out.println("8. Get number of available rooms");
-				System.out.println("9. Get number of booked rooms");
-				System.out.println("10. Get hotel bookings for a week");
-				System.out.println("11. Get top k rooms with highest price for a date range");
-				System.out.println("12. Get top k highest booking price for a customer");
-				System.out.println("13. Get customer total cost occurred for a give date range"); 
-				System.out.println("14. List the repairs made by maintenance company");
-				System.out.println("15. Get top k maintenance companies based on repair count");
-				System.out.println("16. Get number of repairs occurred per year for a given hotel room");
-				System.out.println("17. < EXIT");
-
-            switch (readChoice()){
-				   case 1: addCustomer(esql); break;
-				   case 2: addRoom(esql); break;
-				   case 3: addMaintenanceCompany(esql); break;
-				   case 4: addRepair(esql); break;
-				   case 5: bookRoom(esql); break;
-				   case 6: assignHouseCleaningToRoom(esql); break;
-				   case 7: repairRequest(esql); break;
-				   case 8: numberOfAvailableRooms(esql); break;
-				   case 9: numberOfBookedRooms(esql); break;
-				   case 10: listHotelRoomBookingsForAWeek(esql); break;
-				   case 11: topKHighestRoomPriceForADateRange(esql); break;
-				   case 12: topKHighestPriceBookingsForACustomer(esql); break;
-				   case 13: totalCostForCustomer(esql); break;
-				   case 14: listRepairsMade(esql); break;
-				   case 15: topKMaintenanceCompany(esql); break;
-				   case 16: numberOfRepairsForEachRoomPerYear(esql); break;
-				   case 17: keepon = false; break;
-				   default : System.out.println("Unrecognized choice!"); break;
-            }//end switch
-         }//end while
-      }catch(Exception e) {
-         System.err.println (e.getMessage ());
-      }finally{
-         // make sure to cleanup the created table and close the connection.
-         try{
-            if(esql != null) {
-               System.out.print("Disconnecting from database...");
-               esql.cleanup ();
-               System.out.println("Done\n\nBye !");
-            }//end if
-         }catch (Exception e) {
-            // ignored.
-         }//end try
-      }//end try
-   }//end main
-   
-   public static void Greeting(){
-      System.out.println(
-         "\n\n*******************************************************\n" +
-         "              User Interface      	               \n" +
-         "*******************************************************\n");
-   }//end Greeting
-
-   /*
-    * Reads the users choice given from the keyboard
-    * @int
-    **/
-   public static int readChoice() {
-      int input;
-      // returns only if a correct value is given.
-      do {
-         System.out.print("Please make your choice: ");
-         try { // read the integer, parse it and break.
-            input = Integer.parseInt(in.readLine());
-            break;
-         }catch (Exception e) {
-            System.out.println("Your input is invalid!");
-            continue;
-         }//end try
-      }while (true);
-      return input;
-   }//end readChoice
-
-   
-   public static void addCustomer(DBProject esql){
-      int customerID = 0;
-      String checkID;
-      SimpleDateFormat formatter1=new SimpleDateFormat("MM/dd/yy");
-      SimpleDateFormat formatter2=new SimpleDateFormat("yyyy-MM-dd"); 
-
-      checkID = "SELECT customerID FROM Customer";
-      try { 
-         customerID = esql.executeQuery(checkID);
-      }
-      catch (Exception e) {
-         System.err.println(e.getMessage());
-      }
-
-      String fName;
-      do {
-         System.out.println("Input your First Name: ");
-         try {
-            fName = in.readLine();
-            if (fName.length() <= 0 || fName.length() > 30) {
-               throw new RuntimeException("First Names can't be null or longer than 30 characters");
-            }
-         break;
-         }
-         catch (Exception e){
-			   System.out.println(e);
-			   continue;
-		   }
-	   }while(true);
-
-
-      String lName;
-      do {
-         System.out.println("Input your Last Name: ");
-         try {
-            lName = in.readLine();
-            if (lName.length() <= 0 || lName.length() > 30) {
-               throw new RuntimeException("Last Names can't be null or longer than 30 characters");
-            }
-            break;
-         }
-         catch (Exception e){
-			System.out.println(e);
-			continue;
-		   }
-	   }while(true);
-
-      String Address;
-      do {
-		   System.out.println("Input your Address: ");
-		   try {
-			   Address = in.readLine();
-            break;
-         }
-         catch (Exception e){
-			   System.out.println(e);
-			   continue;
-		   }
-	}while(true);
-
-   Date DOB;
-   String temp;
-
-	do {
-		System.out.println("Input your date of birth (MM/dd/YY): ");
-		try {
-			temp = in.readLine();
-			DOB = formatter1.parse(temp);
-			break;
-      }
-      catch (Exception e){
-			System.out.println("Invaild input!");
-			continue;
-		}
-	}while(true);
-
-   long phNo;
-   String tempNo;
-
-   do {
-      System.out.println("Input the customer's phone number");
-      try {
-         temp = in.readLine();
-         phNo = Long.parseLong(temp);
-         break;
-      }
-      catch (Exception e)
-      {
-         System.out.println("Invalid input!");
-         continue;
-      }
-   }while(true);
-
-   String GenderType;
-	do {
-		System.out.println("Input your Gender: Male, Female, Other ");
-		try {
-			GenderType = in.readLine();
-      break;
-      }
-      catch (Exception e){
-			System.out.println(e);
-			continue;
-		}
-	}while(true);
-
-	try {
-		String query = "INSERT INTO CUSTOMER (customerID, fName, lName, Address, phNo, DOB, gender) VALUES (" + customerID + ", \'" + fName + "\',\'" + lName + "\',\'"  + Address + "\',\'" + phNo + "\',\'"  + formatter2.format(DOB) + "\',\'"  + GenderType + "\');";
-		esql.executeUpdate(query);
-	}catch (Exception e) {  
-				System.err.println (e.getMessage());
-}   
-   };//end addCustomer
-
-   public static void addRoom(DBProject esql){
-      String tempID;
-      int hotelID;
-      int roomNo;
-      String roomType;
-      // Hotel ID
-      do {
-         System.out.println("Input the hotel ID:");
-         try {
-            tempID = in.readLine();
-            if (tempID.length() <= 0) {
-               throw new RuntimeException("Hotel ID cannot be empty!");
-            }
-            hotelID = Integer.parseInt(tempID);
-            break;
-         }
-         catch (Exception e){
-            System.out.println("Invalid input!");
-            continue;
-         }
-      }while(true);
-      // Room number
-      do {
-         System.out.println("Input the room number:");
-         try {
-            tempID = in.readLine();
-            if (tempID.length() <= 0) {
-               throw new RuntimeException("Room number cannot be empty!");
-            }
-            roomNo = Integer.parseInt(tempID);
-            break;
-         }
-         catch (Exception e){
-            System.out.println("Invalid input!");
-            continue;
-         }
-      }while(true);
-      // Room type
-      do {
-         System.out.println("Input the room type:");
-         try {
-            roomType = in.readLine();
-            if (roomType.length() > 10) {
-               throw new RuntimeException("Room type cannot be more than ten characters.");
-            }
-            if (roomType.length() <= 0) {
-               throw new RuntimeException("Room type cannot be empty.");
-            }
-            break;
-         }
-         catch (Exception e) {
-            System.out.println("Invalid input!");
-            continue;
-         }
-      }while(true);
-      
-      String query = "INSERT INTO Room (hotelID, roomNo, roomType) Values (" + hotelID + ", " + roomNo
-         + ", \'" + roomType + "\');";
-
-      try {
-         esql.executeUpdate(query);
-      }
-      catch (Exception e) {
-         System.err.println(e.getMessage());
-      }
-   }//end addRoom
-
-   public static void addMaintenanceCompany(DBProject esql){
-      int cmpID = 0;
-      String checkID;
-
-	   checkID = "SELECT cmpID FROM MaintenanceCompany";
-	   try { 
-		   cmpID = esql.executeQuery(checkID);
-	   }
-      catch (Exception e) {
-         System.err.println(e.getMessage());
-      }
-
-      String name;
-         do {
-            System.out.println("Input your Company Name: ");
-            try {
-               name = in.readLine();
-               if (name.length() <= 0 || name.length() > 30) {
-                  throw new RuntimeException("Company Names can't be null or longer than 30 characters");
-                }
-               break;
-            }
-            catch (Exception e){
-               System.out.println(e);
-               continue;
-            }
-         }while(true);
-
-      String check;
-      boolean isCertified;
-         do {
-            System.out.println("Is your Company Certified? (true/false): ");
-            try {
-               check = in.readLine();
-               if (check.length() <= 0) {
-                  throw new RuntimeException("Can't be Null/Empty");
-               }
-               isCertified = Boolean.parseBoolean(check);
-               break;
-            }
-            catch (Exception e){
-               System.out.println(e);
-               continue;
-            }
-         }while(true);
-
-      String Address;
-
-         do {
-            System.out.println("Input your Address: ");
-            try {
-               Address = in.readLine();
-               break;
-            }
-            catch (Exception e){
-               System.out.println(e);
-               continue;
-            }
-         }while(true);
-
-
-      try {
-         String query = "INSERT INTO MaintenanceCompany (cmpID, name, address, isCertified) VALUES (" + cmpID + ", \'" + name + "\',\'" + Address + "\',\'" + isCertified + "\');" ;
-
-         esql.executeUpdate(query);
-      }
-      catch (Exception e) {  
-               System.err.println (e.getMessage());
-      }
-   }//end addMaintenanceCompany
-
-   public static void addRepair(DBProject esql){
-      String temp;
-      int rID = 0;
-      int hotelID = 0;
-      int roomNo = 0;
-      int mCompany = 0;
-      Date repairDate;
-      String description;
-      String repairType;
-      SimpleDateFormat formatter1=new SimpleDateFormat("MM/dd/yy");  
-
-      temp = "SELECT * FROM Repair";
-      try { 
-         rID = esql.executeQuery(temp);
-      }
-      catch (Exception e) {
-         System.err.println(e.getMessage());
-      }
-
-      do {
-         System.out.println("Input the hotel ID.");
-         try {
-            temp = in.readLine();
-            if (temp.length() <= 0) {
-               throw new RuntimeException("Hotel ID cannot be empty.");
-            }
-            hotelID = Integer.parseInt(temp);
-            break;
-         }
-         catch (Exception e) {
-            System.out.println("Invalid input!");
-            continue;
-         }
-      }while(true);
-
-      do {
-         System.out.println("Input the room number.");
-         try {
-            temp = in.readLine();
-            if (temp.length() <= 0) {
-               throw new RuntimeException("Room number cannot be empty.");
-            }
-            roomNo = Integer.parseInt(temp);
-            break;
-         }
-         catch (Exception e) {
-            System.out.println("Invalid input!");
-            continue;
-         }
-      }while(true);
-
-      do {
-         System.out.println("Input the maintenance company's ID.");
-         try {
-            temp = in.readLine();
-            if (temp.length() <= 0) {
-               throw new RuntimeException("Maintenance company ID cannot be empty.");
-            }
-            mCompany = Integer.parseInt(temp);
-            break;
-         }
-         catch (Exception e) {
-            System.out.println("Invalid input!");
-            continue;
-         }
-      }while(true);
-
-      do {
-         System.out.println("Input the repair date. (MM/dd/yy)");
-         try {
-            temp = in.readLine();
-            if (temp.length() <= 0) {
-               throw new RuntimeException("Repair date cannot be empty.");
-            }
-            repairDate = formatter1.parse(temp);
-            break;
-         }
-         catch  (Exception e) {
-            System.out.println("Invalid input!");
-            continue;
-         }
-      }while(true);
-
-      do {
-         System.out.println("Input the description. (Optional)");
-         try {
-            temp = in.readLine();
-            description = temp;
-            break;
-         }
-         catch (Exception e) {
-            System.out.print("Invalid input!");
-            continue;
-         }
-      }while(true);
-
-      do {
-         System.out.println("Specify the repair type.");
-         try{
-            temp = in.readLine();
-            if (temp.length() > 10) {
-               throw new RuntimeException("Repair type must be less than 10 characters.");
-            }
-            repairType = temp;
-            break;
-         }
-         catch (Exception e) {
-            System.out.println("Invalid input!");
-            continue;
-         }
-      }while(true);
-
-      String query = "INSERT INTO Repair (rID, hotelID, roomNo, mCompany, repairDate, description, repairType) Values (" 
-         + rID + ", " + hotelID + ", " + roomNo + ", " + mCompany + ", \'" + formatter1.format(repairDate) + "\', \'" 
-         + description + "\', \'" + repairType + "\');";
-
-      try {
-         esql.executeUpdate(query);
-      }
-      catch (Exception e) {
-         System.err.println(e.getMessage());
-      }
-   }//end addRepair
-
-   public static void bookRoom(DBProject esql){
-      // Given hotelID, roomNo and customer Name create a booking in the DB 
-      int bID = 0;
-      String checkbID;
-      SimpleDateFormat formatter1=new SimpleDateFormat("MM/dd/yy");
-      SimpleDateFormat formatter2=new SimpleDateFormat("yyyy-MM-dd");
-
-      checkbID = "SELECT bID FROM Booking";
-      try { 
-         bID = esql.executeQuery(checkbID);
-         bID = bID;
-      }
-      catch (Exception e) {
-         System.err.println(e.getMessage());
-      }
-
-      int customer;
-      String checkC;
-
-      do {
-            System.out.println("Input your Customer ID Number: ");
-            try {
-               checkC = in.readLine();
-               customer = Integer.parseInt(checkC);
-               if (checkC.length() <= 0) {
-                  throw new RuntimeException("Customer ID can't be empty!");
-               }
-               break;
-            }catch (Exception e){
-               System.out.println("Invalid input!");
-               continue;
-            }
-      }while(true);
-
-      int hotelID;
-      String checkhID;
-
-      do {
-            System.out.println("Input your Hotel ID Number: ");
-            try {
-               checkhID = in.readLine();
-               hotelID = Integer.parseInt(checkhID);
-               if (checkhID.length() <= 0) {
-                  throw new RuntimeException("Hotel ID can't be empty!");
-               }
-               break;
-            }catch (Exception e){
-               System.out.println("Invalid input!");
-               continue;
-            }
-      }while(true);
-
-      int roomNo;
-      String checkR;
-
-      do {
-            System.out.println("Input your Room Number: ");
-            try {
-               checkR = in.readLine();
-               roomNo = Integer.parseInt(checkR);
-               if (checkR.length() <= 0) {
-                  throw new RuntimeException("Room Number can't be empty!");
-               }
-               break;
-            }catch (Exception e){
-               System.out.println("Invaild input!");
-               continue;
-            }
-      }while(true);
-
-
-
-      Date bookingDate;
-      String tempb;
-
-      do {
-            System.out.println("Input your booking date: ");
-            try {
-               tempb = in.readLine();
-               bookingDate = formatter1.parse(tempb);
-               break;
-
-            }catch (Exception e){
-               System.out.println("Invalid input!");
-               continue;
-            }
-      }while(true);
-
-      int noOfPeople;
-      String checkN;
-
-      do {
-            System.out.println("Input the number of people: ");
-            try {
-               checkN = in.readLine();
-               noOfPeople = Integer.parseInt(checkN);
-               break;
-            }catch (Exception e){
-               System.out.println("Invaild input!");
-               continue;
-            }
-      }while(true);
-
-
-      float price;
-      String checkP;
-
-      do {
-            System.out.println("Input your Price: $ ");
-            try {
-               checkP = in.readLine();
-               price = Float.parseFloat(checkP);
-               if (checkP.length() <= 0) {
-                  throw new RuntimeException("Price can't be empty!");
-               }
-               if (price > 9999.99)
-               {
-                  throw new RuntimeException("Price is too high!");
-               }
-               if (price < 0)
-               {
-                  throw new RuntimeException("Invalid price!");
-               }
-               break;
-            }catch (Exception e){
-               System.out.println("Invaild input!");
-               continue;
-            }
-      }while(true);
-
-
-      try {
-            String query = "INSERT INTO Booking (bID, customer, hotelID, roomNo, bookingDate, noOfPeople, price) VALUES (" + bID + ", \'" + customer + "\',\'" + hotelID + "\',\'" + roomNo + "\',\'" + formatter2.format(bookingDate) + "\',\'" + noOfPeople + "\',\'" + price + "\');" ;
-
-            esql.executeUpdate(query);
-      }catch (Exception e) {
-            System.err.println (e.getMessage());
-      }
-   }//end bookRoom
-
-   public static void assignHouseCleaningToRoom(DBProject esql){
-      int staffID = 0;
-      int hotelID = 0;
-      int roomNo = 0;
-      int asgID = 0;
-      String temp;
-      
-      do {
-         System.out.println("Input the Staff ID.");
-         try {
-            temp = in.readLine();
-            if (temp.length() <= 0) {
-               throw new RuntimeException("Staff ID cannot be empty.");
-            }
-            staffID = Integer.parseInt(temp);
-            break;
-         }
-         catch (Exception e) {
-            System.out.println("Invalid input!");
-            continue;
-         }
-      }while(true);
-
-      do {
-         System.out.println("Input the hotel ID.");
-         try {
-            temp = in.readLine();
-            if (temp.length() <= 0) {
-               throw new RuntimeException("Hotel ID cannot be empty.");
-            }
-            hotelID = Integer.parseInt(temp);
-            break;
-         }
-         catch (Exception e) {
-            System.out.println("Invalid input!");
-            continue;
-         }
-      }while(true);
-
-      do {
-         System.out.println("Input the room number.");
-         try {
-            temp = in.readLine();
-            if (temp.length() <= 0) {
-               throw new RuntimeException("Room number cannot be empty.");
-            }
-            roomNo = Integer.parseInt(temp);
-            break;
-         }
-         catch (Exception e) {
-            System.out.println("Invalid input!");
-            continue;
-         }
-      }while(true);
-
-      // Figure out what ID is next in the sequence by counting rows. Assuming data is sequential and continuous.
-      temp = "SELECT * FROM Assigned";
-      try {
-         asgID = esql.executeQuery(temp);
-      }
-      catch (Exception e) {
-         System.err.println(e.getMessage());
-      }
-      // Assume asgID starts at 0
-      String query = "INSERT INTO Assigned (asgID, staffID, hotelID, roomNo) Values (" + asgID + ", "
-         + staffID + ", " + hotelID + ", " + roomNo + ");";
-
-      try {
-         esql.executeUpdate(query);
-      }
-      catch (Exception e) {
-         System.err.println(e.getMessage());
-      }
-   }//end assignHouseCleaningToRoom
-   
-   public static void repairRequest(DBProject esql){
-	  // Given a hotelID, Staff SSN, roomNo, repairID , date create a repair request in the DB
-      int reqID = 0;
-      String checkreqID;
-
-      checkreqID = "SELECT reqID FROM Request";
-      try { 
-         reqID = esql.executeQuery(checkreqID);
-      }
-      catch (Exception e) {
-         System.err.println(e.getMessage());
-      }
-
-
-      int managerID;
-      String checkm;
-
-      do {
-            System.out.println("Input your Manager ID Number: ");
-            try {
-               checkm = in.readLine();
-               managerID = Integer.parseInt(checkm);
-               if (checkm.length() <= 0) {
-                  throw new RuntimeException("Manager ID can't be empty!");
-               }
-               break;
-            }
-            catch (Exception e){
-               System.out.println("Invalid input!");
-               continue;
-            }
-      }while(true);
-
-      int repairID;
-      String checkR;
-
-      do {
-            System.out.println("Input your Repair ID Number: ");
-            try {
-               checkR = in.readLine();
-               repairID = Integer.parseInt(checkR);
-               if (checkR.length() <= 0) {
-                  throw new RuntimeException("Repair ID can't be empty!");
-               }
-               break;
-            }catch (Exception e){
-               System.out.println("Invalid input!");
-               continue;
-            }
-      }while(true);
-
-
-
-      Date requestDate;
-      String tempreq;
-
-
-      do {
-            System.out.println("Input your Request date: ");
-            try {
-               tempreq = in.readLine();
-               requestDate = new SimpleDateFormat("MM/dd/yy").parse(tempreq);
-               break;
-
-            }catch (Exception e){
-               System.out.println("Invalid input!");
-               continue;
-            }
-      }while(true);
-
-     
-      String description;
-
-      do {
-            System.out.println("Input Repair Description: ");
-            try {
-               description = in.readLine();
-               break;
-            }catch (Exception e){
-               System.out.println("Invaild input!");
-               continue;
-            }
-      }while(true);
-
-      try {
-            String query = "INSERT INTO Request (reqID, managerID, repairID, requestDate, description) VALUES (" + reqID + ", \'" + managerID + "\',\'" + repairID + "\',\'" + requestDate + "\',\'" + description + "\');" ;
-            esql.executeUpdate(query);
-      }catch (Exception e) {
-            System.err.println (e.getMessage());
-      }
-   }//end repairRequest
-   
-   public static void numberOfAvailableRooms(DBProject esql){ //Assuming date doesn't matter.
-     // Given a hotelID, get the count of rooms available 
-      String temp;
-      int hotelID = 0;
-      int roomsAvailCount = 0;
-
-      do {
-         System.out.println("Input the hotel ID.");
-         try {
-            temp = in.readLine();
-            if (temp.length() <= 0) {
-               throw new RuntimeException("Hotel ID cannot be empty.");
-            }
-            hotelID = Integer.parseInt(temp);
-            break;
-         }
-         catch (Exception e) {
-            System.out.println("Invalid input!");
-            continue;
-         }
-      }while(true);
-
-      String query = "SELECT avail.* FROM ((SELECT r.roomNo, r.hotelID FROM Room r) EXCEPT (SELECT b.roomNo, b.hotelID FROM Booking b)) as avail WHERE avail.hotelID="
-         + hotelID + ";";
-      try{
-         roomsAvailCount = esql.executeQuery(query);
-      }
-      catch (Exception e) {
-         System.err.println(e.getMessage());
-      }
-
-      System.out.println("There are " + roomsAvailCount + " available rooms in the hotel with ID " + hotelID);
-   }//end numberOfAvailableRooms
-   
-   public static void numberOfBookedRooms(DBProject esql){
-     // Given a hotelID, get the count of rooms booked
-      String temp;
-      int hotelID = 0;
-      int roomsBookedCount = 0;
-
-      do {
-         System.out.println("Input the hotel ID.");
-         try {
-            temp = in.readLine();
-            if (temp.length() <= 0) {
-               throw new RuntimeException("Hotel ID cannot be empty.");
-            }
-            hotelID = Integer.parseInt(temp);
-            break;
-         }
-         catch (Exception e) {
-            System.out.println("Invalid input!");
-            continue;
-         }
-      }while(true);
-
-      String query = "SELECT * FROM Booking WHERE hotelID=" + hotelID + ";";
-      try {
-         roomsBookedCount = esql.executeQuery(query);
-      }
-      catch (Exception e) {
-         System.err.println(e.getMessage());
-      }
-
-      System.out.println("There are " + roomsBookedCount + " booked rooms in the hotel with ID " + hotelID);
-   }//end numberOfBookedRooms
-   
-   public static void listHotelRoomBookingsForAWeek(DBProject esql){
-	  // Given a hotelID, date - list all the rooms available for a week(including the input date) 
-      String temp;
-      int hotelID = 0;
-      Date bookingDate;
-      SimpleDateFormat formatter1=new SimpleDateFormat("MM/dd/yy");
-      SimpleDateFormat formatter2=new SimpleDateFormat("yyyy-MM-dd");    
-
-      do {
-         System.out.println("Input the hotel ID.");
-         try {
-            temp = in.readLine();
-            if (temp.length() <= 0) {
-               throw new RuntimeException("Hotel ID cannot be empty.");
-            }
-            hotelID = Integer.parseInt(temp);
-            break;
-         }
-         catch (Exception e) {
-            System.out.println("Invalid input!");
-            continue;
-         }
-      }while(true);
-
-      do {
-         System.out.println("Input the date. (MM/DD/YY)");
-         try {
-            temp = in.readLine();
-            if (temp.length() <= 0) {
-               throw new RuntimeException("Booking date cannot be empty.");
-            }
-            bookingDate = formatter1.parse(temp);
-            break;
-         }
-         catch  (Exception e) {
-            System.out.println("Invalid input!");
-            continue;
-         }
-      }while(true);
-
-      String query = "SELECT avail.* FROM ((SELECT r.roomNo, r.hotelID FROM Room r) EXCEPT (SELECT b.roomNo, b.hotelID FROM Booking b WHERE b.bookingdate >= \'" 
-         + formatter2.format(bookingDate) + "\'::Date AND b.bookingDate <= \'" + formatter2.format(bookingDate) + "\'::Date + \'1 week\'::Interval))"
-         + " as avail WHERE avail.hotelID=" + hotelID + ";";
-
-      try {
-         esql.executeQuery(query);
-      }
-      catch (Exception e) {
-         System.err.println(e.getMessage());
-      }
-
-   }//end listHotelRoomBookingsForAWeek
-   
-   public static void topKHighestRoomPriceForADateRange(DBProject esql){
-	  // List Top K Rooms with the highest price for a given date range
-      String temp;
-      Date start;
-      Date end;
-      int k = 0;
-      SimpleDateFormat formatter1=new SimpleDateFormat("MM/dd/yy");
-      SimpleDateFormat formatter2=new SimpleDateFormat("yyyy-MM-dd");
-
-      do {
-         System.out.println("Input the start date. (MM/DD/YY)");
-         try {
-            temp = in.readLine();
-            if (temp.length() <= 0) {
-               throw new RuntimeException("Repair date cannot be empty.");
-            }
-            start = formatter1.parse(temp);
-            break;
-         }
-         catch  (Exception e) {
-            System.out.println("Invalid input!");
-            continue;
-         }
-      }while(true);
-
-      do {
-         System.out.println("Input the end date. (MM/DD/YY)");
-         try {
-            temp = in.readLine();
-            if (temp.length() <= 0) {
-               throw new RuntimeException("Repair date cannot be empty.");
-            }
-            if (start.after(formatter1.parse(temp))) {
-               throw new RuntimeException("End date cannot be before start date.");
-            }
-            end = formatter1.parse(temp);
-            break;
-         }
-         catch  (Exception e) {
-            System.out.println("Invalid input!");
-            continue;
-         }
-      }while(true);
-
-      do {
-         System.out.println("Input the amount of results you want to see");
-         try {
-            temp = in.readLine();
-            if (temp.length() <= 0) {
-               throw new RuntimeException("Amount of results cannot be empty.");
-            }
-            if (Integer.parseInt(temp) <= 0) {
-               throw new RuntimeException("Amount of results cannot be 0 or less than 0");
-            }
-            k = Integer.parseInt(temp);
-            break;
-         }
-         catch (Exception e) {
-            System.out.println("Invalid input!");
-            continue;
-         }
-      }while(true);
-
-      String query = "SELECT price, roomNo, bookingDate FROM booking WHERE bookingDate >= \'" + formatter2.format(start) + 
-      "\' AND bookingDate <= \'" + formatter2.format(end) + "\' ORDER BY price DESC LIMIT " + k + ";";
-
-      try {
-         esql.executeQuery(query);
-      }
-      catch (Exception e) {
-         System.err.println(e.getMessage());
-      }
-
-   }//end topKHighestRoomPriceForADateRange
-   
-   public static void topKHighestPriceBookingsForACustomer(DBProject esql){
-	  // Given a customer Name, List Top K highest booking price for a customer 
-      String temp;
-      String fName;
-      String lName;
-      int k = 0;
-
-      do {
-         System.out.println("Input the customer's first name.");
-         try{
-            temp = in.readLine();
-            if (temp.length() <= 0) {
-               throw new RuntimeException("First name cannot be blank");
-            }
-            if (temp.length() > 30) {
-               throw new RuntimeException("First name must be less than 10 characters.");
-            }
-            fName = temp;
-            break;
-         }
-         catch (Exception e) {
-            System.out.println("Invalid input!");
-            continue;
-         }
-      }while(true);
-
-      do {
-         System.out.println("Input the customer's last name.");
-         try{
-            temp = in.readLine();
-            if (temp.length() <= 0) {
-               throw new RuntimeException("Last name cannot be blank");
-            }
-            if (temp.length() > 30) {
-               throw new RuntimeException("Last name must be less than 10 characters.");
-            }
-            lName = temp;
-            break;
-         }
-         catch (Exception e) {
-            System.out.println("Invalid input!");
-            continue;
-         }
-      }while(true);
-
-      do {
-         System.out.println("Input the amount of results you want to see");
-         try {
-            temp = in.readLine();
-            if (temp.length() <= 0) {
-               throw new RuntimeException("Amount of results cannot be empty.");
-            }
-            if (Integer.parseInt(temp) <= 0) {
-               throw new RuntimeException("Amount of results cannot be 0 or less than 0");
-            }
-            k = Integer.parseInt(temp);
-            break;
-         }
-         catch (Exception e) {
-            System.out.println("Invalid input!");
-            continue;
-         }
-      }while(true);
-
-      String query = "SELECT b.price FROM Booking b INNER JOIN Customer c ON c.customerID = b.customer WHERE c.fname = \'"
-         + fName + "\' AND c.lname = \'" + lName +  "\' ORDER BY b.price DESC LIMIT " + k + ";";
-
-         try {
-            esql.executeQuery(query);
-         }
-         catch (Exception e) {
-            System.err.println(e.getMessage());
-         }
-   }//end topKHighestPriceBookingsForACustomer
-   
-   public static void totalCostForCustomer(DBProject esql){
-	  // Given a hotelID, customer Name and date range get the total cost incurred by the customer
-      String temp;
-      int hotelID;
-      String fName;
-      String lName;
-      Date start;
-      Date end;
-      SimpleDateFormat formatter1=new SimpleDateFormat("MM/dd/yy");
-      SimpleDateFormat formatter2=new SimpleDateFormat("yyyy-MM-dd");
-
-      do {
-         System.out.println("Input the hotel ID.");
-         try {
-            temp = in.readLine();
-            if (temp.length() <= 0) {
-               throw new RuntimeException("Hotel ID cannot be empty.");
-            }
-            hotelID = Integer.parseInt(temp);
-            break;
-         }
-         catch (Exception e) {
-            System.out.println("Invalid input!");
-            continue;
-         }
-      }while(true);
-
-      do {
-         System.out.println("Input the customer's first name.");
-         try{
-            temp = in.readLine();
-            if (temp.length() <= 0) {
-               throw new RuntimeException("First name cannot be blank");
-            }
-            if (temp.length() > 30) {
-               throw new RuntimeException("First name must be less than 10 characters.");
-            }
-            fName = temp;
-            break;
-         }
-         catch (Exception e) {
-            System.out.println("Invalid input!");
-            continue;
-         }
-      }while(true);
-
-      do {
-         System.out.println("Input the customer's last name.");
-         try{
-            temp = in.readLine();
-            if (temp.length() <= 0) {
-               throw new RuntimeException("Last name cannot be blank");
-            }
-            if (temp.length() > 30) {
-               throw new RuntimeException("Last name must be less than 10 characters.");
-            }
-            lName = temp;
-            break;
-         }
-         catch (Exception e) {
-            System.out.println("Invalid input!");
-            continue;
-         }
-      }while(true);
-
-      do {
-         System.out.println("Input the start date. (MM/DD/YY)");
-         try {
-            temp = in.readLine();
-            if (temp.length() <= 0) {
-               throw new RuntimeException("Repair date cannot be empty.");
-            }
-            start = formatter1.parse(temp);
-            break;
-         }
-         catch  (Exception e) {
-            System.out.println("Invalid input!");
-            continue;
-         }
-      }while(true);
-
-      do {
-         System.out.println("Input the end date. (MM/DD/YY)");
-         try {
-            temp = in.readLine();
-            if (temp.length() <= 0) {
-               throw new RuntimeException("Repair date cannot be empty.");
-            }
-            if (start.after(formatter1.parse(temp))) {
-               throw new RuntimeException("End date cannot be before start date.");
-            }
-            end = formatter1.parse(temp);
-            break;
-         }
-         catch  (Exception e) {
-            System.out.println("Invalid input!");
-            continue;
-         }
-      }while(true);
-
-      String query = "SELECT sum(b.price) FROM Booking b INNER JOIN Customer c ON c.customerID = b.customer WHERE b.hotelID = " + hotelID  
-      + " AND c.fname = \'" + fName + "\' AND c.lname = \'" + lName +  "\' AND b.bookingDate >= \'" + formatter2.format(start) 
-      + "\' AND b.bookingDate <= \'" + formatter2.format(end) + "\';";
-      
-      try {
-         esql.executeQuery(query);
-      }
-      catch (Exception e) {
-         System.err.println(e.getMessage());
-      }
-   }//end totalCostForCustomer
-   
-   public static void listRepairsMade(DBProject esql){
-	  // Given a Maintenance company name list all the repairs along with repairType, hotelID and roomNo
-     String temp; 
-     String mcName;
-      
-     do {
-         System.out.println("Input the maintenance company's name.");
-         try{
-            temp = in.readLine();
-            if (temp.length() <= 0) {
-               throw new RuntimeException("Company name cannot be blank");
-            }
-            if (temp.length() > 30) {
-               throw new RuntimeException("Company name must be less than 10 characters.");
-            }
-            mcName = temp;
-            break;
-         }
-         catch (Exception e) {
-            System.out.println("Invalid input!");
-            continue;
-         }
-      }while(true);
-
-      String query = "SELECT R.rID, R.hotelID, R.repairType, R.repairDate, M.name FROM Repair R, MaintenanceCompany M WHERE M.name = \'"
-         + mcName + "\' AND M.cmpID = R.mCompany;";
-
-      try {
-         esql.executeQuery(query);
-      }
-      catch (Exception e) {
-         System.err.println(e.getMessage());
-      }
-   }//end listRepairsMade
-   
-   public static void topKMaintenanceCompany(DBProject esql){
-	  // List Top K Maintenance Company Names based on total repair count (descending order)
-      String checkK;
-      int k;
-      do {
-         System.out.println("Input the value of K: ");
-         try {
-             checkK = in.readLine();
-             k = Integer.parseInt(checkK);
-             if (checkK.length() <= 0) {
-                 throw new RuntimeException("K can't be empty!");
-             }
-             break;
-         }catch (Exception e){
-             System.out.println("Invaild input!");
-             continue;
-         }
-     }while(true);
-
-     String query = "SELECT M.name, rep.count FROM maintenanceCompany M INNER JOIN (SELECT COUNT(*), mCompany FROM Repair GROUP BY mCompany) AS rep "
-      + "ON rep.mCompany=M.cmpID ORDER BY count DESC LIMIT " + k + ";";
-   
-      try {
-         esql.executeQuery(query);
-      }
-      catch (Exception e) {
-         System.err.println(e.getMessage());
-      }
-   }//end topKMaintenanceCompany
-   
-   public static void numberOfRepairsForEachRoomPerYear(DBProject esql){
-	  // Given a hotelID, roomNo, get the count of repairs per year
-     int hotelID = 0;
-     int roomNo = 0;
-     String checkH;
-             do {
-                 System.out.println("Input the Hotel ID: ");
-                 try {
-                     checkH = in.readLine();
-                     hotelID = Integer.parseInt(checkH);
-                     if (checkH.length() <= 0) {
-                         throw new RuntimeException("Hotel ID can't be empty!");
-                     }
-                     break;
-                 }catch (Exception e){
-                     System.out.println("Invaild input!");
-                     continue;
-                 }
-             }while(true);
-     
-     String checkNo;
-             do {
-                 System.out.println("Input the Room Number: ");
-                 try {
-                     checkNo = in.readLine();
-                     roomNo = Integer.parseInt(checkNo);
-                     if (checkNo.length() <= 0) {
-                         throw new RuntimeException("Room Number can't be empty!");
-                     }
-                     break;
-                 }catch (Exception e){
-                     System.out.println("Invaild input!");
-                     continue;
-                 }
-             }while(true);
-      
-      String query = "SELECT COUNT(*), EXTRACT(year FROM repairDate) FROM Repair WHERE hotelID="
-      + hotelID + " and roomNo=" + roomNo + " GROUP BY EXTRACT(year FROM repairDate);";
-
-      try {
-         esql.executeQuery(query);
-      }
-      catch (Exception e) {
-         System.err.println(e.getMessage());
-      }
-   }//end listRepairsMade
-
-}//end DBProject
+/*
+ * Template JAVA User Interface
+ * =============================
+ *
+ * Database Management Systems
+ * Department of Computer Science &amp; Engineering
+ * University of California - Riverside
+ *
+ * Target DBMS: 'Postgres'
+ *
+ */
+
+
+import java.sql.Connection;
+import java.sql.Statement;
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.sql.ResultSetMetaData;
+import java.sql.SQLException;
+import java.sql.Types;
+import java.io.File;
+import java.io.FileReader;
+import java.io.IOException;
+import java.io.BufferedReader;
+import java.io.InputStreamReader;
+import java.io.PrintStream;
+import java.math.BigDecimal;
+// Student imports:
+import java.util.Date;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.TimeZone;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.FutureTask;
+import java.util.concurrent.ThreadFactory;
+import java.util.concurrent.atomic.AtomicLong;
+import java.text.SimpleDateFormat;
+
+import java.util.Date;
+import java.text.SimpleDateFormat;
+/**
+ * This class defines a simple embedded SQL utility class that is designed to
+ * work with PostgreSQL JDBC drivers.
+ *
+ */
+public class DBProject {
+
+   // pool of physical database connections, borrowed per statement.
+   private ConnectionSource _pool = null;
+
+   // hands out primary keys for the inserting menu operations
+   private IdAllocator _ids = null;
+
+   // rows fetched per round trip by streamed queries
+   private int _fetchSize = Integer.getInteger("dbproject.fetchSize", 1000).intValue();
+
+   // numbers the cursors of streamed queries, so streams can nest on one connection
+   private final AtomicLong _cursors = new AtomicLong();
+
+   // connection held by a thread between begin() and commit()/rollback()
+   private final ThreadLocal<PooledConnection> _pinned = new ThreadLocal<PooledConnection>();
+
+   // booked days per room, only loaded with -Ddbproject.availabilityIndex=true
+   private volatile AvailabilityIndex _availability = null;
+
+   // highest booking prices by date, only loaded with -Ddbproject.topKPriceIndex=true
+   private volatile TopKPriceIndex _topKPrices = null;
+
+   // companies ranked by repair count, only loaded with -Ddbproject.repairCountIndex=true
+   private volatile RepairCountIndex _repairCounts = null;
+
+   // repairs per year of every room, only loaded with -Ddbproject.repairHistory=true
+   private volatile RepairHistory _repairHistory = null;
+
+   // latency, rows and errors per operation and statement
+   private final Metrics _metrics = new Metrics();
+
+   // statements slower than -Ddbproject.slowQueryMs, null when that is not set
+   private SlowQueryLog _slowLog = null;
+
+   // read results, only kept with -Ddbproject.resultCache=true
+   private ResultCache _cache = null;
+
+   // index updates of the inserts of the calling thread's transaction, run once it commits
+   private final ThreadLocal<List<Runnable>> _afterCommit = new ThreadLocal<List<Runnable>>();
+
+   // groups the inserts of bookRoom and addRepair, only with -Ddbproject.writeBehind=true
+   private WriteBehindBuffer _writeBehind = null;
+
+   // runs the statements of submit(), queryAsync() and countAsync(), started on first use
+   private ExecutorService _async = null;
+
+   // customer IDs by name for the name based reports
+   private CustomerNames _customerNames = new CustomerNames(this,
+      Integer.getInteger("dbproject.customerNames.cacheSize", 10000).intValue());
+
+   // handling the keyboard inputs through a BufferedReader
+   // This variable can be global for convenience.
+   static BufferedReader in = new BufferedReader(
+                                new InputStreamReader(System.in)) {
+      @Override
+      public String readLine () throws IOException {
+         long start = System.nanoTime();
+         try {
+            return super.readLine();
+         } finally {
+            _keyboardNanos += System.nanoTime() - start;
+         }//end try
+      }//end readLine
+   };
+
+   // time spent waiting on the keyboard, left out of the menu timings
+   private static long _keyboardNanos = 0;
+
+   /**
+    * Creates a new instance of DBProject
+    *
+    * @param hostname the MySQL or PostgreSQL server hostname
+    * @param database the name of the database
+    * @param username the user name used to login to the database
+    * @param password the user login password
+    * @throws java.sql.SQLException when failed to make a connection.
+    */
+   public DBProject (String dbname, String dbport, String user, String passwd) throws SQLException {
+
+      System.out.print("Connecting to database...");
+      try{
+         // constructs the connection URL
+         String url = "jdbc:postgresql://localhost:" + dbport + "/" + dbname;
+         System.out.println ("Connection URL: " + url + "\n");
+
+         // set up the connection pool, sizes can be tuned with -D options
+         this._pool = new ConnectionPool(url, user, passwd,
+            Integer.getInteger("dbproject.pool.size", 4).intValue(),
+            Long.getLong("dbproject.pool.idleTimeoutMs", 300000L).longValue(),
+            Long.getLong("dbproject.pool.validateAfterMs", 1000L).longValue(),
+            Long.getLong("dbproject.pool.borrowTimeoutMs", 30000L).longValue(),
+            Integer.getInteger("dbproject.pool.statementCache", 32).intValue());
+
+         // obtain a first physical connection to make sure the database is there
+         this._pool.getConnection().close();
+         this._ids = new IdAllocator(this._pool);
+         if (System.getProperty("dbproject.slowQueryMs") != null) {
+            this._slowLog = new SlowQueryLog(this, Long.getLong("dbproject.slowQueryMs", 1000L).longValue(),
+               new File(System.getProperty("dbproject.slowQuery.file", "dbproject-slow.log")),
+               Long.getLong("dbproject.slowQuery.maxBytes", 10L << 20).longValue(),
+               Integer.getInteger("dbproject.slowQuery.keep", 5).intValue());
+         }//end if
+         final String metricsFile = System.getProperty("dbproject.metrics.file");
+         if (metricsFile != null) {
+            // written on every way out, including a killed server
+            Runtime.getRuntime().addShutdownHook(new Thread() {
+               public void run () {
+                  try {
+                     _metrics.dump(new File(metricsFile));
+                  }catch (IOException e){
+                     System.err.println("Unable to write " + metricsFile + ": " + e.getMessage());
+                  }//end try
+               }
+            });
+         }//end if
+         if (!Boolean.getBoolean("dbproject.skipIndexCheck")) {
+            List<String> missing = IndexAdvisor.missingIndexes(this);
+            if (!missing.isEmpty()) {
+               System.err.println("Warning - Missing indexes " + missing
+                  + ", apply postgresql/migrations (script operation applyMigrations)");
+            }//end if
+         }//end if
+         if (Boolean.getBoolean("dbproject.availabilityIndex")) {
+            this._availability = AvailabilityIndex.load(this);
+         }//end if
+         if (Boolean.getBoolean("dbproject.topKPriceIndex")) {
+            this._topKPrices = TopKPriceIndex.load(this,
+               Integer.getInteger("dbproject.topKPriceIndex.capacity", 100).intValue());
+         }//end if
+         if (Boolean.getBoolean("dbproject.repairCountIndex")) {
+            this._repairCounts = RepairCountIndex.load(this);
+         }//end if
+         if (Boolean.getBoolean("dbproject.repairHistory")) {
+            this._repairHistory = RepairHistory.load(this);
+         }//end if
+         if (Boolean.getBoolean("dbproject.writeBehind")) {
+            this._writeBehind = new WriteBehindBuffer(this,
+               Integer.getInteger("dbproject.writeBehind.capacity", 10000).intValue(),
+               Integer.getInteger("dbproject.writeBehind.batchRows", 500).intValue(),
+               Long.getLong("dbproject.writeBehind.maxDelayMs", 5L).longValue());
+         }//end if
+         if (Boolean.getBoolean("dbproject.resultCache")) {
+            this._cache = new ResultCache(Integer.getInteger("dbproject.resultCache.capacity", 10000).intValue(),
+               Long.getLong("dbproject.resultCache.ttlMs", 60000L).longValue());
+         }//end if
+         System.out.println("Done");
+      }catch (Exception e){
+         System.err.println("Error - Unable to Connect to Database: " + e.getMessage() );
+         System.out.println("Make sure you started postgres on this machine");
+         System.exit(-1);
+      }//end catch
+   }//end DBProject
+
+   /**
+    * Method to execute an update SQL statement.  Update SQL instructions
+    * includes CREATE, INSERT, UPDATE, DELETE, and DROP.
+    *
+    * @param sql the input SQL string
+    * @throws java.sql.SQLException when update failed
+    */
+   public void executeUpdate (String sql) throws SQLException {
+      PooledConnection conn = borrow (true);
+      long start = System.nanoTime ();
+      int rowCount = 0;
+      boolean failed = true;
+      try {
+         // creates a statement object
+         Statement stmt = conn.connection().createStatement ();
+
+         // issues the update instruction
+         rowCount = stmt.executeUpdate (sql);
+
+         // close the instruction
+         stmt.close ();
+         failed = false;
+      } finally {
+         giveBack (conn);
+         record (sql, null, start, rowCount, 0, failed);
+      }//end try
+   }//end executeUpdate
+
+   /**
+    * Method to execute a parameterized update SQL statement.  The statement
+    * is prepared once per connection and reused on later calls.
+    *
+    * @param sql the SQL string, with ? for every parameter (see Queries)
+    * @param params the values bound to the parameters, in order
+    * @return the number of rows changed
+    * @throws java.sql.SQLException when update failed
+    */
+   public int executeUpdate (String sql, Object... params) throws SQLException {
+      PooledConnection conn = borrow (false);
+      long start = System.nanoTime ();
+      int rowCount = 0;
+      boolean failed = true;
+      try {
+         PreparedStatement stmt = conn.prepare (sql);
+         bind (stmt, params);
+         if (conn.isBatching ()) {
+            // queued, sent with the next flush or commit
+            conn.addBatch (stmt);
+            rowCount = 1;
+         } else {
+            rowCount = stmt.executeUpdate ();
+         }//end if
+         failed = false;
+         return rowCount;
+      } finally {
+         giveBack (conn);
+         record (sql, params, start, rowCount, 0, failed);
+      }//end try
+   }//end executeUpdate
+
+   /**
+    * Method to start a transaction on the calling thread.  Every statement
+    * the thread runs until commit() or rollback() uses the same connection.
+    *
+    * @param batching queue parameterized updates and send them as JDBC
+    *                 batches instead of one round trip per statement
+    * @throws java.sql.SQLException when no connection could be obtained
+    */
+   public void begin (boolean batching) throws SQLException {
+      if (this._pinned.get () != null) {
+         throw new SQLException("A transaction is already open on this thread");
+      }//end if
+      PooledConnection conn = this._pool.getConnection ();
+      try {
+         conn.connection().setAutoCommit (false);
+      }catch (SQLException e){
+         conn.invalidate ();
+         conn.close ();
+         throw e;
+      }//end try
+      conn.setBatching (batching);
+      this._pinned.set (conn);
+   }//end begin
+
+   /**
+    * Method to send the queued batch, if any, of the calling thread's
+    * transaction without committing it.
+    *
+    * @throws java.sql.SQLException when a queued statement failed
+    */
+   public void flush () throws SQLException {
+      PooledConnection conn = this._pinned.get ();
+      if (conn != null) {
+         conn.flushBatch ();
+      }//end if
+   }//end flush
+
+   /**
+    * Method to commit the calling thread's transaction.
+    *
+    * @throws java.sql.SQLException when the commit failed, the transaction is rolled back then
+    */
+   public void commit () throws SQLException {
+      PooledConnection conn = this._pinned.get ();
+      if (conn == null) {
+         return;
+      }//end if
+      boolean done = false;
+      try {
+         conn.flushBatch ();
+         conn.connection().commit ();
+         done = true;
+      } finally {
+         if (!done) {
+            rollback ();
+         } else {
+            unpin (conn);
+         }//end if
+      }//end try
+      List<Runnable> written = this._afterCommit.get ();
+      if (written != null) {
+         this._afterCommit.remove ();
+         for (Runnable update : written) {
+            update.run ();
+         }//end for
+      }//end if
+   }//end commit
+
+   /**
+    * Method to roll back the calling thread's transaction.
+    */
+   public void rollback () {
+      PooledConnection conn = this._pinned.get ();
+      if (conn == null) {
+         return;
+      }//end if
+      conn.clearBatch ();
+      try {
+         conn.connection().rollback ();
+      }catch (SQLException e){
+         conn.invalidate ();
+      }//end try
+      unpin (conn);
+      // the inserts are gone, the indexes stay as they were
+      this._afterCommit.remove ();
+   }//end rollback
+
+   private void unpin (PooledConnection conn) {
+      this._pinned.remove ();
+      conn.setBatching (false);
+      try {
+         conn.connection().setAutoCommit (true);
+      }catch (SQLException e){
+         conn.invalidate ();
+      }//end try
+      conn.close ();
+   }//end unpin
+
+   /**
+    * Returns the connection pinned to the calling thread, or borrows one
+    * from the pool.
+    *
+    * @param flush send the queued batch of a pinned connection first, so
+    *              that the caller sees its own writes
+    */
+   private PooledConnection borrow (boolean flush) throws SQLException {
+      PooledConnection conn = this._pinned.get ();
+      if (conn == null) {
+         return this._pool.getConnection ();
+      }//end if
+      if (flush) {
+         conn.flushBatch ();
+      }//end if
+      return conn;
+   }//end borrow
+
+   /**
+    * Gives a connection obtained from borrow() back, unless it is pinned.
+    */
+   private void giveBack (PooledConnection conn) {
+      if (conn != this._pinned.get ()) {
+         conn.close ();
+      }//end if
+   }//end giveBack
+
+   /**
+    * Method to execute an input query SQL instruction (i.e. SELECT).  This
+    * method issues the query to the DBMS and outputs the results to
+    * standard out.
+    *
+    * @param query the input query string
+    * @return the number of rows returned
+    * @throws java.sql.SQLException when failed to execute the query
+    */
+   public int executeQuery (String query) throws SQLException {
+      PooledConnection conn = borrow (true);
+      try {
+         return executeQuery (conn, query);
+      } finally {
+         giveBack (conn);
+      }//end try
+   }//end executeQuery
+
+   private int executeQuery (PooledConnection conn, String query) throws SQLException {
+      long start = System.nanoTime ();
+      int rowCount = 0;
+      boolean failed = true;
+      try {
+         // creates a statement object
+         Statement stmt = conn.connection().createStatement ();
+
+         // issues the query instruction
+         ResultSet rs = stmt.executeQuery (query);
+         rowCount = printResult (rs);
+         stmt.close ();
+         failed = false;
+         return rowCount;
+      } finally {
+         record (query, null, start, rowCount, 0, failed);
+      }//end try
+   }//end executeQuery
+
+   /**
+    * Method to execute a parameterized query (i.e. SELECT) and output the
+    * results to standard out.  The statement is prepared once per
+    * connection and reused on later calls.
+    *
+    * @param query the query string, with ? for every parameter (see Queries)
+    * @param params the values bound to the parameters, in order
+    * @return the number of rows returned
+    * @throws java.sql.SQLException when failed to execute the query
+    */
+   public int executeQuery (String query, Object... params) throws SQLException {
+      return query (query, params).render (new RowPrinter());
+   }//end executeQuery
+
+   /**
+    * Method to execute a parameterized query and return its rows as typed
+    * columns (see ResultTable), to be read, kept or rendered by the caller.
+    * The whole result is held in memory, use streamQuery for results that
+    * may be large.
+    *
+    * @param query the query string, with ? for every parameter (see Queries)
+    * @param params the values bound to the parameters, in order
+    * @return the rows returned
+    * @throws java.sql.SQLException when failed to execute the query
+    */
+   public ResultTable query (String query, Object... params) throws SQLException {
+      ResultTable.Builder rows = new ResultTable.Builder();
+      forEachRow (query, rows, params);
+      return rows.build ();
+   }//end query
+
+   /**
+    * Method to run work on a background thread, such as a query that does
+    * not depend on another one, so that independent statements wait on the
+    * database at the same time.  The work borrows its own connections, it
+    * does not see the transaction open on the calling thread.  At most
+    * -Ddbproject.async.threads (the pool size by default) tasks run at once.
+    *
+    * @param task the work
+    * @return its result, to be collected with await
+    */
+   public <T> Future<T> submit (Callable<T> task) {
+      synchronized (this) {
+         if (this._async == null) {
+            this._async = Executors.newFixedThreadPool (Integer.getInteger ("dbproject.async.threads",
+               Integer.getInteger ("dbproject.pool.size", 4)).intValue (), new ThreadFactory () {
+               private int count = 0;
+
+               public synchronized Thread newThread (Runnable r) {
+                  Thread t = new Thread (r, "dbproject-async-" + (++count));
+                  // never keeps the program from exiting
+                  t.setDaemon (true);
+                  return t;
+               }
+            });
+         }//end if
+      }//end synchronized
+      return this._async.submit (task);
+   }//end submit
+
+   /**
+    * Runs a half of a dashboard on a background thread, see submit, or,
+    * when a transaction is open on the calling thread, right here so both
+    * halves read the transaction's snapshot and its own writes.
+    *
+    * @return its result, to be collected with await
+    */
+   private <T> Future<T> alongside (Callable<T> task) {
+      if (this._pinned.get () == null) {
+         return submit (task);
+      }//end if
+      FutureTask<T> here = new FutureTask<T> (task);
+      here.run ();
+      return here;
+   }//end alongside
+
+   /**
+    * Method to start a parameterized query on a background thread, see
+    * query and submit.
+    *
+    * @return the rows returned, to be collected with await
+    */
+   public Future<ResultTable> queryAsync (final String query, final Object... params) {
+      return submit (new Callable<ResultTable> () {
+         public ResultTable call () throws SQLException {
+            return query (query, params);
+         }
+      });
+   }//end queryAsync
+
+   /**
+    * Method to start an aggregate query on a background thread, see
+    * executeCount and submit.
+    *
+    * @return the number returned, to be collected with await
+    */
+   public Future<Long> countAsync (final String query, final Object... params) {
+      return submit (new Callable<Long> () {
+         public Long call () throws SQLException {
+            return executeCount (query, params);
+         }
+      });
+   }//end countAsync
+
+   /**
+    * Runs a report query through the result cache, when it is enabled.
+    * Inside a transaction the cache is bypassed, since the transaction sees
+    * its own uncommitted writes.
+    *
+    * @param kinds what the result depends on, see ResultCache.BOOKINGS etc.
+    * @param hotelID the hotel it is about, or ResultCache.ANY_HOTEL
+    * @param firstDay the first day it covers, or ResultCache.FIRST_DAY
+    * @param lastDay the last day it covers, or ResultCache.LAST_DAY
+    */
+   private ResultTable cachedQuery (int kinds, int hotelID, int firstDay, int lastDay, String query,
+                                    Object... params) throws SQLException {
+      if (this._cache == null || this._pinned.get () != null) {
+         return query (query, params);
+      }//end if
+      String key = ResultCache.key (query, params);
+      ResultTable rows = (ResultTable) this._cache.get (key);
+      if (rows == null) {
+         long generation = this._cache.generation ();
+         rows = query (query, params);
+         this._cache.put (key, rows, generation, kinds, hotelID, firstDay, lastDay);
+      }//end if
+      return rows;
+   }//end cachedQuery
+
+   /**
+    * Runs an aggregate query through the result cache, see cachedQuery.
+    */
+   private long cachedCount (int kinds, int hotelID, String query, Object... params) throws SQLException {
+      if (this._cache == null || this._pinned.get () != null) {
+         return executeCount (query, params);
+      }//end if
+      String key = ResultCache.key (query, params);
+      Long count = (Long) this._cache.get (key);
+      if (count == null) {
+         long generation = this._cache.generation ();
+         count = Long.valueOf (executeCount (query, params));
+         this._cache.put (key, count, generation, kinds, hotelID, ResultCache.FIRST_DAY, ResultCache.LAST_DAY);
+      }//end if
+      return count.longValue ();
+   }//end cachedCount
+
+   /**
+    * Drops the cached results a write changes.
+    *
+    * @see ResultCache#invalidate
+    */
+   private void invalidate (int kinds, int hotelID, int day) {
+      if (this._cache != null) {
+         this._cache.invalidate (kinds, hotelID, day);
+      }//end if
+   }//end invalidate
+
+   /**
+    * Method to insert a row through the write-behind buffer, which commits
+    * it together with the inserts of other callers, when the buffer is
+    * enabled (-Ddbproject.writeBehind=true) and no transaction is open on
+    * the calling thread.  Otherwise the row is inserted right away, and
+    * afterWrite runs at once or, inside a transaction, when it commits.
+    *
+    * @param id the key of the new row, the result of the future
+    * @param afterWrite updates the in-memory indexes once the row is written
+    * @param sql the insert, with ? for every parameter (see Queries)
+    * @param params the values bound to the parameters, in order
+    * @return completes with id once the row is committed
+    * @throws java.sql.SQLException when the row was inserted right away and that failed
+    */
+   private Future<Integer> insert (int id, Runnable afterWrite, String sql, Object... params) throws SQLException {
+      if (this._writeBehind != null && this._pinned.get () == null) {
+         return this._writeBehind.add (id, afterWrite, sql, params);
+      }//end if
+      executeUpdate (sql, params);
+      afterCommit (afterWrite);
+      return WriteBehindBuffer.written (id);
+   }//end insert
+
+   /**
+    * Runs an update of what is kept in memory about a write now or, inside a
+    * transaction, once it commits, so a rollback leaves nothing behind.
+    */
+   private void afterCommit (Runnable update) {
+      if (this._pinned.get () == null) {
+         update.run ();
+         return;
+      }//end if
+      List<Runnable> pending = this._afterCommit.get ();
+      if (pending == null) {
+         pending = new ArrayList<Runnable> ();
+         this._afterCommit.set (pending);
+      }//end if
+      pending.add (update);
+   }//end afterCommit
+
+   /**
+    * Returns the result cache, or null when it is not enabled.
+    */
+   public ResultCache resultCache () {
+      return this._cache;
+   }//end resultCache
+
+   /**
+    * Waits for the result of submitted work.
+    *
+    * @return the result
+    * @throws java.sql.SQLException what the work threw, or when the wait was interrupted
+    */
+   public static <T> T await (Future<T> result) throws SQLException {
+      try {
+         return result.get ();
+      }catch (InterruptedException e){
+         result.cancel (true);
+         Thread.currentThread ().interrupt ();
+         throw new SQLException ("Interrupted while waiting for the database");
+      }catch (ExecutionException e){
+         Throwable cause = e.getCause ();
+         if (cause instanceof SQLException) {
+            throw (SQLException) cause;
+         }//end if
+         if (cause instanceof RuntimeException) {
+            throw (RuntimeException) cause;
+         }//end if
+         if (cause instanceof Error) {
+            throw (Error) cause;
+         }//end if
+         throw new SQLException (String.valueOf (cause));
+      }//end try
+   }//end await
+
+   /**
+    * Method to execute a parameterized query and hand every row to a
+    * callback.  The whole result is fetched at once, use streamQuery for
+    * results that may be large.
+    *
+    * @param query the query string, with ? for every parameter (see Queries)
+    * @param handler called once for every row
+    * @param params the values bound to the parameters, in order
+    * @return the number of rows returned
+    * @throws java.sql.SQLException when failed to execute the query
+    */
+   public int forEachRow (String query, RowHandler handler, Object... params) throws SQLException {
+      PooledConnection conn = borrow (true);
+      long start = System.nanoTime ();
+      int rowCount = 0;
+      long bytes = 0;
+      boolean failed = true;
+      try {
+         PreparedStatement stmt = conn.prepare (query);
+         bind (stmt, params);
+         ResultSet rs = stmt.executeQuery ();
+         try {
+            int columns = rs.getMetaData ().getColumnCount ();
+            while (rs.next ()) {
+               bytes += rowBytes (rs, columns);
+               handler.handleRow (rs);
+               ++rowCount;
+            }//end while
+            failed = false;
+            return rowCount;
+         } finally {
+            rs.close ();
+         }//end try
+      } finally {
+         giveBack (conn);
+         record (query, params, start, rowCount, bytes, failed);
+      }//end try
+   }//end forEachRow
+
+   /**
+    * Method to execute a parameterized aggregate query, such as SELECT
+    * COUNT(*), that returns a single number.  Only that number is sent
+    * back by the server and nothing is printed.
+    *
+    * @param query the query string, with ? for every parameter (see Queries)
+    * @param params the values bound to the parameters, in order
+    * @return the value of the first column of the first row, 0 when there is none
+    * @throws java.sql.SQLException when failed to execute the query
+    */
+   public long executeCount (String query, Object... params) throws SQLException {
+      PooledConnection conn = borrow (true);
+      long start = System.nanoTime ();
+      boolean failed = true;
+      try {
+         PreparedStatement stmt = conn.prepare (query);
+         bind (stmt, params);
+         ResultSet rs = stmt.executeQuery ();
+         try {
+            // getLong returns 0 for SQL NULL as well
+            long count = rs.next () ? rs.getLong (1) : 0;
+            failed = false;
+            return count;
+         } finally {
+            rs.close ();
+         }//end try
+      } finally {
+         giveBack (conn);
+         record (query, params, start, 1, 8, failed);
+      }//end try
+   }//end executeCount
+
+   /**
+    * Method to run a parameterized statement under EXPLAIN (ANALYZE,
+    * BUFFERS) and return the plan.  The statement is really executed, so
+    * writes should be explained inside begin() ... rollback().  It is not
+    * server prepared, as PREPARE does not take EXPLAIN.
+    *
+    * @param query the statement, with ? for every parameter (see Queries)
+    * @param params the values bound to the parameters, in order
+    * @return the lines of the plan
+    * @throws java.sql.SQLException when failed to execute the statement
+    */
+   public List<String> explain (String query, Object... params) throws SQLException {
+      return runExplain ("EXPLAIN (ANALYZE, BUFFERS) ", query, params);
+   }//end explain
+
+   /**
+    * Method to return the plan the server would use for a parameterized
+    * statement, without running it.
+    *
+    * @param query the statement, with ? for every parameter (see Queries)
+    * @param params the values bound to the parameters, in order, or null
+    * @return the lines of the plan
+    * @throws java.sql.SQLException when the statement could not be explained
+    */
+   public List<String> explainPlan (String query, Object... params) throws SQLException {
+      return runExplain ("EXPLAIN ", query, params == null ? new Object[0] : params);
+   }//end explainPlan
+
+   private List<String> runExplain (String explain, String query, Object[] params) throws SQLException {
+      PooledConnection conn = borrow (true);
+      try {
+         PreparedStatement stmt = conn.connection().prepareStatement (explain + query);
+         try {
+            bind (stmt, params);
+            ResultSet rs = stmt.executeQuery ();
+            List<String> plan = new ArrayList<String>();
+            while (rs.next ()) {
+               plan.add (rs.getString (1));
+            }//end while
+            rs.close ();
+            return plan;
+         } finally {
+            stmt.close ();
+         }//end try
+      } finally {
+         giveBack (conn);
+      }//end try
+   }//end runExplain
+
+   /**
+    * Method to execute a parameterized query through a server side cursor
+    * and output the results to standard out.  Only fetch size rows are held
+    * in memory at any time, no matter how large the result is.
+    *
+    * @param query the query string, with ? for every parameter (see Queries)
+    * @param params the values bound to the parameters, in order
+    * @return the number of rows returned
+    * @throws java.sql.SQLException when failed to execute the query
+    */
+   public int executeStreamingQuery (String query, Object... params) throws SQLException {
+      return streamQuery (query, new ReportRows(new RowPrinter()), params);
+   }//end executeStreamingQuery
+
+   /**
+    * Method to execute a parameterized query through a server side cursor
+    * and hand every row to a callback.  The cursor is fetched fetch size
+    * rows at a time (-Ddbproject.fetchSize) inside a transaction, so memory
+    * use stays flat for large results.
+    *
+    * @param query the query string, with ? for every parameter
+    * @param handler called once for every row
+    * @param params the values bound to the parameters, in order
+    * @return the number of rows returned
+    * @throws java.sql.SQLException when failed to execute the query
+    */
+   public int streamQuery (String query, RowHandler handler, Object... params) throws SQLException {
+      PooledConnection conn = borrow (true);
+      long start = System.nanoTime ();
+      int rowCount = 0;
+      long bytes = 0;
+      boolean failed = true;
+      try {
+         Connection c = conn.connection ();
+         // cursors only live inside a transaction
+         boolean autoCommit = c.getAutoCommit ();
+         if (autoCommit) {
+            c.setAutoCommit (false);
+         }//end if
+         boolean done = false;
+         String cursor = "dbproject_cursor_" + this._cursors.incrementAndGet ();
+         try {
+            // DECLARE cannot be server prepared, so it is not cached
+            PreparedStatement declare = c.prepareStatement (
+               "DECLARE " + cursor + " NO SCROLL CURSOR FOR " + query);
+            try {
+               bind (declare, params);
+               declare.executeUpdate ();
+            } finally {
+               declare.close ();
+            }//end try
+
+            Statement fetch = c.createStatement ();
+            boolean closed = false;
+            try {
+               String sql = "FETCH FORWARD " + this._fetchSize + " FROM " + cursor;
+               int fetched;
+               do {
+                  fetched = 0;
+                  ResultSet rs = fetch.executeQuery (sql);
+                  int columns = rs.getMetaData ().getColumnCount ();
+                  while (rs.next ()) {
+                     bytes += rowBytes (rs, columns);
+                     handler.handleRow (rs);
+                     ++fetched;
+                  }//end while
+                  rs.close ();
+                  rowCount += fetched;
+               } while (fetched == this._fetchSize);
+               fetch.executeUpdate ("CLOSE " + cursor);
+               closed = true;
+            } finally {
+               if (!closed) {
+                  // a handler failed, the cursor must not outlive the stream in the transaction
+                  try {
+                     fetch.executeUpdate ("CLOSE " + cursor);
+                  }catch (SQLException e){
+                     // the transaction is aborted, which ends the cursor too
+                  }//end try
+               }//end if
+               fetch.close ();
+            }//end try
+            done = true;
+         } finally {
+            if (autoCommit) {
+               if (done) {
+                  c.commit ();
+               } else {
+                  c.rollback ();
+               }//end if
+               c.setAutoCommit (true);
+            }//end if
+         }//end try
+         failed = false;
+         return rowCount;
+      } finally {
+         giveBack (conn);
+         record (query, params, start, rowCount, bytes, failed);
+      }//end try
+   }//end streamQuery
+
+   /**
+    * Records a statement in the metrics, and in the slow query log when it
+    * took long enough.
+    *
+    * @param sql the statement, parameterized
+    * @param params the bind values, null for a plain statement
+    * @param start System.nanoTime() when it started
+    * @param rows the rows it returned or changed
+    * @param bytes the bytes of the rows it returned
+    * @param failed whether it threw
+    */
+   private void record (String sql, Object[] params, long start, long rows, long bytes, boolean failed) {
+      long nanos = System.nanoTime () - start;
+      this._metrics.statement (sql).record (nanos, rows, bytes, failed);
+      if (this._slowLog != null && this._slowLog.isSlow (nanos)) {
+         this._slowLog.log (sql, params, nanos);
+      }//end if
+   }//end record
+
+   /**
+    * Returns the size of the current row as the driver received it.
+    */
+   private static long rowBytes (ResultSet rs, int columns) throws SQLException {
+      long bytes = 0;
+      for (int i = 1; i <= columns; ++i) {
+         byte[] value = rs.getBytes (i);
+         if (value != null) {
+            bytes += value.length;
+         }//end if
+      }//end for
+      return bytes;
+   }//end rowBytes
+
+   /**
+    * Returns the call, latency, row and error counts of the operations and
+    * statements run so far.
+    */
+   public Metrics metrics () {
+      return this._metrics;
+   }//end metrics
+
+   /**
+    * Returns the slow query log, or null when it is not enabled.
+    */
+   public SlowQueryLog slowQueryLog () {
+      return this._slowLog;
+   }//end slowQueryLog
+
+   /**
+    * Outputs a result set to standard out.
+    *
+    * @return the number of rows printed
+    */
+   private static int printResult (ResultSet rs) throws SQLException {
+      return ResultTable.read (rs).render (new RowPrinter());
+   }//end printResult
+
+   /**
+    * Prints report rows to standard out, tab separated, with a header line
+    * before the first row.
+    */
+   private static class RowPrinter implements ReportWriter {
+      public void header (String[] columns) {
+         for(int i = 0; i < columns.length; i++){
+            System.out.print(columns[i] + "\t");
+         }
+         System.out.println();
+      }//end header
+
+      public void row (Object[] values) {
+         for (int i=0; i<values.length; ++i)
+            System.out.print (values[i] + "\t");
+         System.out.println ();
+      }//end row
+   }//end RowPrinter
+
+   /**
+    * Hands the rows of a result set to a report, as strings, one at a time
+    * for the streamed reports.
+    */
+   private static class ReportRows implements RowHandler {
+      private final ReportWriter out;
+      private int numCol = -1;
+
+      ReportRows (ReportWriter out) {
+         this.out = out;
+      }
+
+      public void handleRow (ResultSet rs) throws SQLException {
+         if(numCol < 0){
+            /*
+             ** obtains the metadata object for the returned result set.  The metadata
+             ** contains row and column info.
+             */
+            ResultSetMetaData rsmd = rs.getMetaData ();
+            numCol = rsmd.getColumnCount ();
+            String[] columns = new String[numCol];
+            for(int i = 1; i <= numCol; i++){
+               columns[i - 1] = rsmd.getColumnName(i);
+            }
+            out.header(columns);
+         }
+         Object[] values = new Object[numCol];
+         for (int i=1; i<=numCol; ++i)
+            values[i - 1] = rs.getString (i);
+         out.row (values);
+      }//end handleRow
+   }//end ReportRows
+
+   /**
+    * Binds the given values to the parameters of a prepared statement.
+    * java.util.Date values are sent as SQL dates.
+    */
+   private static void bind (PreparedStatement stmt, Object[] params) throws SQLException {
+      for (int i = 0; i < params.length; ++i) {
+         Object value = params[i];
+         if (value == null) {
+            stmt.setNull (i + 1, Types.VARCHAR);
+         } else if (value instanceof Integer) {
+            stmt.setInt (i + 1, ((Integer) value).intValue());
+         } else if (value instanceof Long) {
+            stmt.setLong (i + 1, ((Long) value).longValue());
+         } else if (value instanceof Float) {
+            stmt.setFloat (i + 1, ((Float) value).floatValue());
+         } else if (value instanceof Double) {
+            stmt.setDouble (i + 1, ((Double) value).doubleValue());
+         } else if (value instanceof BigDecimal) {
+            stmt.setBigDecimal (i + 1, (BigDecimal) value);
+         } else if (value instanceof Boolean) {
+            stmt.setBoolean (i + 1, ((Boolean) value).booleanValue());
+         } else if (value instanceof java.sql.Date) {
+            stmt.setDate (i + 1, (java.sql.Date) value);
+         } else if (value instanceof Date) {
+            stmt.setDate (i + 1, new java.sql.Date(((Date) value).getTime()));
+         } else {
+            stmt.setString (i + 1, value.toString());
+         }//end if
+      }//end for
+   }//end bind
+
+   /**
+    * Method to get the next primary key for a table.  Keys come from the
+    * table's sequence in blocks, so no table scan is needed per insert.
+    *
+    * @param table the table the key is for, e.g. "Customer"
+    * @return the next unused key
+    * @throws java.sql.SQLException when no key could be reserved
+    */
+   public int nextId (String table) throws SQLException {
+      return this._ids.nextId(table);
+   }//end nextId
+
+   /**
+    * Returns the in-memory room availability index, or null when it is not
+    * enabled.
+    */
+   public AvailabilityIndex availabilityIndex () {
+      return this._availability;
+   }//end availabilityIndex
+
+   /**
+    * Recomputes the RepairCount summary table from Repair, and reloads the
+    * in-memory repair count index when it is enabled.
+    *
+    * @return the number of maintenance companies counted
+    * @throws java.sql.SQLException when the counts could not be rebuilt
+    */
+   public long rebuildRepairCounts () throws SQLException {
+      if (this._repairCounts != null) {
+         this._repairCounts = RepairCountIndex.rebuild(this);
+         return this._repairCounts.size();
+      }//end if
+      return executeCount("SELECT rebuild_repair_counts()");
+   }//end rebuildRepairCounts
+
+   /**
+    * Reloads what is kept about bookings and repairs after rows left the
+    * tables without a delete, as when PartitionMaintenance detaches old
+    * partitions: the in-memory indexes that are enabled, the repair counts
+    * and the result cache.
+    *
+    * @throws java.sql.SQLException when the tables could not be read
+    */
+   public void reloadBookingsAndRepairs () throws SQLException {
+      if (this._availability != null) {
+         this._availability = AvailabilityIndex.load(this);
+      }//end if
+      if (this._topKPrices != null) {
+         this._topKPrices = TopKPriceIndex.load(this,
+            Integer.getInteger("dbproject.topKPriceIndex.capacity", 100).intValue());
+      }//end if
+      if (this._repairHistory != null) {
+         this._repairHistory = RepairHistory.load(this);
+      }//end if
+      rebuildRepairCounts();
+      invalidate(ResultCache.BOOKINGS | ResultCache.REPAIRS, ResultCache.ANY_HOTEL, ResultCache.ANY_DAY);
+   }//end reloadBookingsAndRepairs
+
+   /**
+    * Forgets what is kept about the data after every table was reloaded
+    * (see BulkLoader): the reserved ID blocks and cached customer names, and
+    * reloads the rest as reloadBookingsAndRepairs does.
+    *
+    * @throws java.sql.SQLException when the tables could not be read
+    */
+   public void reloadData () throws SQLException {
+      this._ids.reset();
+      this._customerNames.clear();
+      reloadBookingsAndRepairs();
+      invalidate(ResultCache.ROOMS, ResultCache.ANY_HOTEL, ResultCache.ANY_DAY);
+   }//end reloadData
+
+   /**
+    * Returns the number of days between 1970-01-01 and the calendar date of
+    * the given date in the local time zone, the day key of the in-memory
+    * indexes.
+    *
+    * @param date a date, such as one parsed from input or read with getDate
+    * @return the epoch day
+    */
+   public static int toEpochDay (Date date) {
+      long millis = date.getTime ();
+      millis += TimeZone.getDefault ().getOffset (millis);
+      long day = millis / 86400000L;
+      if (millis % 86400000L < 0) {
+         --day;
+      }//end if
+      return (int) day;
+   }//end toEpochDay
+
+   /**
+    * Returns the date of an epoch day in the local time zone, the inverse
+    * of toEpochDay.
+    */
+   public static java.sql.Date fromEpochDay (int day) {
+      long millis = day * 86400000L;
+      return new java.sql.Date (millis - TimeZone.getDefault ().getOffset (millis));
+   }//end fromEpochDay
+
+   /**
+    * Method to close the physical connections if they are open.
+    */
+   public void cleanup(){
+      if (this._writeBehind != null){
+         // what is queued is written before the connections go
+         this._writeBehind.close ();
+      }//end if
+      synchronized (this) {
+         if (this._async != null){
+            this._async.shutdownNow ();
+         }//end if
+      }//end synchronized
+      if (this._slowLog != null){
+         this._slowLog.close ();
+      }//end if
+      if (this._pool != null){
+         this._pool.close ();
+      }//end if
+   }//end cleanup
+
+   /**
+    * The main execution method
+    *
+    * @param args the command line arguments this inclues the <mysql|pgsql> <login file>
+    */
+   public static void main (String[] args) {
+      boolean script = args.length == 5 && args[3].equals("--script");
+      boolean server = args.length == 5 && args[3].equals("--server");
+      if (args.length != 3 && !script && !server) {
+         System.err.println (
+            "Usage: " +
+            "java [-classpath <classpath>] " +
+            DBProject.class.getName () +
+            " <dbname> <port> <user> [--script <file>|- | --server <listen port>]");
+         return;
+      }//end if
+      
+      // in script mode only results go to standard out, status messages go to standard err
+      PrintStream results = System.out;
+      if (script || server) {
+         System.setOut(System.err);
+      } else {
+         Greeting();
+      }//end if
+      DBProject esql = null;
+      try{
+         // use postgres JDBC driver.
+         Class.forName ("org.postgresql.Driver").newInstance ();
+         // instantiate the DBProject object and creates a physical
+         // connection.
+         String dbname = args[0];
+         String dbport = args[1];
+         String user = args[2];
+         esql = new DBProject (dbname, dbport, user, "");
+
+         if (script) {
+            // run the operation records instead of the menu
+            BufferedReader records = args[4].equals("-") ? in : new BufferedReader(new FileReader(args[4]));
+            try {
+               new ScriptRunner(esql, results,
+                  Integer.getInteger("dbproject.script.batchSize", 500).intValue()).run(records);
+            } finally {
+               records.close();
+            }//end try
+            return;
+         }//end if
+         if (server) {
+            // serve the operations over a local socket until killed
+            new SessionServer(esql, Integer.parseInt(args[4]),
+               Integer.getInteger("dbproject.server.maxSessions", 512).intValue()).serve();
+            return;
+         }//end if
+
+         boolean keepon = true;
+         while(keepon) {
+            // These are sample SQL statements
+				System.out.println("MAIN MENU");
+				System.out.println("---------");
+				System.out.println("1. Add new customer");
+				System.out.println("2. Add new room");
+				System.out.println("3. Add new maintenance company");
+				System.out.println("4. Add new repair");
+				System.out.println("5. Add new Booking"); 
+				System.out.println("6. Assign house cleaning staff to a room");
+				System.out.println("7. Raise a repair request");
+				System.out.println("8. Get number of available rooms");
+				System.out.println("9. Get number of booked rooms");
+				System.out.println("10. Get hotel bookings for a week");
+				System.out.println("11. Get top k rooms with highest price for a date range");
+				System.out.println("12. Get top k highest booking price for a customer");
+				System.out.println("13. Get customer total cost occurred for a give date range"); 
+				System.out.println("14. List the repairs made by maintenance company");
+				System.out.println("15. Get top k maintenance companies based on repair count");
+				System.out.println("16. Get number of repairs occurred per year for a given hotel room");
+				System.out.println("17. Get number of repairs per year for a hotel or for all hotels");
+				System.out.println("18. Get number of available and booked rooms");
+				System.out.println("19. Get top k bookings and total cost for a customer");
+				System.out.println("20. < EXIT");
+
+            int choice = readChoice();
+            long start = System.nanoTime();
+            long typing = _keyboardNanos;
+            switch (choice){
+				   case 1: addCustomer(esql); break;
+				   case 2: addRoom(esql); break;
+				   case 3: addMaintenanceCompany(esql); break;
+				   case 4: addRepair(esql); break;
+				   case 5: bookRoom(esql); break;
+				   case 6: assignHouseCleaningToRoom(esql); break;
+				   case 7: repairRequest(esql); break;
+				   case 8: numberOfAvailableRooms(esql); break;
+				   case 9: numberOfBookedRooms(esql); break;
+				   case 10: listHotelRoomBookingsForAWeek(esql); break;
+				   case 11: topKHighestRoomPriceForADateRange(esql); break;
+				   case 12: topKHighestPriceBookingsForACustomer(esql); break;
+				   case 13: totalCostForCustomer(esql); break;
+				   case 14: listRepairsMade(esql); break;
+				   case 15: topKMaintenanceCompany(esql); break;
+				   case 16: numberOfRepairsForEachRoomPerYear(esql); break;
+				   case 17: repairTrend(esql); break;
+				   case 18: hotelOccupancy(esql); break;
+				   case 19: customerSummary(esql); break;
+				   case 20: keepon = false; break;
+				   default : System.out.println("Unrecognized choice!"); break;
+            }//end switch
+            // same histograms as the scripts and sessions, less the typing
+            String name = ScriptRunner.sessionOperationName(String.valueOf(choice));
+            if (name != null) {
+               esql.metrics().operation(name).record(
+                  System.nanoTime() - start - (_keyboardNanos - typing), 0, 0, false);
+            }//end if
+         }//end while
+      }catch(Exception e) {
+         System.err.println (e.getMessage ());
+      }finally{
+         // make sure to cleanup the created table and close the connection.
+         try{
+            if(esql != null) {
+               System.out.print("Disconnecting from database...");
+               esql.cleanup ();
+               System.out.println("Done\n\nBye !");
+            }//end if
+         }catch (Exception e) {
+            // ignored.
+         }//end try
+      }//end try
+   }//end main
+   
+   public static void Greeting(){
+      System.out.println(
+         "\n\n*******************************************************\n" +
+         "              User Interface      	               \n" +
+         "*******************************************************\n");
+   }//end Greeting
+
+   /*
+    * Reads the users choice given from the keyboard
+    * @int
+    **/
+   public static int readChoice() {
+      int input;
+      // returns only if a correct value is given.
+      do {
+         System.out.print("Please make your choice: ");
+         try { // read the integer, parse it and break.
+            input = Integer.parseInt(in.readLine());
+            break;
+         }catch (Exception e) {
+            System.out.println("Your input is invalid!");
+            continue;
+         }//end try
+      }while (true);
+      return input;
+   }//end readChoice
+
+   
+   public static void addCustomer(DBProject esql){
+      SimpleDateFormat formatter1=new SimpleDateFormat("MM/dd/yy");
+
+      String fName;
+      do {
+         System.out.println("Input your First Name: ");
+         try {
+            fName = in.readLine();
+            if (fName.length() <= 0 || fName.length() > 30) {
+               throw new RuntimeException("First Names can't be null or longer than 30 characters");
+            }
+         break;
+         }
+         catch (Exception e){
+			   System.out.println(e);
+			   continue;
+		   }
+	   }while(true);
+
+
+      String lName;
+      do {
+         System.out.println("Input your Last Name: ");
+         try {
+            lName = in.readLine();
+            if (lName.length() <= 0 || lName.length() > 30) {
+               throw new RuntimeException("Last Names can't be null or longer than 30 characters");
+            }
+            break;
+         }
+         catch (Exception e){
+			System.out.println(e);
+			continue;
+		   }
+	   }while(true);
+
+      String Address;
+      do {
+		   System.out.println("Input your Address: ");
+		   try {
+			   Address = in.readLine();
+            break;
+         }
+         catch (Exception e){
+			   System.out.println(e);
+			   continue;
+		   }
+	}while(true);
+
+   Date DOB;
+   String temp;
+
+	do {
+		System.out.println("Input your date of birth (MM/dd/YY): ");
+		try {
+			temp = in.readLine();
+			DOB = formatter1.parse(temp);
+			break;
+      }
+      catch (Exception e){
+			System.out.println("Invaild input!");
+			continue;
+		}
+	}while(true);
+
+   long phNo;
+   String tempNo;
+
+   do {
+      System.out.println("Input the customer's phone number");
+      try {
+         temp = in.readLine();
+         phNo = Long.parseLong(temp);
+         break;
+      }
+      catch (Exception e)
+      {
+         System.out.println("Invalid input!");
+         continue;
+      }
+   }while(true);
+
+   String GenderType;
+	do {
+		System.out.println("Input your Gender: Male, Female, Other ");
+		try {
+			GenderType = in.readLine();
+      break;
+      }
+      catch (Exception e){
+			System.out.println(e);
+			continue;
+		}
+	}while(true);
+
+	try {
+		addCustomer(esql, fName, lName, Address, phNo, DOB, GenderType);
+	}catch (Exception e) {  
+				System.err.println (e.getMessage());
+}   
+   };//end addCustomer
+
+   /**
+    * Adds a customer.
+    *
+    * @return the new customerID
+    */
+   public static int addCustomer(final DBProject esql, final String fName, final String lName, String address,
+                                 long phNo, Date dob, String gender) throws SQLException {
+      final int customerID = esql.nextId("Customer");
+      esql.executeUpdate(Queries.ADD_CUSTOMER, customerID, fName, lName, address, phNo, dob, gender);
+      // a rolled back customer never reaches the name cache
+      esql.afterCommit(new Runnable() {
+         public void run () {
+            esql._customerNames.addCustomer(customerID, fName, lName);
+         }
+      });
+      return customerID;
+   }//end addCustomer
+
+   public static void addRoom(DBProject esql){
+      String tempID;
+      int hotelID;
+      int roomNo;
+      String roomType;
+      // Hotel ID
+      do {
+         System.out.println("Input the hotel ID:");
+         try {
+            tempID = in.readLine();
+            if (tempID.length() <= 0) {
+               throw new RuntimeException("Hotel ID cannot be empty!");
+            }
+            hotelID = Integer.parseInt(tempID);
+            break;
+         }
+         catch (Exception e){
+            System.out.println("Invalid input!");
+            continue;
+         }
+      }while(true);
+      // Room number
+      do {
+         System.out.println("Input the room number:");
+         try {
+            tempID = in.readLine();
+            if (tempID.length() <= 0) {
+               throw new RuntimeException("Room number cannot be empty!");
+            }
+            roomNo = Integer.parseInt(tempID);
+            break;
+         }
+         catch (Exception e){
+            System.out.println("Invalid input!");
+            continue;
+         }
+      }while(true);
+      // Room type
+      do {
+         System.out.println("Input the room type:");
+         try {
+            roomType = in.readLine();
+            if (roomType.length() > 10) {
+               throw new RuntimeException("Room type cannot be more than ten characters.");
+            }
+            if (roomType.length() <= 0) {
+               throw new RuntimeException("Room type cannot be empty.");
+            }
+            break;
+         }
+         catch (Exception e) {
+            System.out.println("Invalid input!");
+            continue;
+         }
+      }while(true);
+      
+      try {
+         addRoom(esql, hotelID, roomNo, roomType);
+      }
+      catch (Exception e) {
+         System.err.println(e.getMessage());
+      }
+   }//end addRoom
+
+   /**
+    * Adds a room to a hotel.
+    */
+   public static void addRoom(final DBProject esql, final int hotelID, final int roomNo, String roomType)
+         throws SQLException {
+      esql.executeUpdate(Queries.ADD_ROOM, hotelID, roomNo, roomType);
+      // a rolled back room never reaches the index or the cache
+      esql.afterCommit(new Runnable() {
+         public void run () {
+            AvailabilityIndex availability = esql._availability;
+            if (availability != null) {
+               availability.addRoom(hotelID, roomNo);
+            }//end if
+            esql.invalidate(ResultCache.ROOMS, hotelID, ResultCache.ANY_DAY);
+         }
+      });
+   }//end addRoom
+
+   public static void addMaintenanceCompany(DBProject esql){
+      String name;
+         do {
+            System.out.println("Input your Company Name: ");
+            try {
+               name = in.readLine();
+               if (name.length() <= 0 || name.length() > 30) {
+                  throw new RuntimeException("Company Names can't be null or longer than 30 characters");
+                }
+               break;
+            }
+            catch (Exception e){
+               System.out.println(e);
+               continue;
+            }
+         }while(true);
+
+      String check;
+      boolean isCertified;
+         do {
+            System.out.println("Is your Company Certified? (true/false): ");
+            try {
+               check = in.readLine();
+               if (check.length() <= 0) {
+                  throw new RuntimeException("Can't be Null/Empty");
+               }
+               isCertified = Boolean.parseBoolean(check);
+               break;
+            }
+            catch (Exception e){
+               System.out.println(e);
+               continue;
+            }
+         }while(true);
+
+      String Address;
+
+         do {
+            System.out.println("Input your Address: ");
+            try {
+               Address = in.readLine();
+               break;
+            }
+            catch (Exception e){
+               System.out.println(e);
+               continue;
+            }
+         }while(true);
+
+
+      try {
+         addMaintenanceCompany(esql, name, Address, isCertified);
+      }
+      catch (Exception e) {  
+               System.err.println (e.getMessage());
+      }
+   }//end addMaintenanceCompany
+
+   /**
+    * Adds a maintenance company.
+    *
+    * @return the new cmpID
+    */
+   public static int addMaintenanceCompany(final DBProject esql, final String name, String address,
+                                           boolean isCertified) throws SQLException {
+      final int cmpID = esql.nextId("MaintenanceCompany");
+      esql.executeUpdate(Queries.ADD_MAINTENANCE_COMPANY, cmpID, name, address, isCertified);
+      // a rolled back company never reaches the index
+      esql.afterCommit(new Runnable() {
+         public void run () {
+            RepairCountIndex counts = esql._repairCounts;
+            if (counts != null) {
+               counts.addCompany(cmpID, name);
+            }//end if
+         }
+      });
+      return cmpID;
+   }//end addMaintenanceCompany
+
+   public static void addRepair(DBProject esql){
+      String temp;
+      int hotelID = 0;
+      int roomNo = 0;
+      int mCompany = 0;
+      Date repairDate;
+      String description;
+      String repairType;
+      SimpleDateFormat formatter1=new SimpleDateFormat("MM/dd/yy");  
+
+      do {
+         System.out.println("Input the hotel ID.");
+         try {
+            temp = in.readLine();
+            if (temp.length() <= 0) {
+               throw new RuntimeException("Hotel ID cannot be empty.");
+            }
+            hotelID = Integer.parseInt(temp);
+            break;
+         }
+         catch (Exception e) {
+            System.out.println("Invalid input!");
+            continue;
+         }
+      }while(true);
+
+      do {
+         System.out.println("Input the room number.");
+         try {
+            temp = in.readLine();
+            if (temp.length() <= 0) {
+               throw new RuntimeException("Room number cannot be empty.");
+            }
+            roomNo = Integer.parseInt(temp);
+            break;
+         }
+         catch (Exception e) {
+            System.out.println("Invalid input!");
+            continue;
+         }
+      }while(true);
+
+      do {
+         System.out.println("Input the maintenance company's ID.");
+         try {
+            temp = in.readLine();
+            if (temp.length() <= 0) {
+               throw new RuntimeException("Maintenance company ID cannot be empty.");
+            }
+            mCompany = Integer.parseInt(temp);
+            break;
+         }
+         catch (Exception e) {
+            System.out.println("Invalid input!");
+            continue;
+         }
+      }while(true);
+
+      do {
+         System.out.println("Input the repair date. (MM/dd/yy)");
+         try {
+            temp = in.readLine();
+            if (temp.length() <= 0) {
+               throw new RuntimeException("Repair date cannot be empty.");
+            }
+            repairDate = formatter1.parse(temp);
+            break;
+         }
+         catch  (Exception e) {
+            System.out.println("Invalid input!");
+            continue;
+         }
+      }while(true);
+
+      do {
+         System.out.println("Input the description. (Optional)");
+         try {
+            temp = in.readLine();
+            description = temp;
+            break;
+         }
+         catch (Exception e) {
+            System.out.print("Invalid input!");
+            continue;
+         }
+      }while(true);
+
+      do {
+         System.out.println("Specify the repair type.");
+         try{
+            temp = in.readLine();
+            if (temp.length() > 10) {
+               throw new RuntimeException("Repair type must be less than 10 characters.");
+            }
+            repairType = temp;
+            break;
+         }
+         catch (Exception e) {
+            System.out.println("Invalid input!");
+            continue;
+         }
+      }while(true);
+
+      try {
+         addRepair(esql, hotelID, roomNo, mCompany, repairDate, description, repairType);
+      }
+      catch (Exception e) {
+         System.err.println(e.getMessage());
+      }
+   }//end addRepair
+
+   /**
+    * Adds a repair of a room.
+    *
+    * @return the new rID
+    */
+   public static int addRepair(DBProject esql, int hotelID, int roomNo, int mCompany, Date repairDate,
+                               String description, String repairType) throws SQLException {
+      return await(addRepairAsync(esql, hotelID, roomNo, mCompany, repairDate, description, repairType));
+   }//end addRepair
+
+   /**
+    * Adds a repair of a room through the write-behind buffer, see
+    * insert.
+    *
+    * @return the new rID, once the repair is written
+    */
+   public static Future<Integer> addRepairAsync(final DBProject esql, final int hotelID, final int roomNo,
+                                                final int mCompany, final Date repairDate, String description,
+                                                String repairType) throws SQLException {
+      int rID = esql.nextId("Repair");
+      return esql.insert(rID, new Runnable() {
+         public void run() {
+            RepairCountIndex counts = esql._repairCounts;
+            if (counts != null) {
+               counts.addRepair(mCompany);
+            }//end if
+            if (esql._repairHistory != null) {
+               esql._repairHistory.addRepair(hotelID, roomNo, repairDate);
+            }//end if
+            esql.invalidate(ResultCache.REPAIRS, hotelID, toEpochDay(repairDate));
+         }
+      }, Queries.ADD_REPAIR, rID, hotelID, roomNo, mCompany, repairDate, description, repairType);
+   }//end addRepairAsync
+
+   public static void bookRoom(DBProject esql){
+      // Given hotelID, roomNo and customer Name create a booking in the DB 
+      SimpleDateFormat formatter1=new SimpleDateFormat("MM/dd/yy");
+
+      int customer;
+      String checkC;
+
+      do {
+            System.out.println("Input your Customer ID Number: ");
+            try {
+               checkC = in.readLine();
+               customer = Integer.parseInt(checkC);
+               if (checkC.length() <= 0) {
+                  throw new RuntimeException("Customer ID can't be empty!");
+               }
+               break;
+            }catch (Exception e){
+               System.out.println("Invalid input!");
+               continue;
+            }
+      }while(true);
+
+      int hotelID;
+      String checkhID;
+
+      do {
+            System.out.println("Input your Hotel ID Number: ");
+            try {
+               checkhID = in.readLine();
+               hotelID = Integer.parseInt(checkhID);
+               if (checkhID.length() <= 0) {
+                  throw new RuntimeException("Hotel ID can't be empty!");
+               }
+               break;
+            }catch (Exception e){
+               System.out.println("Invalid input!");
+               continue;
+            }
+      }while(true);
+
+      int roomNo;
+      String checkR;
+
+      do {
+            System.out.println("Input your Room Number: ");
+            try {
+               checkR = in.readLine();
+               roomNo = Integer.parseInt(checkR);
+               if (checkR.length() <= 0) {
+                  throw new RuntimeException("Room Number can't be empty!");
+               }
+               break;
+            }catch (Exception e){
+               System.out.println("Invaild input!");
+               continue;
+            }
+      }while(true);
+
+
+
+      Date bookingDate;
+      String tempb;
+
+      do {
+            System.out.println("Input your booking date: ");
+            try {
+               tempb = in.readLine();
+               bookingDate = formatter1.parse(tempb);
+               break;
+
+            }catch (Exception e){
+               System.out.println("Invalid input!");
+               continue;
+            }
+      }while(true);
+
+      int noOfPeople;
+      String checkN;
+
+      do {
+            System.out.println("Input the number of people: ");
+            try {
+               checkN = in.readLine();
+               noOfPeople = Integer.parseInt(checkN);
+               break;
+            }catch (Exception e){
+               System.out.println("Invaild input!");
+               continue;
+            }
+      }while(true);
+
+
+      float price;
+      String checkP;
+
+      do {
+            System.out.println("Input your Price: $ ");
+            try {
+               checkP = in.readLine();
+               price = Float.parseFloat(checkP);
+               if (checkP.length() <= 0) {
+                  throw new RuntimeException("Price can't be empty!");
+               }
+               if (price > 9999.99)
+               {
+                  throw new RuntimeException("Price is too high!");
+               }
+               if (price < 0)
+               {
+                  throw new RuntimeException("Invalid price!");
+               }
+               break;
+            }catch (Exception e){
+               System.out.println("Invaild input!");
+               continue;
+            }
+      }while(true);
+
+
+      try {
+            bookRoom(esql, customer, hotelID, roomNo, bookingDate, noOfPeople, price);
+      }catch (Exception e) {
+            System.err.println (e.getMessage());
+      }
+   }//end bookRoom
+
+   /**
+    * Books a room for a customer.
+    *
+    * @return the new bID
+    */
+   public static int bookRoom(DBProject esql, int customer, int hotelID, int roomNo, Date bookingDate,
+                              int noOfPeople, float price) throws SQLException {
+      try {
+         return await(bookRoomAsync(esql, customer, hotelID, roomNo, bookingDate, noOfPeople, price));
+      }catch (SQLException e){
+         if (!(e instanceof BookingConflictException) && BookingConflictException.isRoomConflict(e)) {
+            SQLException conflict = new BookingConflictException(hotelID, roomNo, bookingDate);
+            conflict.initCause(e);
+            throw conflict;
+         }//end if
+         throw e;
+      }//end try
+   }//end bookRoom
+
+   /**
+    * Books a room for a customer through the write-behind buffer, see
+    * insert.  With the availability index a room already booked on the day
+    * is refused before anything is sent; the unique index on room and day
+    * refuses the others.
+    *
+    * @return the new bID, once the booking is written
+    * @throws BookingConflictException when the index knows of a booking of the room on the day
+    */
+   public static Future<Integer> bookRoomAsync(final DBProject esql, int customer, final int hotelID,
+                                               final int roomNo, final Date bookingDate, int noOfPeople,
+                                               final float price) throws SQLException {
+      if (esql._availability != null && esql._availability.isBooked(hotelID, roomNo, toEpochDay(bookingDate))) {
+         throw new BookingConflictException(hotelID, roomNo, bookingDate);
+      }//end if
+      int bID = esql.nextId("Booking");
+      return esql.insert(bID, new Runnable() {
+         public void run() {
+            if (esql._availability != null) {
+               esql._availability.addBooking(hotelID, roomNo, toEpochDay(bookingDate));
+            }//end if
+            if (esql._topKPrices != null) {
+               esql._topKPrices.addBooking(Math.round(price * 100), roomNo, toEpochDay(bookingDate));
+            }//end if
+            esql.invalidate(ResultCache.BOOKINGS, hotelID, toEpochDay(bookingDate));
+         }
+      }, Queries.BOOK_ROOM, bID, customer, hotelID, roomNo, bookingDate, noOfPeople, price);
+   }//end bookRoomAsync
+
+   public static void assignHouseCleaningToRoom(DBProject esql){
+      int staffID = 0;
+      int hotelID = 0;
+      int roomNo = 0;
+      String temp;
+      
+      do {
+         System.out.println("Input the Staff ID.");
+         try {
+            temp = in.readLine();
+            if (temp.length() <= 0) {
+               throw new RuntimeException("Staff ID cannot be empty.");
+            }
+            staffID = Integer.parseInt(temp);
+            break;
+         }
+         catch (Exception e) {
+            System.out.println("Invalid input!");
+            continue;
+         }
+      }while(true);
+
+      do {
+         System.out.println("Input the hotel ID.");
+         try {
+            temp = in.readLine();
+            if (temp.length() <= 0) {
+               throw new RuntimeException("Hotel ID cannot be empty.");
+            }
+            hotelID = Integer.parseInt(temp);
+            break;
+         }
+         catch (Exception e) {
+            System.out.println("Invalid input!");
+            continue;
+         }
+      }while(true);
+
+      do {
+         System.out.println("Input the room number.");
+         try {
+            temp = in.readLine();
+            if (temp.length() <= 0) {
+               throw new RuntimeException("Room number cannot be empty.");
+            }
+            roomNo = Integer.parseInt(temp);
+            break;
+         }
+         catch (Exception e) {
+            System.out.println("Invalid input!");
+            continue;
+         }
+      }while(true);
+
+      try {
+         assignHouseCleaningToRoom(esql, staffID, hotelID, roomNo);
+      }
+      catch (Exception e) {
+         System.err.println(e.getMessage());
+      }
+   }//end assignHouseCleaningToRoom
+
+   /**
+    * Assigns a house cleaning staff member to a room.
+    *
+    * @return the new asgID
+    */
+   public static int assignHouseCleaningToRoom(DBProject esql, int staffID, int hotelID, int roomNo) throws SQLException {
+      // Take the next ID from the Assigned sequence.
+      int asgID = esql.nextId("Assigned");
+      esql.executeUpdate(Queries.ASSIGN_HOUSE_CLEANING, asgID, staffID, hotelID, roomNo);
+      return asgID;
+   }//end assignHouseCleaningToRoom
+   
+   public static void repairRequest(DBProject esql){
+	  // Given a hotelID, Staff SSN, roomNo, repairID , date create a repair request in the DB
+
+      int managerID;
+      String checkm;
+
+      do {
+            System.out.println("Input your Manager ID Number: ");
+            try {
+               checkm = in.readLine();
+               managerID = Integer.parseInt(checkm);
+               if (checkm.length() <= 0) {
+                  throw new RuntimeException("Manager ID can't be empty!");
+               }
+               break;
+            }
+            catch (Exception e){
+               System.out.println("Invalid input!");
+               continue;
+            }
+      }while(true);
+
+      int repairID;
+      String checkR;
+
+      do {
+            System.out.println("Input your Repair ID Number: ");
+            try {
+               checkR = in.readLine();
+               repairID = Integer.parseInt(checkR);
+               if (checkR.length() <= 0) {
+                  throw new RuntimeException("Repair ID can't be empty!");
+               }
+               break;
+            }catch (Exception e){
+               System.out.println("Invalid input!");
+               continue;
+            }
+      }while(true);
+
+
+
+      Date requestDate;
+      String tempreq;
+
+
+      do {
+            System.out.println("Input your Request date: ");
+            try {
+               tempreq = in.readLine();
+               requestDate = new SimpleDateFormat("MM/dd/yy").parse(tempreq);
+               break;
+
+            }catch (Exception e){
+               System.out.println("Invalid input!");
+               continue;
+            }
+      }while(true);
+
+     
+      String description;
+
+      do {
+            System.out.println("Input Repair Description: ");
+            try {
+               description = in.readLine();
+               break;
+            }catch (Exception e){
+               System.out.println("Invaild input!");
+               continue;
+            }
+      }while(true);
+
+      try {
+            repairRequest(esql, managerID, repairID, requestDate, description);
+      }catch (Exception e) {
+            System.err.println (e.getMessage());
+      }
+   }//end repairRequest
+
+   /**
+    * Raises a repair request on behalf of a manager.
+    *
+    * @return the new reqID
+    */
+   public static int repairRequest(DBProject esql, int managerID, int repairID, Date requestDate,
+                                   String description) throws SQLException {
+      int reqID = esql.nextId("Request");
+      esql.executeUpdate(Queries.REPAIR_REQUEST, reqID, managerID, repairID, requestDate, description);
+      return reqID;
+   }//end repairRequest
+   
+   public static void numberOfAvailableRooms(DBProject esql){ //Assuming date doesn't matter.
+     // Given a hotelID, get the count of rooms available 
+      String temp;
+      int hotelID = 0;
+      long roomsAvailCount = 0;
+
+      do {
+         System.out.println("Input the hotel ID.");
+         try {
+            temp = in.readLine();
+            if (temp.length() <= 0) {
+               throw new RuntimeException("Hotel ID cannot be empty.");
+            }
+            hotelID = Integer.parseInt(temp);
+            break;
+         }
+         catch (Exception e) {
+            System.out.println("Invalid input!");
+            continue;
+         }
+      }while(true);
+
+      try{
+         roomsAvailCount = numberOfAvailableRooms(esql, hotelID);
+      }
+      catch (Exception e) {
+         System.err.println(e.getMessage());
+      }
+
+      System.out.println("There are " + roomsAvailCount + " available rooms in the hotel with ID " + hotelID);
+   }//end numberOfAvailableRooms
+
+   /**
+    * Returns the number of rooms of a hotel that have never been booked.
+    */
+   public static long numberOfAvailableRooms(DBProject esql, int hotelID) throws SQLException {
+      if (esql._availability != null) {
+         return esql._availability.countNeverBooked(hotelID);
+      }//end if
+      return esql.cachedCount(ResultCache.ROOMS | ResultCache.BOOKINGS, hotelID, Queries.AVAILABLE_ROOMS, hotelID);
+   }//end numberOfAvailableRooms
+   
+   public static void numberOfBookedRooms(DBProject esql){
+     // Given a hotelID, get the count of rooms booked
+      String temp;
+      int hotelID = 0;
+      long roomsBookedCount = 0;
+
+      do {
+         System.out.println("Input the hotel ID.");
+         try {
+            temp = in.readLine();
+            if (temp.length() <= 0) {
+               throw new RuntimeException("Hotel ID cannot be empty.");
+            }
+            hotelID = Integer.parseInt(temp);
+            break;
+         }
+         catch (Exception e) {
+            System.out.println("Invalid input!");
+            continue;
+         }
+      }while(true);
+
+      try {
+         roomsBookedCount = numberOfBookedRooms(esql, hotelID);
+      }
+      catch (Exception e) {
+         System.err.println(e.getMessage());
+      }
+
+      System.out.println("There are " + roomsBookedCount + " booked rooms in the hotel with ID " + hotelID);
+   }//end numberOfBookedRooms
+
+   /**
+    * Returns the number of bookings of a hotel.
+    */
+   public static long numberOfBookedRooms(DBProject esql, int hotelID) throws SQLException {
+      return esql.cachedCount(ResultCache.BOOKINGS, hotelID, Queries.BOOKED_ROOMS, hotelID);
+   }//end numberOfBookedRooms
+   
+   public static void listHotelRoomBookingsForAWeek(DBProject esql){
+	  // Given a hotelID, date - list all the rooms available for a week(including the input date) 
+      String temp;
+      int hotelID = 0;
+      Date bookingDate;
+      SimpleDateFormat formatter1=new SimpleDateFormat("MM/dd/yy");
+
+      do {
+         System.out.println("Input the hotel ID.");
+         try {
+            temp = in.readLine();
+            if (temp.length() <= 0) {
+               throw new RuntimeException("Hotel ID cannot be empty.");
+            }
+            hotelID = Integer.parseInt(temp);
+            break;
+         }
+         catch (Exception e) {
+            System.out.println("Invalid input!");
+            continue;
+         }
+      }while(true);
+
+      do {
+         System.out.println("Input the date. (MM/DD/YY)");
+         try {
+            temp = in.readLine();
+            if (temp.length() <= 0) {
+               throw new RuntimeException("Booking date cannot be empty.");
+            }
+            bookingDate = formatter1.parse(temp);
+            break;
+         }
+         catch  (Exception e) {
+            System.out.println("Invalid input!");
+            continue;
+         }
+      }while(true);
+
+      try {
+         listHotelRoomBookingsForAWeek(esql, hotelID, bookingDate, new RowPrinter());
+      }
+      catch (Exception e) {
+         System.err.println(e.getMessage());
+      }
+
+   }//end listHotelRoomBookingsForAWeek
+
+   /**
+    * Lists the rooms of a hotel that have no booking in the week starting at
+    * the given date.
+    *
+    * @return the number of rooms listed
+    */
+   public static int listHotelRoomBookingsForAWeek(DBProject esql, int hotelID, Date bookingDate,
+                                                   ReportWriter out) throws SQLException {
+      if (esql._availability != null) {
+         // same week as the query: the date itself and the seven days after it
+         int day = toEpochDay(bookingDate);
+         int[] rooms = esql._availability.freeRooms(hotelID, day, day + 7);
+         if (rooms.length > 0) {
+            out.header(new String[] { "roomno", "hotelid" });
+         }//end if
+         for (int i = 0; i < rooms.length; ++i) {
+            out.row(new Object[] { rooms[i], hotelID });
+         }//end for
+         return rooms.length;
+      }//end if
+      if (esql._cache != null) {
+         int day = toEpochDay(bookingDate);
+         return esql.cachedQuery(ResultCache.ROOMS | ResultCache.BOOKINGS, hotelID, day, day + 7,
+            Queries.ROOM_BOOKINGS_FOR_A_WEEK, hotelID, hotelID, bookingDate, bookingDate).render(out);
+      }//end if
+      return esql.streamQuery(Queries.ROOM_BOOKINGS_FOR_A_WEEK, new ReportRows(out), hotelID, hotelID, bookingDate, bookingDate);
+   }//end listHotelRoomBookingsForAWeek
+   
+   public static void topKHighestRoomPriceForADateRange(DBProject esql){
+	  // List Top K Rooms with the highest price for a given date range
+      String temp;
+      Date start;
+      Date end;
+      int k = 0;
+      SimpleDateFormat formatter1=new SimpleDateFormat("MM/dd/yy");
+
+      do {
+         System.out.println("Input the start date. (MM/DD/YY)");
+         try {
+            temp = in.readLine();
+            if (temp.length() <= 0) {
+               throw new RuntimeException("Repair date cannot be empty.");
+            }
+            start = formatter1.parse(temp);
+            break;
+         }
+         catch  (Exception e) {
+            System.out.println("Invalid input!");
+            continue;
+         }
+      }while(true);
+
+      do {
+         System.out.println("Input the end date. (MM/DD/YY)");
+         try {
+            temp = in.readLine();
+            if (temp.length() <= 0) {
+               throw new RuntimeException("Repair date cannot be empty.");
+            }
+            if (start.after(formatter1.parse(temp))) {
+               throw new RuntimeException("End date cannot be before start date.");
+            }
+            end = formatter1.parse(temp);
+            break;
+         }
+         catch  (Exception e) {
+            System.out.println("Invalid input!");
+            continue;
+         }
+      }while(true);
+
+      do {
+         System.out.println("Input the amount of results you want to see");
+         try {
+            temp = in.readLine();
+            if (temp.length() <= 0) {
+               throw new RuntimeException("Amount of results cannot be empty.");
+            }
+            if (Integer.parseInt(temp) <= 0) {
+               throw new RuntimeException("Amount of results cannot be 0 or less than 0");
+            }
+            k = Integer.parseInt(temp);
+            break;
+         }
+         catch (Exception e) {
+            System.out.println("Invalid input!");
+            continue;
+         }
+      }while(true);
+
+      try {
+         topKHighestRoomPriceForADateRange(esql, start, end, k, new RowPrinter());
+      }
+      catch (Exception e) {
+         System.err.println(e.getMessage());
+      }
+
+   }//end topKHighestRoomPriceForADateRange
+
+   /**
+    * Lists the k highest booking prices between two dates, both included.
+    *
+    * @return the number of bookings listed
+    */
+   public static int topKHighestRoomPriceForADateRange(DBProject esql, Date start, Date end, int k,
+                                                       ReportWriter out) throws SQLException {
+      if (esql._topKPrices != null) {
+         List<TopKPriceIndex.Entry> top = esql._topKPrices.topK(toEpochDay(start), toEpochDay(end), k);
+         if (top != null) {
+            if (!top.isEmpty()) {
+               out.header(new String[] { "price", "roomno", "bookingdate" });
+            }//end if
+            for (TopKPriceIndex.Entry e : top) {
+               out.row(new Object[] { String.format("%d.%02d", e.cents / 100, e.cents % 100), e.roomNo,
+                  fromEpochDay(e.day) });
+            }//end for
+            return top.size();
+         }//end if
+      }//end if
+      return esql.cachedQuery(ResultCache.BOOKINGS, ResultCache.ANY_HOTEL, toEpochDay(start), toEpochDay(end),
+         Queries.TOP_K_ROOM_PRICE, start, end, k).render(out);
+   }//end topKHighestRoomPriceForADateRange
+   
+   public static void topKHighestPriceBookingsForACustomer(DBProject esql){
+	  // Given a customer Name, List Top K highest booking price for a customer 
+      String temp;
+      String fName;
+      String lName;
+      int k = 0;
+
+      do {
+         System.out.println("Input the customer's first name.");
+         try{
+            temp = in.readLine();
+            if (temp.length() <= 0) {
+               throw new RuntimeException("First name cannot be blank");
+            }
+            if (temp.length() > 30) {
+               throw new RuntimeException("First name must be less than 10 characters.");
+            }
+            fName = temp;
+            break;
+         }
+         catch (Exception e) {
+            System.out.println("Invalid input!");
+            continue;
+         }
+      }while(true);
+
+      do {
+         System.out.println("Input the customer's last name.");
+         try{
+            temp = in.readLine();
+            if (temp.length() <= 0) {
+               throw new RuntimeException("Last name cannot be blank");
+            }
+            if (temp.length() > 30) {
+               throw new RuntimeException("Last name must be less than 10 characters.");
+            }
+            lName = temp;
+            break;
+         }
+         catch (Exception e) {
+            System.out.println("Invalid input!");
+            continue;
+         }
+      }while(true);
+
+      do {
+         System.out.println("Input the amount of results you want to see");
+         try {
+            temp = in.readLine();
+            if (temp.length() <= 0) {
+               throw new RuntimeException("Amount of results cannot be empty.");
+            }
+            if (Integer.parseInt(temp) <= 0) {
+               throw new RuntimeException("Amount of results cannot be 0 or less than 0");
+            }
+            k = Integer.parseInt(temp);
+            break;
+         }
+         catch (Exception e) {
+            System.out.println("Invalid input!");
+            continue;
+         }
+      }while(true);
+
+         try {
+            topKHighestPriceBookingsForACustomer(esql, fName, lName, k, new RowPrinter());
+         }
+         catch (Exception e) {
+            System.err.println(e.getMessage());
+         }
+   }//end topKHighestPriceBookingsForACustomer
+
+   /**
+    * Lists the k highest booking prices of a customer.
+    *
+    * @return the number of bookings listed
+    */
+   public static int topKHighestPriceBookingsForACustomer(DBProject esql, String fName, String lName, int k,
+                                                          ReportWriter out) throws SQLException {
+      int[] customers = esql._customerNames.resolve(fName, lName);
+      if (customers.length == 0) {
+         return 0;
+      }//end if
+      return esql.cachedQuery(ResultCache.BOOKINGS, ResultCache.ANY_HOTEL,
+         ResultCache.FIRST_DAY, ResultCache.LAST_DAY,
+         Queries.forCustomers(Queries.TOP_K_CUSTOMER_BOOKINGS, customers.length), customerParams(customers, k))
+         .render(out);
+   }//end topKHighestPriceBookingsForACustomer
+
+   // the customer IDs followed by the other parameters of a customer query
+   private static Object[] customerParams(int[] customers, Object... rest) {
+      Object[] params = new Object[customers.length + rest.length];
+      for (int i = 0; i < customers.length; ++i) {
+         params[i] = customers[i];
+      }//end for
+      System.arraycopy(rest, 0, params, customers.length, rest.length);
+      return params;
+   }//end customerParams
+   
+   public static void totalCostForCustomer(DBProject esql){
+	  // Given a hotelID, customer Name and date range get the total cost incurred by the customer
+      String temp;
+      int hotelID;
+      String fName;
+      String lName;
+      Date start;
+      Date end;
+      SimpleDateFormat formatter1=new SimpleDateFormat("MM/dd/yy");
+
+      do {
+         System.out.println("Input the hotel ID.");
+         try {
+            temp = in.readLine();
+            if (temp.length() <= 0) {
+               throw new RuntimeException("Hotel ID cannot be empty.");
+            }
+            hotelID = Integer.parseInt(temp);
+            break;
+         }
+         catch (Exception e) {
+            System.out.println("Invalid input!");
+            continue;
+         }
+      }while(true);
+
+      do {
+         System.out.println("Input the customer's first name.");
+         try{
+            temp = in.readLine();
+            if (temp.length() <= 0) {
+               throw new RuntimeException("First name cannot be blank");
+            }
+            if (temp.length() > 30) {
+               throw new RuntimeException("First name must be less than 10 characters.");
+            }
+            fName = temp;
+            break;
+         }
+         catch (Exception e) {
+            System.out.println("Invalid input!");
+            continue;
+         }
+      }while(true);
+
+      do {
+         System.out.println("Input the customer's last name.");
+         try{
+            temp = in.readLine();
+            if (temp.length() <= 0) {
+               throw new RuntimeException("Last name cannot be blank");
+            }
+            if (temp.length() > 30) {
+               throw new RuntimeException("Last name must be less than 10 characters.");
+            }
+            lName = temp;
+            break;
+         }
+         catch (Exception e) {
+            System.out.println("Invalid input!");
+            continue;
+         }
+      }while(true);
+
+      do {
+         System.out.println("Input the start date. (MM/DD/YY)");
+         try {
+            temp = in.readLine();
+            if (temp.length() <= 0) {
+               throw new RuntimeException("Repair date cannot be empty.");
+            }
+            start = formatter1.parse(temp);
+            break;
+         }
+         catch  (Exception e) {
+            System.out.println("Invalid input!");
+            continue;
+         }
+      }while(true);
+
+      do {
+         System.out.println("Input the end date. (MM/DD/YY)");
+         try {
+            temp = in.readLine();
+            if (temp.length() <= 0) {
+               throw new RuntimeException("Repair date cannot be empty.");
+            }
+            if (start.after(formatter1.parse(temp))) {
+               throw new RuntimeException("End date cannot be before start date.");
+            }
+            end = formatter1.parse(temp);
+            break;
+         }
+         catch  (Exception e) {
+            System.out.println("Invalid input!");
+            continue;
+         }
+      }while(true);
+
+      try {
+         totalCostForCustomer(esql, hotelID, fName, lName, start, end, new RowPrinter());
+      }
+      catch (Exception e) {
+         System.err.println(e.getMessage());
+      }
+   }//end totalCostForCustomer
+
+   /**
+    * Lists the total a customer spent in a hotel between two dates, both
+    * included.
+    *
+    * @return the number of rows listed
+    */
+   public static int totalCostForCustomer(DBProject esql, int hotelID, String fName, String lName, Date start,
+                                          Date end, ReportWriter out) throws SQLException {
+      int[] customers = esql._customerNames.resolve(fName, lName);
+      if (customers.length == 0) {
+         // what the sum over no bookings returns
+         out.header(new String[] { "sum" });
+         out.row(new Object[] { null });
+         return 1;
+      }//end if
+      return esql.cachedQuery(ResultCache.BOOKINGS, hotelID, toEpochDay(start),
+         toEpochDay(end), Queries.forCustomers(Queries.CUSTOMER_TOTAL_COST, customers.length),
+         customerParams(customers, hotelID, start, end)).render(out);
+   }//end totalCostForCustomer
+   
+   public static void listRepairsMade(DBProject esql){
+	  // Given a Maintenance company name list all the repairs along with repairType, hotelID and roomNo
+     String temp; 
+     String mcName;
+      
+     do {
+         System.out.println("Input the maintenance company's name.");
+         try{
+            temp = in.readLine();
+            if (temp.length() <= 0) {
+               throw new RuntimeException("Company name cannot be blank");
+            }
+            if (temp.length() > 30) {
+               throw new RuntimeException("Company name must be less than 10 characters.");
+            }
+            mcName = temp;
+            break;
+         }
+         catch (Exception e) {
+            System.out.println("Invalid input!");
+            continue;
+         }
+      }while(true);
+
+      try {
+         listRepairsMade(esql, mcName, new RowPrinter());
+      }
+      catch (Exception e) {
+         System.err.println(e.getMessage());
+      }
+   }//end listRepairsMade
+
+   /**
+    * Lists the repairs made by a maintenance company.
+    *
+    * @return the number of repairs listed
+    */
+   public static int listRepairsMade(DBProject esql, String mcName, ReportWriter out) throws SQLException {
+      if (esql._cache != null) {
+         return esql.cachedQuery(ResultCache.REPAIRS, ResultCache.ANY_HOTEL,
+            ResultCache.FIRST_DAY, ResultCache.LAST_DAY, Queries.REPAIRS_MADE, mcName).render(out);
+      }//end if
+      return esql.streamQuery(Queries.REPAIRS_MADE, new ReportRows(out), mcName);
+   }//end listRepairsMade
+
+   public static void topKMaintenanceCompany(DBProject esql){
+	  // List Top K Maintenance Company Names based on total repair count (descending order)
+      String checkK;
+      int k;
+      do {
+         System.out.println("Input the value of K: ");
+         try {
+             checkK = in.readLine();
+             k = Integer.parseInt(checkK);
+             if (checkK.length() <= 0) {
+                 throw new RuntimeException("K can't be empty!");
+             }
+             break;
+         }catch (Exception e){
+             System.out.println("Invaild input!");
+             continue;
+         }
+     }while(true);
+
+      try {
+         topKMaintenanceCompany(esql, k, new RowPrinter());
+      }
+      catch (Exception e) {
+         System.err.println(e.getMessage());
+      }
+   }//end topKMaintenanceCompany
+
+   /**
+    * Lists the k maintenance companies with the most repairs.
+    *
+    * @return the number of companies listed
+    */
+   public static int topKMaintenanceCompany(DBProject esql, int k, ReportWriter out) throws SQLException {
+      RepairCountIndex counts = esql._repairCounts;
+      if (counts != null) {
+         List<Object[]> top = counts.topK(k);
+         if (!top.isEmpty()) {
+            out.header(new String[] { "name", "count" });
+         }//end if
+         for (Object[] company : top) {
+            out.row(company);
+         }//end for
+         return top.size();
+      }//end if
+      return esql.cachedQuery(ResultCache.REPAIRS, ResultCache.ANY_HOTEL,
+         ResultCache.FIRST_DAY, ResultCache.LAST_DAY, Queries.TOP_K_MAINTENANCE_COMPANY, k).render(out);
+   }//end topKMaintenanceCompany
+   
+   public static void numberOfRepairsForEachRoomPerYear(DBProject esql){
+	  // Given a hotelID, roomNo, get the count of repairs per year
+     int hotelID = 0;
+     int roomNo = 0;
+     String checkH;
+             do {
+                 System.out.println("Input the Hotel ID: ");
+                 try {
+                     checkH = in.readLine();
+                     hotelID = Integer.parseInt(checkH);
+                     if (checkH.length() <= 0) {
+                         throw new RuntimeException("Hotel ID can't be empty!");
+                     }
+                     break;
+                 }catch (Exception e){
+                     System.out.println("Invaild input!");
+                     continue;
+                 }
+             }while(true);
+     
+     String checkNo;
+             do {
+                 System.out.println("Input the Room Number: ");
+                 try {
+                     checkNo = in.readLine();
+                     roomNo = Integer.parseInt(checkNo);
+                     if (checkNo.length() <= 0) {
+                         throw new RuntimeException("Room Number can't be empty!");
+                     }
+                     break;
+                 }catch (Exception e){
+                     System.out.println("Invaild input!");
+                     continue;
+                 }
+             }while(true);
+      
+      try {
+         numberOfRepairsForEachRoomPerYear(esql, hotelID, roomNo, new RowPrinter());
+      }
+      catch (Exception e) {
+         System.err.println(e.getMessage());
+      }
+   }//end numberOfRepairsForEachRoomPerYear
+
+   /**
+    * Lists the number of repairs of a room for every year it had any.
+    *
+    * @return the number of years listed
+    */
+   public static int numberOfRepairsForEachRoomPerYear(DBProject esql, int hotelID, int roomNo,
+                                                       ReportWriter out) throws SQLException {
+      if (esql._repairHistory != null) {
+         return printYears(esql._repairHistory.room(hotelID, roomNo), out);
+      }//end if
+      return esql.cachedQuery(ResultCache.REPAIRS, hotelID, ResultCache.FIRST_DAY, ResultCache.LAST_DAY,
+         Queries.REPAIRS_PER_YEAR, hotelID, roomNo).render(out);
+   }//end numberOfRepairsForEachRoomPerYear
+
+   public static void repairTrend(DBProject esql){
+      // Given a hotelID, or nothing for all hotels, get the count of repairs per year
+      Integer hotelID = null;
+      String checkH;
+      do {
+         System.out.println("Input the Hotel ID (leave empty for all hotels): ");
+         try {
+            checkH = in.readLine().trim();
+            if (checkH.length() > 0) {
+               hotelID = Integer.valueOf(checkH);
+            }
+            break;
+         }catch (Exception e){
+            System.out.println("Invaild input!");
+            continue;
+         }
+      }while(true);
+
+      try {
+         repairTrend(esql, hotelID, new RowPrinter());
+      }
+      catch (Exception e) {
+         System.err.println(e.getMessage());
+      }
+   }//end repairTrend
+
+   /**
+    * Lists the number of repairs per year of all rooms of a hotel, or of
+    * all hotels.
+    *
+    * @param hotelID the hotel, or null for all hotels
+    * @return the number of years listed
+    */
+   public static int repairTrend(DBProject esql, Integer hotelID, ReportWriter out) throws SQLException {
+      if (esql._repairHistory != null) {
+         return printYears(hotelID == null ? esql._repairHistory.fleet()
+            : esql._repairHistory.hotel(hotelID.intValue()), out);
+      }//end if
+      if (hotelID == null) {
+         return esql.cachedQuery(ResultCache.REPAIRS, ResultCache.ANY_HOTEL, ResultCache.FIRST_DAY,
+            ResultCache.LAST_DAY, Queries.REPAIRS_PER_YEAR_ALL_HOTELS).render(out);
+      }//end if
+      return esql.cachedQuery(ResultCache.REPAIRS, hotelID.intValue(), ResultCache.FIRST_DAY, ResultCache.LAST_DAY,
+         Queries.REPAIRS_PER_YEAR_FOR_A_HOTEL, hotelID).render(out);
+   }//end repairTrend
+
+   // writes {repairs, year} pairs of the repair history like the per year queries
+   private static int printYears(List<long[]> years, ReportWriter out) {
+      if (!years.isEmpty()) {
+         out.header(new String[] { "count", "year" });
+      }//end if
+      for (long[] year : years) {
+         out.row(new Object[] { Long.valueOf(year[0]), Long.valueOf(year[1]) });
+      }//end for
+      return years.size();
+   }//end printYears
+
+   public static void hotelOccupancy(DBProject esql){
+      // Given a hotelID, get the count of available and of booked rooms
+      String temp;
+      int hotelID = 0;
+
+      do {
+         System.out.println("Input the hotel ID.");
+         try {
+            temp = in.readLine();
+            if (temp.length() <= 0) {
+               throw new RuntimeException("Hotel ID cannot be empty.");
+            }
+            hotelID = Integer.parseInt(temp);
+            break;
+         }
+         catch (Exception e) {
+            System.out.println("Invalid input!");
+            continue;
+         }
+      }while(true);
+
+      try {
+         long[] counts = hotelOccupancy(esql, hotelID);
+         System.out.println("There are " + counts[0] + " available rooms and " + counts[1]
+            + " booked rooms in the hotel with ID " + hotelID);
+      }
+      catch (Exception e) {
+         System.err.println(e.getMessage());
+      }
+   }//end hotelOccupancy
+
+   /**
+    * Returns the number of available and of booked rooms of a hotel, see
+    * numberOfAvailableRooms and numberOfBookedRooms.  Both counts are
+    * queried at the same time.
+    *
+    * @return {available, booked}
+    */
+   public static long[] hotelOccupancy(final DBProject esql, final int hotelID) throws SQLException {
+      Future<Long> booked = esql.alongside(new Callable<Long>() {
+         public Long call() throws SQLException {
+            return numberOfBookedRooms(esql, hotelID);
+         }
+      });
+      long available = numberOfAvailableRooms(esql, hotelID);
+      return new long[] { available, await(booked).longValue() };
+   }//end hotelOccupancy
+
+   public static void customerSummary(DBProject esql){
+      // Given a hotelID, customer Name, date range and k get the top k bookings and the total cost
+      String temp;
+      int hotelID;
+      String fName;
+      String lName;
+      Date start;
+      Date end;
+      int k;
+      SimpleDateFormat formatter1=new SimpleDateFormat("MM/dd/yy");
+
+      do {
+         System.out.println("Input the hotel ID.");
+         try {
+            temp = in.readLine();
+            if (temp.length() <= 0) {
+               throw new RuntimeException("Hotel ID cannot be empty.");
+            }
+            hotelID = Integer.parseInt(temp);
+            break;
+         }
+         catch (Exception e) {
+            System.out.println("Invalid input!");
+            continue;
+         }
+      }while(true);
+
+      do {
+         System.out.println("Input the customer's first name.");
+         try{
+            temp = in.readLine();
+            if (temp.length() <= 0) {
+               throw new RuntimeException("First name cannot be blank");
+            }
+            if (temp.length() > 30) {
+               throw new RuntimeException("First name must be less than 30 characters.");
+            }
+            fName = temp;
+            break;
+         }
+         catch (Exception e) {
+            System.out.println("Invalid input!");
+            continue;
+         }
+      }while(true);
+
+      do {
+         System.out.println("Input the customer's last name.");
+         try{
+            temp = in.readLine();
+            if (temp.length() <= 0) {
+               throw new RuntimeException("Last name cannot be blank");
+            }
+            if (temp.length() > 30) {
+               throw new RuntimeException("Last name must be less than 30 characters.");
+            }
+            lName = temp;
+            break;
+         }
+         catch (Exception e) {
+            System.out.println("Invalid input!");
+            continue;
+         }
+      }while(true);
+
+      do {
+         System.out.println("Input the start date. (MM/DD/YY)");
+         try {
+            temp = in.readLine();
+            if (temp.length() <= 0) {
+               throw new RuntimeException("Start date cannot be empty.");
+            }
+            start = formatter1.parse(temp);
+            break;
+         }
+         catch  (Exception e) {
+            System.out.println("Invalid input!");
+            continue;
+         }
+      }while(true);
+
+      do {
+         System.out.println("Input the end date. (MM/DD/YY)");
+         try {
+            temp = in.readLine();
+            if (temp.length() <= 0) {
+               throw new RuntimeException("End date cannot be empty.");
+            }
+            if (start.after(formatter1.parse(temp))) {
+               throw new RuntimeException("End date cannot be before start date.");
+            }
+            end = formatter1.parse(temp);
+            break;
+         }
+         catch  (Exception e) {
+            System.out.println("Invalid input!");
+            continue;
+         }
+      }while(true);
+
+      do {
+         System.out.println("Input the amount of results you want to see");
+         try {
+            temp = in.readLine();
+            if (temp.length() <= 0) {
+               throw new RuntimeException("Amount of results cannot be empty.");
+            }
+            if (Integer.parseInt(temp) <= 0) {
+               throw new RuntimeException("Amount of results cannot be 0 or less than 0");
+            }
+            k = Integer.parseInt(temp);
+            break;
+         }
+         catch (Exception e) {
+            System.out.println("Invalid input!");
+            continue;
+         }
+      }while(true);
+
+      try {
+         customerSummary(esql, hotelID, fName, lName, start, end, k, new RowPrinter());
+      }
+      catch (Exception e) {
+         System.err.println(e.getMessage());
+      }
+   }//end customerSummary
+
+   /**
+    * Lists the k highest booking prices of a customer, then the total the
+    * customer spent in a hotel between two dates, see
+    * topKHighestPriceBookingsForACustomer and totalCostForCustomer.  Both
+    * queries run at the same time.
+    *
+    * @return the number of rows listed, the total being the last one
+    */
+   public static int customerSummary(final DBProject esql, int hotelID, String fName, String lName, Date start,
+                                     Date end, int k, ReportWriter out) throws SQLException {
+      int[] customers = esql._customerNames.resolve(fName, lName);
+      if (customers.length == 0) {
+         return totalCostForCustomer(esql, hotelID, fName, lName, start, end, out);
+      }//end if
+      final int[] ids = customers;
+      final int hotel = hotelID;
+      final Date from = start;
+      final Date to = end;
+      Future<ResultTable> total = esql.alongside(new Callable<ResultTable>() {
+         public ResultTable call() throws SQLException {
+            return esql.cachedQuery(ResultCache.BOOKINGS, hotel, toEpochDay(from), toEpochDay(to),
+               Queries.forCustomers(Queries.CUSTOMER_TOTAL_COST, ids.length),
+               customerParams(ids, hotel, from, to));
+         }
+      });
+      ResultTable top = esql.cachedQuery(ResultCache.BOOKINGS, ResultCache.ANY_HOTEL, ResultCache.FIRST_DAY,
+         ResultCache.LAST_DAY, Queries.forCustomers(Queries.TOP_K_CUSTOMER_BOOKINGS, customers.length),
+         customerParams(customers, k));
+      ResultTable cost = await(total);
+      return top.render(out) + cost.render(out);
+   }//end customerSummary
+
+}//end DBProject
@@ -0,0 +1,524 @@
+/*
+ * Data generator for DBProject
+ * ============================
+ *
+ * Target DBMS: 'Postgres'
+ *
+ */
+
+
+import java.io.BufferedWriter;
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.io.OutputStreamWriter;
+import java.io.Writer;
+import java.nio.channels.FileChannel;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Writes the nine data/*.csv files at any scale, in the format create.sql
+ * loads.  At scale 1 the row counts are those of the shipped data: 1000
+ * hotels with 10 rooms and 5 staff each, 2000 customers, 20 maintenance
+ * companies, 4000 bookings and 2000 repairs, requests and assignments.
+ *
+ * Every value is a hash of the seed, the table, the row and the field, so
+ * any chunk of any table can be written on its own, in parallel, without
+ * remembering other rows, and the same seed always gives the same files.
+ * References are computed the same way: the staff of hotel h are SSNs
+ * 5(h-1)+1 to 5h, the first the manager and the third and fifth the house
+ * cleaning staff, as in the shipped data, and a request names the manager
+ * of the hotel its repair was made in.
+ *
+ * Bookings are skewed like real traffic: hotels and customers are drawn
+ * from Zipf distributions (a few hot hotels and frequent guests), over
+ * scattered IDs, and booking days follow a summer and a year end peak.
+ * A room is booked at most once a day, as the unique index on Booking
+ * requires, by construction: the booking IDs are cut into one run per
+ * hotel, as long as its Zipf share, and the k-th booking of a hotel takes
+ * room k mod 10 on the (k / 10)-th day of that room's own order of days.
+ * A room's order starts on a seasonal day and steps a year at a time, so
+ * its bookings keep to their season; a room booked on every day of 2010 to
+ * 2018 goes on past 2018.
+ *
+ * Usage: java DataGenerator <directory> <scale> [threads]
+ *
+ */
+public class DataGenerator {
+
+   // one csv file
+   private abstract class Table {
+      final String file;
+      final long rows;
+
+      Table (String file, long rows) {
+         this.file = file;
+         this.rows = rows;
+      }
+
+      // the default row 0 every table starts with
+      abstract void defaultRow (StringBuilder line);
+
+      abstract void row (long id, StringBuilder line);
+   }//end Table
+
+   private static final String[] ROOM_TYPES = { "Economy", "Suite", "Deluxe" };
+   private static final String[] REPAIR_TYPES = { "Small", "Medium", "Large" };
+   private static final String[] GENDERS = { "Male", "Female", "Other" };
+   private static final String[] ROLES = { "Manager", "Receptionist", "HouseCleaning", "Receptionist",
+      "HouseCleaning" };
+
+   // table numbers, part of every hash
+   private static final int HOTEL = 1, STAFF = 2, ROOM = 3, CUSTOMER = 4, COMPANY = 5, BOOKING = 6,
+      REPAIR = 7, REQUEST = 8, ASSIGNED = 9;
+
+   private static final int ROOMS_PER_HOTEL = 10;
+   private static final int STAFF_PER_HOTEL = 5;
+
+   private final long _seed;
+   private final double _zipf;
+   private final long _hotels;
+   private final long _customers;
+   private final long _companies;
+   private final long _repairs;
+   private final long _bookings;
+
+   // steps that scatter Zipf ranks over the IDs, coprime to the ID counts
+   private final long _hotelStep;
+   private final long _customerStep;
+   private final long _bookingStep;
+
+   // the booking days are 2010 to 2018, a room stepping through them a year at a time
+   private final int _firstDay = day(2010, 0);
+   private final int _days = day(2019, 0) - day(2010, 0);
+   private final long _dayStep = coprimeStep(365, this._days);
+
+   private final AtomicLong _written = new AtomicLong();
+
+   /**
+    * Creates a generator.
+    *
+    * @param scale 1 for the size of the shipped data
+    * @param seed the seed all values are derived from
+    * @param zipf the Zipf exponent of the hotel and customer skew
+    */
+   public DataGenerator (double scale, long seed, double zipf) {
+      this._seed = seed;
+      this._zipf = zipf;
+      this._hotels = Math.max(1, Math.round(1000 * scale));
+      this._customers = Math.max(1, Math.round(2000 * scale));
+      this._companies = Math.max(1, Math.round(20 * scale));
+      this._repairs = Math.max(1, Math.round(2000 * scale));
+      this._bookings = Math.max(1, Math.round(4000 * scale));
+      this._hotelStep = coprimeStep(2654435761L, this._hotels);
+      this._customerStep = coprimeStep(2654435761L, this._customers);
+      this._bookingStep = coprimeStep(2654435761L, this._bookings);
+   }//end DataGenerator
+
+   /**
+    * Returns the tables, in the order create.sql loads them.
+    */
+   private List<Table> tables (double scale) {
+      List<Table> tables = new ArrayList<Table>();
+      tables.add(new Table("hotel.csv", this._hotels) {
+         void defaultRow (StringBuilder line) {
+            line.append("0,default,\\N");
+         }
+
+         void row (long id, StringBuilder line) {
+            // the manager is set by create.sql from the staff roles
+            line.append(id).append(',').append(word(HOTEL, id, 0)).append(",\\N");
+         }
+      });
+      tables.add(new Table("staff.csv", this._hotels * STAFF_PER_HOTEL) {
+         void defaultRow (StringBuilder line) {
+            line.append("0,default,default,default,Manager,0");
+         }
+
+         void row (long id, StringBuilder line) {
+            line.append(id).append(',').append(word(STAFF, id, 0)).append(',').append(word(STAFF, id, 1))
+               .append(',').append(word(STAFF, id, 2)).append(',').append(ROLES[(int) ((id - 1) % STAFF_PER_HOTEL)])
+               .append(',').append((id - 1) / STAFF_PER_HOTEL + 1);
+         }
+      });
+      tables.add(new Table("room.csv", this._hotels * ROOMS_PER_HOTEL) {
+         void defaultRow (StringBuilder line) {
+            line.append("0,0,default");
+         }
+
+         void row (long id, StringBuilder line) {
+            long hotel = (id - 1) / ROOMS_PER_HOTEL + 1;
+            long roomNo = (id - 1) % ROOMS_PER_HOTEL + 1;
+            line.append(hotel).append(',').append(roomNo).append(',').append(ROOM_TYPES[roomType(hotel, roomNo)]);
+         }
+      });
+      tables.add(new Table("customer.csv", this._customers) {
+         void defaultRow (StringBuilder line) {
+            line.append("0,default,default,default,0,1/1/2000,Male");
+         }
+
+         void row (long id, StringBuilder line) {
+            line.append(id).append(',').append(word(CUSTOMER, id, 0)).append(',').append(word(CUSTOMER, id, 1))
+               .append(',').append(word(CUSTOMER, id, 2)).append(',')
+               .append(1000000000L + (long) (uniform(CUSTOMER, id, 3) * 9000000000L)).append(',');
+            date(line, day(1900, 0) + (int) (uniform(CUSTOMER, id, 4) * 36524));
+            line.append(',').append(GENDERS[(int) (uniform(CUSTOMER, id, 5) * GENDERS.length)]);
+         }
+      });
+      tables.add(new Table("maintenanceCompany.csv", this._companies) {
+         void defaultRow (StringBuilder line) {
+            line.append("0,default,default,TRUE");
+         }
+
+         void row (long id, StringBuilder line) {
+            line.append(id).append(',').append(word(COMPANY, id, 0)).append(',').append(word(COMPANY, id, 1))
+               .append(',').append(uniform(COMPANY, id, 2) < 0.9 ? "TRUE" : "FALSE");
+         }
+      });
+      tables.add(new Table("booking.csv", this._bookings) {
+         void defaultRow (StringBuilder line) {
+            line.append("0,0,0,0,1/1/2000,0,0");
+         }
+
+         void row (long id, StringBuilder line) {
+            long[] slot = bookingSlot(id);
+            long hotel = slot[0];
+            long roomNo = slot[1];
+            int day = (int) slot[2];
+            long customer = skewed(BOOKING, id, 2, _customers, _customerStep);
+            line.append(id).append(',').append(customer).append(',').append(hotel).append(',').append(roomNo)
+               .append(',');
+            date(line, day);
+            line.append(',').append(1 + (int) (uniform(BOOKING, id, 4) * 3)).append(',')
+               .append(price(roomType(hotel, roomNo), day, uniform(BOOKING, id, 5)));
+         }
+      });
+      tables.add(new Table("repair.csv", this._repairs) {
+         void defaultRow (StringBuilder line) {
+            line.append("0,0,0,0,1/1/2000,default,Small");
+         }
+
+         void row (long id, StringBuilder line) {
+            line.append(id).append(',').append(repairHotel(id)).append(',')
+               .append(1 + (long) (uniform(REPAIR, id, 1) * ROOMS_PER_HOTEL)).append(',')
+               .append(1 + (long) (uniform(REPAIR, id, 2) * _companies)).append(',');
+            date(line, repairDay(id));
+            line.append(',').append(word(REPAIR, id, 3)).append(',')
+               .append(REPAIR_TYPES[(int) (uniform(REPAIR, id, 4) * REPAIR_TYPES.length)]);
+         }
+      });
+      tables.add(new Table("request.csv", Math.max(1, Math.round(2000 * scale))) {
+         void defaultRow (StringBuilder line) {
+            line.append("0,0,0,1/1/2000,default");
+         }
+
+         void row (long id, StringBuilder line) {
+            long repair = 1 + (long) (uniform(REQUEST, id, 0) * _repairs);
+            long manager = (repairHotel(repair) - 1) * STAFF_PER_HOTEL + 1;
+            line.append(id).append(',').append(manager).append(',').append(repair).append(',');
+            // asked for up to a month before the repair
+            date(line, repairDay(repair) - (int) (uniform(REQUEST, id, 1) * 30));
+            line.append(',').append(word(REQUEST, id, 2));
+         }
+      });
+      tables.add(new Table("assigned.csv", Math.max(1, Math.round(2000 * scale))) {
+         void defaultRow (StringBuilder line) {
+            line.append("0,0,0,0");
+         }
+
+         void row (long id, StringBuilder line) {
+            long hotel = 1 + (long) (uniform(ASSIGNED, id, 0) * _hotels);
+            // the third or the fifth staff member of the hotel
+            long cleaner = (hotel - 1) * STAFF_PER_HOTEL + (uniform(ASSIGNED, id, 1) < 0.5 ? 3 : 5);
+            line.append(id).append(',').append(cleaner).append(',').append(hotel).append(',')
+               .append(1 + (long) (uniform(ASSIGNED, id, 2) * ROOMS_PER_HOTEL));
+         }
+      });
+      return tables;
+   }//end tables
+
+   /**
+    * Writes all files.
+    *
+    * @param dir the directory to write to
+    * @param scale 1 for the size of the shipped data
+    * @param threads the number of chunks written at once
+    * @param chunkRows the rows per chunk
+    * @throws Exception when a file could not be written
+    */
+   public void generate (File dir, double scale, int threads, final long chunkRows) throws Exception {
+      final File parts = new File(dir, ".parts");
+      if (!parts.isDirectory() && !parts.mkdirs()) {
+         throw new IOException("Cannot create " + parts);
+      }//end if
+      List<Table> tables = tables(scale);
+      ExecutorService pool = Executors.newFixedThreadPool(threads);
+      try {
+         List<List<Future<File>>> chunks = new ArrayList<List<Future<File>>>();
+         long total = 0;
+         for (final Table table : tables) {
+            List<Future<File>> futures = new ArrayList<Future<File>>();
+            // row 0 is the default row, 1 .. rows are generated
+            for (long first = 0; first <= table.rows; first += chunkRows) {
+               final long from = first;
+               final long to = Math.min(first + chunkRows, table.rows + 1);
+               futures.add(pool.submit(new java.util.concurrent.Callable<File>() {
+                  public File call () throws IOException {
+                     return writeChunk(table, from, to, new File(parts, table.file + "." + from));
+                  }
+               }));
+            }//end for
+            chunks.add(futures);
+            total += table.rows + 1;
+         }//end for
+
+         long start = System.nanoTime();
+         for (int t = 0; t < tables.size(); ++t) {
+            File out = new File(dir, tables.get(t).file);
+            FileChannel target = new FileOutputStream(out).getChannel();
+            try {
+               // chunks are appended in order as they complete
+               for (Future<File> chunk : chunks.get(t)) {
+                  File part = chunk.get();
+                  FileChannel source = new FileInputStream(part).getChannel();
+                  try {
+                     long size = source.size();
+                     for (long pos = 0; pos < size; ) {
+                        pos += source.transferTo(pos, size - pos, target);
+                     }//end for
+                  } finally {
+                     source.close();
+                  }//end try
+                  part.delete();
+               }//end for
+            } finally {
+               target.close();
+            }//end try
+            long seconds = Math.max(1, (System.nanoTime() - start) / 1000000000L);
+            System.err.println(String.format("%s: %d rows, %d of %d rows written, %d rows/s",
+               tables.get(t).file, tables.get(t).rows + 1, this._written.get(), total,
+               this._written.get() / seconds));
+         }//end for
+      } finally {
+         pool.shutdownNow();
+         parts.delete();
+      }//end try
+   }//end generate
+
+   private File writeChunk (Table table, long from, long to, File part) throws IOException {
+      Writer out = new BufferedWriter(new OutputStreamWriter(new FileOutputStream(part), "US-ASCII"), 1 << 20);
+      try {
+         StringBuilder line = new StringBuilder(128);
+         for (long id = from; id < to; ++id) {
+            line.setLength(0);
+            if (id == 0) {
+               table.defaultRow(line);
+            } else {
+               table.row(id, line);
+            }//end if
+            line.append('\n');
+            out.append(line);
+         }//end for
+      } finally {
+         out.close();
+      }//end try
+      this._written.addAndGet(to - from);
+      return part;
+   }//end writeChunk
+
+   /**
+    * Returns the hotel, room number and day of a booking.  The IDs are
+    * scattered over the hotel runs, the runs laid out in Zipf rank order,
+    * so the place k of a booking in its hotel's run is all that is needed
+    * to give it a room day no other booking has.
+    */
+   private long[] bookingSlot (long id) {
+      long i = 1 + (id - 1) * this._bookingStep % this._bookings;
+      long rank = bookingRank(i);
+      // the start of the run, from the inverse of the rank's share, then exact
+      double a = 1 - this._zipf;
+      double share = Math.abs(a) < 1e-9 ? Math.log(rank) / Math.log(this._hotels + 1.0)
+         : (Math.pow(rank, a) - 1) / (Math.pow(this._hotels + 1.0, a) - 1);
+      long first = Math.max(1, Math.min(i, (long) Math.ceil(share * this._bookings + 0.5)));
+      while (first > 1 && bookingRank(first - 1) >= rank) {
+         --first;
+      }//end while
+      while (bookingRank(first) < rank) {
+         ++first;
+      }//end while
+      long k = i - first;
+      long hotel = 1 + (rank - 1) * this._hotelStep % this._hotels;
+      long roomNo = 1 + (k + (long) (uniform(HOTEL, hotel, 1) * ROOMS_PER_HOTEL)) % ROOMS_PER_HOTEL;
+      long nth = k / ROOMS_PER_HOTEL;
+      long start = seasonalDay(ROOM, hotel * ROOMS_PER_HOTEL + roomNo, 1) - this._firstDay;
+      long day = nth < this._days ? (start + nth * this._dayStep) % this._days : nth;
+      return new long[] { hotel, roomNo, this._firstDay + day };
+   }//end bookingSlot
+
+   // the Zipf rank of the hotel of the i-th of the evenly spread booking quantiles
+   private long bookingRank (long i) {
+      return zipfRank((i - 0.5) / this._bookings, this._hotels);
+   }//end bookingRank
+
+   // the hotel of a repair, also needed for its request
+   private long repairHotel (long rID) {
+      return 1 + (long) (uniform(REPAIR, rID, 0) * this._hotels);
+   }//end repairHotel
+
+   private int repairDay (long rID) {
+      return day(2005, 0) + (int) (uniform(REPAIR, rID, 5) * (day(2019, 0) - day(2005, 0)));
+   }//end repairDay
+
+   private int roomType (long hotel, long roomNo) {
+      double u = uniform(ROOM, hotel * ROOMS_PER_HOTEL + roomNo, 0);
+      // half economy, 30% suites, 20% deluxe, like the shipped rooms
+      return u < 0.5 ? 0 : (u < 0.8 ? 1 : 2);
+   }//end roomType
+
+   // a price up to 1999, by room type, higher in the peak seasons
+   private static String price (int roomType, int day, double u) {
+      int[] low = { 100, 600, 1000 };
+      int[] high = { 800, 1500, 1999 };
+      double seasonal = season(dayOfYear(day)) / 1.9;
+      int price = low[roomType] + (int) ((high[roomType] - low[roomType]) * (0.6 * u + 0.4 * seasonal));
+      return String.valueOf(Math.min(price, 1999));
+   }//end price
+
+   // a Zipf distributed rank, scattered over the IDs 1 .. n
+   private long skewed (int table, long row, int field, long n, long step) {
+      long rank = zipfRank(uniform(table, row, field), n);
+      return 1 + (rank - 1) * step % n;
+   }//end skewed
+
+   // the Zipf rank 1 .. n at the quantile u
+   private long zipfRank (double u, long n) {
+      double a = 1 - this._zipf;
+      double r = Math.abs(a) < 1e-9 ? Math.exp(u * Math.log(n + 1.0))
+         : Math.pow(u * (Math.pow(n + 1.0, a) - 1) + 1, 1 / a);
+      return Math.max(1, Math.min(n, (long) r));
+   }//end zipfRank
+
+   // a day between 2010 and 2018, more often in summer and at the end of the year
+   private int seasonalDay (int table, long row, int field) {
+      int first = day(2010, 0);
+      int span = day(2019, 0) - first;
+      int day = first;
+      for (int attempt = 0; attempt < 16; ++attempt) {
+         day = first + (int) (uniform(table, row, field + 16 * attempt) * span);
+         if (uniform(table, row, field + 16 * attempt + 8) * 1.9 < season(dayOfYear(day))) {
+            break;
+         }//end if
+      }//end for
+      return day;
+   }//end seasonalDay
+
+   // relative booking weight of a day of the year, between 0.5 and 1.9
+   private static double season (int dayOfYear) {
+      double summer = 0.5 * Math.cos(2 * Math.PI * (dayOfYear - 196) / 365.0);
+      double holidays = 0.4 * Math.exp(-Math.pow((dayOfYear - 355) / 7.0, 2));
+      return 1 + summer + holidays;
+   }//end season
+
+   private String word (int table, long row, int field) {
+      long h = hash(table, row, 64 + field);
+      char[] c = new char[4 + (int) ((h >>> 60) & 3)];
+      for (int i = 0; i < c.length; ++i) {
+         c[i] = (char) ('a' + (int) (((h >>> (5 * i)) & 0x1f) % 26));
+      }//end for
+      return new String(c);
+   }//end word
+
+   // a uniform value in [0, 1)
+   private double uniform (int table, long row, int field) {
+      return (hash(table, row, field) >>> 11) * 0x1.0p-53;
+   }//end uniform
+
+   private long hash (int table, long row, int field) {
+      long z = this._seed + table * 0x9E3779B97F4A7C15L + row * 0xBF58476D1CE4E5B9L + field * 0x94D049BB133111EBL;
+      z = (z ^ (z >>> 30)) * 0xBF58476D1CE4E5B9L;
+      z = (z ^ (z >>> 27)) * 0x94D049BB133111EBL;
+      return z ^ (z >>> 31);
+   }//end hash
+
+   private static long coprimeStep (long start, long n) {
+      long step = start % n;
+      while (step == 0 || gcd(step, n) != 1) {
+         step = (step + 1) % n;
+      }//end while
+      return step;
+   }//end coprimeStep
+
+   private static long gcd (long a, long b) {
+      while (b != 0) {
+         long t = a % b;
+         a = b;
+         b = t;
+      }//end while
+      return a;
+   }//end gcd
+
+   // epoch day of January 1st of a year plus some days
+   private static int day (int year, int plus) {
+      long y = year - 1;
+      return (int) (365 * y + y / 4 - y / 100 + y / 400 - 719162) + plus;
+   }//end day
+
+   private static int dayOfYear (int epochDay) {
+      int[] ymd = civil(epochDay);
+      return epochDay - day(ymd[0], 0);
+   }//end dayOfYear
+
+   // appends an epoch day as M/d/yyyy
+   private static void date (StringBuilder line, int epochDay) {
+      int[] ymd = civil(epochDay);
+      line.append(ymd[1]).append('/').append(ymd[2]).append('/').append(ymd[0]);
+   }//end date
+
+   // year, month, day of an epoch day, proleptic Gregorian
+   private static int[] civil (int epochDay) {
+      long z = epochDay + 719468L;
+      long era = (z >= 0 ? z : z - 146096) / 146097;
+      long doe = z - era * 146097;
+      long yoe = (doe - doe / 1460 + doe / 36524 - doe / 146096) / 365;
+      long doy = doe - (365 * yoe + yoe / 4 - yoe / 100);
+      long mp = (5 * doy + 2) / 153;
+      long d = doy - (153 * mp + 2) / 5 + 1;
+      long m = mp < 10 ? mp + 3 : mp - 9;
+      long y = yoe + era * 400 + (m <= 2 ? 1 : 0);
+      return new int[] { (int) y, (int) m, (int) d };
+   }//end civil
+
+   /**
+    * Generates the files.  Options: gen.seed (1), gen.zipf (0.99) and
+    * gen.chunkRows (1000000).
+    *
+    * @param args the directory, the scale and optionally the number of threads
+    */
+   public static void main (String[] args) {
+      if (args.length < 2 || args.length > 3) {
+         System.err.println("Usage: java [-Dgen.seed=N ...] DataGenerator <directory> <scale> [threads]");
+         return;
+      }//end if
+      try {
+         File dir = new File(args[0]);
+         if (!dir.isDirectory() && !dir.mkdirs()) {
+            throw new IOException("Cannot create " + dir);
+         }//end if
+         double scale = Double.parseDouble(args[1]);
+         int threads = args.length == 3 ? Integer.parseInt(args[2]) : Runtime.getRuntime().availableProcessors();
+         DataGenerator generator = new DataGenerator(scale, Long.getLong("gen.seed", 1L).longValue(),
+            Double.parseDouble(System.getProperty("gen.zipf", "0.99")));
+         generator.generate(dir, scale, threads, Long.getLong("gen.chunkRows", 1000000L).longValue());
+      }catch (Exception e){
+         System.err.println(e.getMessage());
+         System.exit(1);
+      }//end try
+   }//end main
+
+}//end DataGenerator
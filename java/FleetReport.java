@@ -0,0 +1,237 @@
+/*
+ * Fleet report for DBProject
+ * ==========================
+ *
+ * Target DBMS: 'Postgres'
+ *
+ */
+
+
+import java.io.BufferedWriter;
+import java.io.File;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.io.OutputStreamWriter;
+import java.io.PrintWriter;
+import java.sql.SQLException;
+import java.util.ArrayList;
+import java.util.Date;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.Callable;
+import java.util.concurrent.FutureTask;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * Writes occupancy, revenue and repairs of every hotel for a date range to
+ * a tab separated file, one line per hotel in hotelID order.
+ *
+ * The hotels are split into hotelID ranges and each range is three GROUP BY
+ * queries (rooms, bookings, repairs) instead of one query per hotel and
+ * report.  The ranges are shared out to several workers, each on its own
+ * connection, and written in order as soon as all ranges before them are
+ * done, so the file grows while the later ranges still run.
+ *
+ * All workers read the same snapshot: the calling thread opens a repeatable
+ * read transaction and exports its snapshot with pg_export_snapshot(), the
+ * workers import it with SET TRANSACTION SNAPSHOT, so the report is
+ * consistent even while bookings are made.  Servers before 9.2 cannot export
+ * snapshots, there the calling thread runs every range itself in one
+ * serializable transaction.
+ *
+ */
+public class FleetReport {
+
+   // the rows of one hotelID range, run by whichever worker takes it
+   private static class Chunk extends FutureTask<List<long[]>> {
+      Chunk (Callable<List<long[]>> work) {
+         super(work);
+      }
+
+      void fail (Throwable cause) {
+         setException(cause);
+      }
+   }//end Chunk
+
+   private final DBProject _esql;
+   private final int _threads;
+   private final int _hotelsPerChunk;
+
+   /**
+    * Creates a report.
+    *
+    * @param esql the database
+    * @param threads the number of workers, each holding a pooled connection
+    * @param hotelsPerChunk the size of the hotelID ranges
+    */
+   public FleetReport (DBProject esql, int threads, int hotelsPerChunk) {
+      this._esql = esql;
+      this._threads = Math.max(1, threads);
+      this._hotelsPerChunk = Math.max(1, hotelsPerChunk);
+   }//end FleetReport
+
+   /**
+    * Writes the report of the days from start to end, both included.
+    *
+    * @param file the report file, replaced
+    * @return the number of hotels written
+    * @throws java.sql.SQLException when a query failed
+    * @throws java.io.IOException when the file could not be written
+    */
+   public int write (File file, Date start, Date end) throws SQLException, IOException {
+      long days = DBProject.toEpochDay(end) - DBProject.toEpochDay(start) + 1;
+      if (days <= 0) {
+         throw new IllegalArgumentException("End date cannot be before start date.");
+      }//end if
+      this._esql.begin(false);
+      try {
+         return write(file, start, end, days);
+      } finally {
+         this._esql.rollback();
+      }//end try
+   }//end write
+
+   // runs in the transaction of the calling thread
+   private int write (File file, Date start, Date end, long days) throws SQLException, IOException {
+      String snapshot = exportSnapshot();
+      PrintWriter w = new PrintWriter(new BufferedWriter(new OutputStreamWriter(new FileOutputStream(file),
+         "UTF-8")));
+      AtomicInteger next = new AtomicInteger();
+      Chunk[] chunks = new Chunk[0];
+      try {
+         w.println("hotelID\trooms\tbookedRooms\tbookings\toccupancy\trevenue\trepairs");
+         ResultTable range = this._esql.query(Queries.FLEET_HOTEL_RANGE);
+         if (range.rowCount() == 0 || range.isNull(0, 0)) {
+            return 0;
+         }//end if
+         chunks = chunks((long) range.getDouble(0, 0), (long) range.getDouble(0, 1), start, end);
+         boolean parallel = snapshot != null && this._threads > 1 && chunks.length > 1;
+         if (parallel) {
+            startWorkers(snapshot, chunks, next);
+         }//end if
+         int hotels = 0;
+         for (int i = 0; i < chunks.length; ++i) {
+            if (!parallel) {
+               chunks[i].run();
+            }//end if
+            for (long[] hotel : DBProject.await(chunks[i])) {
+               w.println(hotel[0] + "\t" + hotel[1] + "\t" + hotel[2] + "\t" + hotel[3] + "\t"
+                  + String.format("%.4f", hotel[1] == 0 ? 0.0 : hotel[3] / (double) (hotel[1] * days)) + "\t"
+                  + String.format("%.2f", hotel[4] / 100.0) + "\t" + hotel[5]);
+               ++hotels;
+            }//end for
+         }//end for
+         return hotels;
+      } finally {
+         // workers still running stop taking ranges
+         next.set(chunks.length);
+         w.close();
+         if (w.checkError()) {
+            throw new IOException("Unable to write " + file);
+         }//end if
+      }//end try
+   }//end write
+
+   /**
+    * Starts the repeatable read transaction of the calling thread and
+    * returns its exported snapshot, or null when the server cannot export
+    * one, the transaction then being serializable.
+    */
+   private String exportSnapshot () throws SQLException {
+      try {
+         this._esql.executeUpdate("SET TRANSACTION ISOLATION LEVEL REPEATABLE READ");
+         String snapshot = this._esql.query("SELECT pg_export_snapshot()").getString(0, 0);
+         if (snapshot != null && snapshot.matches("[0-9A-Fa-f-]+")) {
+            return snapshot;
+         }//end if
+      }catch (SQLException e){
+         // servers before 9.2
+      }//end try
+      this._esql.rollback();
+      this._esql.begin(false);
+      this._esql.executeUpdate("SET TRANSACTION ISOLATION LEVEL SERIALIZABLE");
+      return null;
+   }//end exportSnapshot
+
+   private Chunk[] chunks (long first, long last, final Date start, final Date end) {
+      List<Chunk> chunks = new ArrayList<Chunk>();
+      for (long lo = first; lo <= last; lo += this._hotelsPerChunk) {
+         final long from = lo;
+         final long to = Math.min(last, lo + this._hotelsPerChunk - 1);
+         chunks.add(new Chunk(new Callable<List<long[]>>() {
+            public List<long[]> call () throws SQLException {
+               return hotels(from, to, start, end);
+            }
+         }));
+      }//end for
+      return chunks.toArray(new Chunk[chunks.size()]);
+   }//end chunks
+
+   private void startWorkers (final String snapshot, final Chunk[] chunks, final AtomicInteger next) {
+      int workers = Math.min(this._threads, chunks.length);
+      for (int t = 0; t < workers; ++t) {
+         this._esql.submit(new Callable<Void>() {
+            public Void call () {
+               work(snapshot, chunks, next);
+               return null;
+            }
+         });
+      }//end for
+   }//end startWorkers
+
+   // runs ranges in the exported snapshot until none is left
+   private void work (String snapshot, Chunk[] chunks, AtomicInteger next) {
+      Exception failed = null;
+      try {
+         this._esql.begin(false);
+         this._esql.executeUpdate("SET TRANSACTION ISOLATION LEVEL REPEATABLE READ");
+         this._esql.executeUpdate("SET TRANSACTION SNAPSHOT '" + snapshot + "'");
+      }catch (Exception e){
+         // the ranges this worker takes fail, so the writer does not wait for them
+         failed = e;
+      }//end try
+      try {
+         for (int i = next.getAndIncrement(); i < chunks.length; i = next.getAndIncrement()) {
+            if (failed != null) {
+               chunks[i].fail(failed);
+            } else {
+               chunks[i].run();
+            }//end if
+         }//end for
+      } finally {
+         this._esql.rollback();
+      }//end try
+   }//end work
+
+   /**
+    * Returns {hotelID, rooms, bookedRooms, bookings, revenue in cents,
+    * repairs} of the hotels of a hotelID range, in hotelID order.
+    */
+   private List<long[]> hotels (long from, long to, Date start, Date end) throws SQLException {
+      Map<Long, long[]> hotels = new LinkedHashMap<Long, long[]>();
+      ResultTable rooms = this._esql.query(Queries.FLEET_ROOMS, from, to);
+      for (int r = 0; r < rooms.rowCount(); ++r) {
+         long hotelID = (long) rooms.getDouble(r, 0);
+         hotels.put(hotelID, new long[] { hotelID, rooms.getLong(r, 1), 0, 0, 0, 0 });
+      }//end for
+      ResultTable bookings = this._esql.query(Queries.FLEET_BOOKINGS, from, to, start, end);
+      for (int r = 0; r < bookings.rowCount(); ++r) {
+         long[] hotel = hotels.get((long) bookings.getDouble(r, 0));
+         if (hotel != null) {
+            hotel[2] = bookings.getLong(r, 1);
+            hotel[3] = bookings.getLong(r, 2);
+            hotel[4] = Math.round(bookings.getDouble(r, 3) * 100);
+         }//end if
+      }//end for
+      ResultTable repairs = this._esql.query(Queries.FLEET_REPAIRS, from, to, start, end);
+      for (int r = 0; r < repairs.rowCount(); ++r) {
+         long[] hotel = hotels.get((long) repairs.getDouble(r, 0));
+         if (hotel != null) {
+            hotel[5] = repairs.getLong(r, 1);
+         }//end if
+      }//end for
+      return new ArrayList<long[]>(hotels.values());
+   }//end hotels
+
+}//end FleetReport
@@ -0,0 +1,112 @@
+/*
+ * ID allocation for DBProject
+ * ===========================
+ *
+ * Hands out primary keys for the tables whose IDs are chosen by the client.
+ *
+ * Target DBMS: 'Postgres'
+ *
+ */
+
+
+import java.sql.Statement;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.util.HashMap;
+import java.util.Map;
+
+/**
+ * Block allocator for primary keys.  Every table is backed by a database
+ * sequence (see postgresql/create.sql) whose INCREMENT BY equals BLOCK_SIZE,
+ * so a single nextval() reserves BLOCK_SIZE consecutive IDs for this session.
+ * Sessions never share a block, which keeps concurrent inserts from colliding
+ * and turns the per-insert cost into a counter bump.
+ *
+ */
+public class IdAllocator {
+
+   // must match the INCREMENT BY of the sequences in create.sql
+   public static final int BLOCK_SIZE = 50;
+
+   // table name (lower case) -> backing sequence
+   private static final Map<String, String> SEQUENCES = new HashMap<String, String>();
+   static {
+      SEQUENCES.put("customer", "customer_id_seq");
+      SEQUENCES.put("maintenancecompany", "maintenancecompany_id_seq");
+      SEQUENCES.put("repair", "repair_id_seq");
+      SEQUENCES.put("booking", "booking_id_seq");
+      SEQUENCES.put("assigned", "assigned_id_seq");
+      SEQUENCES.put("request", "request_id_seq");
+   }
+
+   // the range [next, limit) still available to this session
+   private static class Block {
+      int next;
+      int limit;
+   }
+
+   private final ConnectionSource _pool;
+   private final Map<String, Block> _blocks = new HashMap<String, Block>();
+
+   /**
+    * Creates an allocator that reserves its blocks through the given pool.
+    *
+    * @param pool the connections used to call nextval()
+    */
+   public IdAllocator (ConnectionSource pool) {
+      this._pool = pool;
+   }//end IdAllocator
+
+   /**
+    * Returns the next unused primary key of the given table.  Only the first
+    * call of every block goes to the database.
+    *
+    * @param table the table name, e.g. "Booking"
+    * @return a key nobody else has been given
+    * @throws java.sql.SQLException when a new block could not be reserved
+    */
+   public synchronized int nextId (String table) throws SQLException {
+      String key = table.toLowerCase();
+      String sequence = SEQUENCES.get(key);
+      if (sequence == null) {
+         throw new SQLException("No ID sequence defined for table " + table);
+      }//end if
+
+      Block block = _blocks.get(key);
+      if (block == null || block.next >= block.limit) {
+         block = new Block();
+         block.next = reserve(sequence);
+         block.limit = block.next + BLOCK_SIZE;
+         _blocks.put(key, block);
+      }//end if
+      return block.next++;
+   }//end nextId
+
+   /**
+    * Forgets the reserved blocks, after the sequences were set again (see
+    * BulkLoader).
+    */
+   public synchronized void reset () {
+      _blocks.clear();
+   }//end reset
+
+   /**
+    * Reserves a new block and returns its first ID.
+    */
+   private int reserve (String sequence) throws SQLException {
+      PooledConnection conn = this._pool.getConnection ();
+      try {
+         Statement stmt = conn.connection().createStatement ();
+         try {
+            ResultSet rs = stmt.executeQuery ("SELECT nextval('" + sequence + "')");
+            rs.next ();
+            return rs.getInt (1);
+         } finally {
+            stmt.close ();
+         }//end try
+      } finally {
+         conn.close ();
+      }//end try
+   }//end reserve
+
+}//end IdAllocator
@@ -0,0 +1,336 @@
+/*
+ * Index advisor for DBProject
+ * ===========================
+ *
+ * Target DBMS: 'Postgres'
+ *
+ */
+
+
+import java.io.BufferedReader;
+import java.io.File;
+import java.io.FileReader;
+import java.io.FileWriter;
+import java.io.IOException;
+import java.io.PrintWriter;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Date;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+
+/**
+ * Checks the indexes behind the menu queries.  explainQueries runs the
+ * statement of every operation under EXPLAIN (ANALYZE, BUFFERS), with
+ * values taken from the data and writes rolled back, and reports sequential
+ * scans and row estimates far from the actual counts.  missingIndexes
+ * compares pg_indexes with the index set the queries are written for,
+ * writeMigration turns what is missing into the next versioned migration
+ * and applyMigrations runs the migrations the database has not seen yet,
+ * recording them in SchemaVersion.
+ *
+ * Migrations are files named V<version>__<description>.sql, see
+ * postgresql/migrations.
+ *
+ */
+public class IndexAdvisor {
+
+   // name, table, columns and, for unique indexes, "UNIQUE" of every index the menu queries expect
+   private static final String[][] REQUIRED = {
+      { "bookingdateindex", "Booking", "bookingDate" },
+      { "bookinghoteldateindex", "Booking", "hotelID, bookingDate" },
+      { "bookingroomdateunique", "Booking", "hotelID, roomNo, bookingDate", "UNIQUE" },
+      { "bookingcustomerpriceindex", "Booking", "customer, price DESC" },
+      { "customernameindex", "Customer", "lname, fname, customerID" },
+      { "repaircompanyindex", "Repair", "mCompany" },
+      { "repairroomindex", "Repair", "hotelID, roomNo" },
+      { "maintenancecompanynameindex", "MaintenanceCompany", "name" } };
+
+   private static final Pattern ROWS =
+      Pattern.compile("rows=(\\d+) width=\\d+\\) \\(actual time=\\S+ rows=(\\d+) loops=\\d+\\)");
+   private static final Pattern MIGRATION = Pattern.compile("V(\\d+)__(.*)\\.sql");
+
+   private IndexAdvisor () {
+   }//end IndexAdvisor
+
+   /**
+    * Returns the expected indexes the database does not have.
+    *
+    * @param esql the database to check
+    * @return the index names, empty when all are there
+    * @throws java.sql.SQLException when the catalog could not be read
+    */
+   public static List<String> missingIndexes (DBProject esql) throws SQLException {
+      final Set<String> present = new HashSet<String>();
+      esql.forEachRow("SELECT indexname FROM pg_indexes WHERE schemaname = current_schema()", new RowHandler() {
+         public void handleRow (ResultSet rs) throws SQLException {
+            present.add(rs.getString(1).toLowerCase());
+         }
+      });
+      List<String> missing = new ArrayList<String>();
+      for (String[] index : REQUIRED) {
+         if (!present.contains(index[0])) {
+            missing.add(index[0]);
+         }//end if
+      }//end for
+      return missing;
+   }//end missingIndexes
+
+   /**
+    * Explains the statement of every menu operation and reports what looks
+    * wrong: "seq scan" for every sequential scan, "estimate" for every plan
+    * node whose row estimate is off by the given ratio or more, "time" for
+    * the execution time and "error" for operations that could not run.
+    *
+    * @param esql the database to explain on
+    * @param mismatchRatio how far estimated and actual rows may be apart
+    * @param out receives operation, finding, detail rows
+    * @return the number of rows written
+    * @throws java.sql.SQLException when no sample values could be read
+    */
+   public static int explainQueries (DBProject esql, int mismatchRatio, ReportWriter out) throws SQLException {
+      Object[] s = sample(esql);
+      if (s == null) {
+         throw new SQLException("No bookings or repairs to take sample values from");
+      }//end if
+      Object hotelID = s[0], roomNo = s[1], day = s[2], customer = s[3], fName = s[4], lName = s[5],
+         cmpID = s[6], cmpName = s[7], rID = s[8], staff = s[9], manager = s[10];
+      Object[][] statements = {
+         { "addCustomer", Queries.ADD_CUSTOMER,
+            new Object[] { -1, "Sample", "Sample", "-", 0L, day, "Other" } },
+         { "addRoom", Queries.ADD_ROOM, new Object[] { hotelID, -1, "Single" } },
+         { "addMaintenanceCompany", Queries.ADD_MAINTENANCE_COMPANY, new Object[] { -1, "Sample", "-", false } },
+         { "addRepair", Queries.ADD_REPAIR, new Object[] { -1, hotelID, roomNo, cmpID, day, "-", "Sample" } },
+         { "bookRoom", Queries.BOOK_ROOM, new Object[] { -1, customer, hotelID, roomNo, day, 1, 1.0f } },
+         { "assignHouseCleaningToRoom", Queries.ASSIGN_HOUSE_CLEANING, new Object[] { -1, staff, hotelID, roomNo } },
+         { "repairRequest", Queries.REPAIR_REQUEST, new Object[] { -1, manager, rID, day, "-" } },
+         { "numberOfAvailableRooms", Queries.AVAILABLE_ROOMS, new Object[] { hotelID } },
+         { "numberOfBookedRooms", Queries.BOOKED_ROOMS, new Object[] { hotelID } },
+         { "listHotelRoomBookingsForAWeek", Queries.ROOM_BOOKINGS_FOR_A_WEEK,
+            new Object[] { hotelID, hotelID, day, day } },
+         { "topKHighestRoomPriceForADateRange", Queries.TOP_K_ROOM_PRICE, new Object[] { day, day, 10 } },
+         { "topKHighestPriceBookingsForACustomer", Queries.CUSTOMER_IDS_BY_NAME, new Object[] { lName, fName } },
+         { "topKHighestPriceBookingsForACustomer", Queries.TOP_K_CUSTOMER_BOOKINGS, new Object[] { customer, 10 } },
+         { "totalCostForCustomer", Queries.CUSTOMER_TOTAL_COST, new Object[] { customer, hotelID, day, day } },
+         { "listRepairsMade", Queries.REPAIRS_MADE, new Object[] { cmpName } },
+         { "topKMaintenanceCompany", Queries.TOP_K_MAINTENANCE_COMPANY, new Object[] { 10 } },
+         { "numberOfRepairsForEachRoomPerYear", Queries.REPAIRS_PER_YEAR, new Object[] { hotelID, roomNo } },
+         { "repairTrend", Queries.REPAIRS_PER_YEAR_FOR_A_HOTEL, new Object[] { hotelID } } };
+
+      out.header(new String[] { "operation", "finding", "detail" });
+      int rows = 0;
+      for (Object[] statement : statements) {
+         String op = (String) statement[0];
+         List<String> plan;
+         // the statements really run, nothing they write is kept
+         esql.begin(false);
+         try {
+            plan = esql.explain((String) statement[1], (Object[]) statement[2]);
+         }catch (SQLException e){
+            out.row(new Object[] { op, "error", e.getMessage() });
+            ++rows;
+            continue;
+         }finally{
+            esql.rollback();
+         }//end try
+         for (String line : plan) {
+            String node = line.trim();
+            if (node.startsWith("->")) {
+               node = node.substring(2).trim();
+            }//end if
+            if (node.startsWith("Seq Scan on ")) {
+               out.row(new Object[] { op, "seq scan", node.substring(0, node.indexOf(" (")) });
+               ++rows;
+            }//end if
+            Matcher m = ROWS.matcher(line);
+            if (m.find()) {
+               long estimated = Long.parseLong(m.group(1));
+               long actual = Long.parseLong(m.group(2));
+               if (Math.max(estimated, actual) >= (long) mismatchRatio * Math.max(1, Math.min(estimated, actual))) {
+                  out.row(new Object[] { op, "estimate", node.substring(0, node.indexOf(" (")) + ": estimated "
+                     + estimated + " rows, got " + actual });
+                  ++rows;
+               }//end if
+            }//end if
+            if (node.startsWith("Execution Time:") || node.startsWith("Execution time:")
+                  || node.startsWith("Total runtime:")) {
+               out.row(new Object[] { op, "time", node.substring(node.indexOf(':') + 1).trim() });
+               ++rows;
+            }//end if
+         }//end for
+      }//end for
+      return rows;
+   }//end explainQueries
+
+   /**
+    * Writes the expected indexes the database does not have as the next
+    * migration in a directory.
+    *
+    * @param esql the database to check
+    * @param dir the migrations directory
+    * @return the new migration, null when nothing is missing
+    * @throws java.sql.SQLException when the catalog could not be read
+    * @throws java.io.IOException when the file could not be written
+    */
+   public static File writeMigration (DBProject esql, File dir) throws SQLException, IOException {
+      List<String> missing = missingIndexes(esql);
+      if (missing.isEmpty()) {
+         return null;
+      }//end if
+      int version = 0;
+      for (File f : migrations(dir)) {
+         version = Math.max(version, version(f));
+      }//end for
+      File file = new File(dir, String.format("V%03d__advised_indexes.sql", version + 1));
+      PrintWriter w = new PrintWriter(new FileWriter(file));
+      try {
+         w.println("/* Indexes the menu queries expect, written by the index advisor on " + new Date() + ".*/");
+         for (String[] index : REQUIRED) {
+            if (missing.contains(index[0])) {
+               w.println();
+               w.println("CREATE " + (index.length > 3 ? index[3] + " " : "") + "INDEX IF NOT EXISTS " + index[0]);
+               w.println("ON " + index[1]);
+               w.println("USING BTREE");
+               w.println("(" + index[2] + ");");
+            }//end if
+         }//end for
+      } finally {
+         w.close();
+      }//end try
+      return file;
+   }//end writeMigration
+
+   /**
+    * Runs the migrations of a directory that are newer than the version
+    * recorded in SchemaVersion, each in its own transaction.
+    *
+    * @param esql the database to migrate
+    * @param dir the migrations directory
+    * @return the number of migrations applied
+    * @throws java.sql.SQLException when a migration failed, it is rolled back then
+    * @throws java.io.IOException when a migration could not be read
+    */
+   public static int applyMigrations (DBProject esql, File dir) throws SQLException, IOException {
+      esql.executeUpdate("CREATE TABLE IF NOT EXISTS SchemaVersion( version Integer NOT NULL, "
+         + "description Text, appliedOn Timestamp NOT NULL DEFAULT now(), PRIMARY KEY(version))");
+      long current = esql.executeCount("SELECT COALESCE(MAX(version), 0) FROM SchemaVersion");
+      int applied = 0;
+      for (File f : migrations(dir)) {
+         int version = version(f);
+         if (version <= current) {
+            continue;
+         }//end if
+         Matcher m = MIGRATION.matcher(f.getName());
+         m.matches();
+         esql.begin(false);
+         try {
+            for (String statement : statements(f)) {
+               esql.executeUpdate(statement);
+            }//end for
+            esql.executeUpdate("INSERT INTO SchemaVersion (version, description) VALUES (?, ?)",
+               version, m.group(2).replace('_', ' '));
+            esql.commit();
+         } finally {
+            // no-op after a commit
+            esql.rollback();
+         }//end try
+         ++applied;
+      }//end for
+      return applied;
+   }//end applyMigrations
+
+   /**
+    * Reads one value of every kind the statements need from existing rows.
+    *
+    * @return hotelID, roomNo, day, customer, fName, lName, cmpID, company name, rID, staff and manager,
+    *         null when there is no booking or repair
+    */
+   private static Object[] sample (DBProject esql) throws SQLException {
+      final Object[] s = new Object[11];
+      esql.forEachRow("SELECT b.hotelID, b.roomNo, b.bookingDate, b.customer, c.fname, c.lname FROM Booking b "
+         + "INNER JOIN Customer c ON c.customerID = b.customer LIMIT 1", new RowHandler() {
+         public void handleRow (ResultSet rs) throws SQLException {
+            s[0] = rs.getInt(1);
+            s[1] = rs.getInt(2);
+            s[2] = rs.getDate(3);
+            s[3] = rs.getInt(4);
+            s[4] = rs.getString(5);
+            s[5] = rs.getString(6);
+         }
+      });
+      esql.forEachRow("SELECT M.cmpID, M.name, R.rID FROM Repair R "
+         + "INNER JOIN MaintenanceCompany M ON M.cmpID = R.mCompany LIMIT 1", new RowHandler() {
+         public void handleRow (ResultSet rs) throws SQLException {
+            s[6] = rs.getInt(1);
+            s[7] = rs.getString(2);
+            s[8] = rs.getInt(3);
+         }
+      });
+      esql.forEachRow("SELECT h.manager, s.SSN FROM Hotel h INNER JOIN Staff s ON s.employerID = h.hotelID "
+         + "WHERE h.hotelID = ? LIMIT 1", new RowHandler() {
+         public void handleRow (ResultSet rs) throws SQLException {
+            s[10] = rs.getInt(1);
+            s[9] = rs.getInt(2);
+         }
+      }, s[0] == null ? Integer.valueOf(0) : s[0]);
+      return s[0] == null || s[6] == null ? null : s;
+   }//end sample
+
+   // the migration files of a directory, in version order
+   private static List<File> migrations (File dir) throws IOException {
+      File[] files = dir.listFiles();
+      if (files == null) {
+         throw new IOException("Not a directory: " + dir);
+      }//end if
+      List<File> result = new ArrayList<File>();
+      for (File f : files) {
+         if (MIGRATION.matcher(f.getName()).matches()) {
+            result.add(f);
+         }//end if
+      }//end for
+      File[] sorted = result.toArray(new File[result.size()]);
+      Arrays.sort(sorted, new java.util.Comparator<File>() {
+         public int compare (File a, File b) {
+            return version(a) - version(b);
+         }
+      });
+      return Arrays.asList(sorted);
+   }//end migrations
+
+   private static int version (File f) {
+      Matcher m = MIGRATION.matcher(f.getName());
+      return m.matches() ? Integer.parseInt(m.group(1)) : 0;
+   }//end version
+
+   // the statements of a migration, comments removed, split at the semicolons ending a line
+   private static List<String> statements (File f) throws IOException {
+      StringBuilder text = new StringBuilder();
+      BufferedReader r = new BufferedReader(new FileReader(f));
+      try {
+         String line;
+         while ((line = r.readLine()) != null) {
+            text.append(line).append('\n');
+         }//end while
+      } finally {
+         r.close();
+      }//end try
+      String sql = text.toString().replaceAll("(?s)/\\*.*?\\*/", "").replaceAll("--[^\n]*", "");
+      List<String> statements = new ArrayList<String>();
+      for (String statement : sql.split(";\\s*\n")) {
+         statement = statement.trim();
+         if (statement.endsWith(";")) {
+            statement = statement.substring(0, statement.length() - 1);
+         }//end if
+         if (statement.length() > 0) {
+            statements.add(statement);
+         }//end if
+      }//end for
+      return statements;
+   }//end statements
+
+}//end IndexAdvisor
@@ -0,0 +1,114 @@
+/*
+ * Latency histogram for DBProject
+ * ===============================
+ *
+ * Target DBMS: 'Postgres'
+ *
+ */
+
+
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicLongArray;
+
+/**
+ * Records nanosecond latencies into logarithmic buckets, each power of two
+ * split into 16 linear sub-buckets, so percentiles are accurate to within
+ * 1/16 of the value from a nanosecond up to about 18 minutes in a fixed
+ * 5 kB of counters.  Recording is an atomic increment and never locks, so
+ * every thread records into the same histogram; readers see a consistent
+ * enough picture for monitoring without stopping the writers.
+ *
+ */
+public class LatencyHistogram {
+
+   private static final int SUB_BITS = 4;
+   private static final int SUB_BUCKETS = 1 << SUB_BITS;
+   // values up to 2^40 ns, larger ones count in the last bucket
+   private static final int MAX_EXPONENT = 40;
+   private static final int BUCKETS = (MAX_EXPONENT - SUB_BITS + 2) * SUB_BUCKETS;
+
+   private final AtomicLongArray _counts = new AtomicLongArray(BUCKETS);
+   private final AtomicLong _count = new AtomicLong();
+   private final AtomicLong _sum = new AtomicLong();
+   private final AtomicLong _max = new AtomicLong();
+
+   /**
+    * Records one latency.
+    *
+    * @param nanos the latency in nanoseconds
+    */
+   public void record (long nanos) {
+      if (nanos < 0) {
+         nanos = 0;
+      }//end if
+      _counts.incrementAndGet(index(nanos));
+      _count.incrementAndGet();
+      _sum.addAndGet(nanos);
+      long max = _max.get();
+      while (nanos > max && !_max.compareAndSet(max, nanos)) {
+         max = _max.get();
+      }//end while
+   }//end record
+
+   public long count () {
+      return _count.get();
+   }//end count
+
+   public long sumNanos () {
+      return _sum.get();
+   }//end sumNanos
+
+   public long maxNanos () {
+      return _max.get();
+   }//end maxNanos
+
+   /**
+    * Returns the latency below which a fraction of the recorded ones fall.
+    *
+    * @param fraction between 0 and 1, e.g. 0.99
+    * @return the latency in nanoseconds, the middle of its bucket, 0 when nothing was recorded
+    */
+   public long percentile (double fraction) {
+      long total = 0;
+      long[] counts = new long[BUCKETS];
+      for (int i = 0; i < BUCKETS; ++i) {
+         counts[i] = _counts.get(i);
+         total += counts[i];
+      }//end for
+      if (total == 0) {
+         return 0;
+      }//end if
+      long rank = Math.max(1, (long) Math.ceil(fraction * total));
+      long seen = 0;
+      for (int i = 0; i < BUCKETS; ++i) {
+         seen += counts[i];
+         if (seen >= rank) {
+            return Math.min((lowest(i) + lowest(i + 1) - 1) / 2, _max.get());
+         }//end if
+      }//end for
+      return _max.get();
+   }//end percentile
+
+   private static int index (long value) {
+      if (value < SUB_BUCKETS) {
+         return (int) value;
+      }//end if
+      int exponent = 63 - Long.numberOfLeadingZeros(value);
+      if (exponent > MAX_EXPONENT) {
+         return BUCKETS - 1;
+      }//end if
+      int sub = (int) (value >>> (exponent - SUB_BITS)) & (SUB_BUCKETS - 1);
+      return (exponent - SUB_BITS + 1) * SUB_BUCKETS + sub;
+   }//end index
+
+   // the smallest value of a bucket
+   private static long lowest (int index) {
+      if (index < SUB_BUCKETS) {
+         return index;
+      }//end if
+      int exponent = index / SUB_BUCKETS + SUB_BITS - 1;
+      long sub = index % SUB_BUCKETS;
+      return (1L << exponent) + (sub << (exponent - SUB_BITS));
+   }//end lowest
+
+}//end LatencyHistogram
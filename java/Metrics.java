@@ -0,0 +1,221 @@
+/*
+ * Metrics for DBProject
+ * =====================
+ *
+ * Target DBMS: 'Postgres'
+ *
+ */
+
+
+import java.io.File;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.io.OutputStreamWriter;
+import java.io.PrintWriter;
+import java.util.Map;
+import java.util.TreeMap;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Counts calls, latency, rows, bytes and errors per menu operation and per
+ * SQL statement.  DBProject records every statement it runs, ScriptRunner
+ * every operation, so script and server mode are covered.  Recording only
+ * touches atomic counters.
+ *
+ * The figures are listed by the script operation "stats" and, with
+ * -Ddbproject.metrics.file=<path>, written when the process exits: as JSON
+ * when the path ends in .json, in the Prometheus text format otherwise.
+ *
+ */
+public class Metrics {
+
+   // the figures of one operation or statement
+   public static class Stats {
+      public final LatencyHistogram latency = new LatencyHistogram();
+      public final AtomicLong rows = new AtomicLong();
+      public final AtomicLong bytes = new AtomicLong();
+      public final AtomicLong errors = new AtomicLong();
+
+      /**
+       * Records one call.
+       *
+       * @param nanos how long it took
+       * @param rows the rows it returned or changed
+       * @param bytes the bytes of the rows it returned
+       * @param failed whether it threw
+       */
+      public void record (long nanos, long rows, long bytes, boolean failed) {
+         this.latency.record(nanos);
+         if (rows > 0) {
+            this.rows.addAndGet(rows);
+         }//end if
+         if (bytes > 0) {
+            this.bytes.addAndGet(bytes);
+         }//end if
+         if (failed) {
+            this.errors.incrementAndGet();
+         }//end if
+      }//end record
+   }//end Stats
+
+   private final ConcurrentMap<String, Stats> _operations = new ConcurrentHashMap<String, Stats>();
+   private final ConcurrentMap<String, Stats> _statements = new ConcurrentHashMap<String, Stats>();
+
+   /**
+    * Returns the figures of a menu operation, by method name.
+    */
+   public Stats operation (String name) {
+      return stats(_operations, name);
+   }//end operation
+
+   /**
+    * Returns the figures of a SQL statement, by its parameterized text.
+    */
+   public Stats statement (String sql) {
+      return stats(_statements, sql);
+   }//end statement
+
+   private static Stats stats (ConcurrentMap<String, Stats> map, String key) {
+      Stats stats = map.get(key);
+      if (stats == null) {
+         Stats created = new Stats();
+         stats = map.putIfAbsent(key, created);
+         if (stats == null) {
+            stats = created;
+         }//end if
+      }//end if
+      return stats;
+   }//end stats
+
+   /**
+    * Lists the figures, operations first, one row each.
+    *
+    * @return the number of rows written
+    */
+   public int report (ReportWriter out) {
+      out.header(new String[] { "kind", "name", "calls", "errors", "rows", "bytes", "avg_ms", "p50_ms", "p99_ms",
+         "max_ms" });
+      int n = 0;
+      for (int kind = 0; kind < 2; ++kind) {
+         for (Map.Entry<String, Stats> e : sorted(kind == 0 ? _operations : _statements).entrySet()) {
+            Stats s = e.getValue();
+            long calls = s.latency.count();
+            out.row(new Object[] { kind == 0 ? "operation" : "statement", e.getKey(), calls, s.errors.get(),
+               s.rows.get(), s.bytes.get(), ms(calls == 0 ? 0 : s.latency.sumNanos() / calls),
+               ms(s.latency.percentile(0.50)), ms(s.latency.percentile(0.99)), ms(s.latency.maxNanos()) });
+            ++n;
+         }//end for
+      }//end for
+      return n;
+   }//end report
+
+   /**
+    * Writes the figures to a file, JSON when the name ends in .json and
+    * Prometheus text otherwise.
+    *
+    * @throws java.io.IOException when the file could not be written
+    */
+   public void dump (File file) throws IOException {
+      PrintWriter w = new PrintWriter(new OutputStreamWriter(new FileOutputStream(file), "UTF-8"));
+      try {
+         if (file.getName().endsWith(".json")) {
+            writeJson(w);
+         } else {
+            writePrometheus(w);
+         }//end if
+      } finally {
+         w.close();
+      }//end try
+   }//end dump
+
+   /**
+    * Writes the figures in the Prometheus text exposition format.
+    */
+   public void writePrometheus (PrintWriter w) {
+      for (int kind = 0; kind < 2; ++kind) {
+         String metric = kind == 0 ? "dbproject_operation" : "dbproject_statement";
+         String label = kind == 0 ? "operation" : "statement";
+         Map<String, Stats> all = sorted(kind == 0 ? _operations : _statements);
+         w.println("# TYPE " + metric + "_seconds summary");
+         for (Map.Entry<String, Stats> e : all.entrySet()) {
+            String name = label + "=\"" + promEscape(e.getKey()) + "\"";
+            LatencyHistogram h = e.getValue().latency;
+            double[] quantiles = { 0.5, 0.9, 0.99, 0.999 };
+            for (double q : quantiles) {
+               w.println(metric + "_seconds{" + name + ",quantile=\"" + q + "\"} " + seconds(h.percentile(q)));
+            }//end for
+            w.println(metric + "_seconds_sum{" + name + "} " + seconds(h.sumNanos()));
+            w.println(metric + "_seconds_count{" + name + "} " + h.count());
+         }//end for
+         String[] counters = { "rows", "bytes", "errors" };
+         for (String counter : counters) {
+            w.println("# TYPE " + metric + "_" + counter + "_total counter");
+            for (Map.Entry<String, Stats> e : all.entrySet()) {
+               Stats s = e.getValue();
+               long value = counter.equals("rows") ? s.rows.get() : (counter.equals("bytes") ? s.bytes.get()
+                  : s.errors.get());
+               w.println(metric + "_" + counter + "_total{" + label + "=\"" + promEscape(e.getKey()) + "\"} "
+                  + value);
+            }//end for
+         }//end for
+      }//end for
+   }//end writePrometheus
+
+   /**
+    * Writes the figures as one JSON object.
+    */
+   public void writeJson (PrintWriter w) {
+      w.println("{");
+      for (int kind = 0; kind < 2; ++kind) {
+         w.println("  \"" + (kind == 0 ? "operations" : "statements") + "\": {");
+         boolean first = true;
+         for (Map.Entry<String, Stats> e : sorted(kind == 0 ? _operations : _statements).entrySet()) {
+            Stats s = e.getValue();
+            LatencyHistogram h = s.latency;
+            w.print(first ? "" : ",\n");
+            first = false;
+            w.print("    \"" + jsonEscape(e.getKey()) + "\": {\"calls\": " + h.count() + ", \"errors\": "
+               + s.errors.get() + ", \"rows\": " + s.rows.get() + ", \"bytes\": " + s.bytes.get()
+               + ", \"sum_ns\": " + h.sumNanos() + ", \"p50_ns\": " + h.percentile(0.5) + ", \"p99_ns\": "
+               + h.percentile(0.99) + ", \"max_ns\": " + h.maxNanos() + "}");
+         }//end for
+         w.println();
+         w.println(kind == 0 ? "  }," : "  }");
+      }//end for
+      w.println("}");
+   }//end writeJson
+
+   private static Map<String, Stats> sorted (Map<String, Stats> map) {
+      return new TreeMap<String, Stats>(map);
+   }//end sorted
+
+   private static String ms (long nanos) {
+      return String.format("%.3f", nanos / 1e6);
+   }//end ms
+
+   private static String seconds (long nanos) {
+      return String.valueOf(nanos / 1e9);
+   }//end seconds
+
+   private static String promEscape (String s) {
+      return s.replace("\\", "\\\\").replace("\"", "\\\"").replace("\n", "\\n");
+   }//end promEscape
+
+   private static String jsonEscape (String s) {
+      StringBuilder b = new StringBuilder(s.length() + 8);
+      for (int i = 0; i < s.length(); ++i) {
+         char c = s.charAt(i);
+         if (c == '"' || c == '\\') {
+            b.append('\\').append(c);
+         } else if (c < 0x20) {
+            b.append(String.format("\\u%04x", (int) c));
+         } else {
+            b.append(c);
+         }//end if
+      }//end for
+      return b.toString();
+   }//end jsonEscape
+
+}//end Metrics
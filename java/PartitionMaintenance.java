@@ -0,0 +1,119 @@
+/*
+ * Partition maintenance for DBProject
+ * ===================================
+ *
+ * Target DBMS: 'Postgres'
+ *
+ */
+
+
+import java.sql.SQLException;
+import java.util.ArrayList;
+import java.util.Calendar;
+import java.util.Date;
+import java.util.List;
+
+/**
+ * Keeps the partitions of the partitioned schema (see
+ * postgresql/create_partitioned.sql) ahead of the calendar and archives
+ * old ones.  createPartitions adds the partitions of the coming months, so
+ * new bookings and repairs do not pile up in the default partitions where
+ * no range query can skip them.  detachPartitions detaches the partitions
+ * that end before a day: their rows leave Booking and Repair at once,
+ * without a delete, and stay in tables of their own (e.g. booking_p201501)
+ * to be dumped and dropped.  Detaching takes a short exclusive lock on the
+ * parent table.
+ *
+ * The work is done by the create_partitions and detach_partitions functions
+ * of create_partitioned.sql.
+ *
+ */
+public class PartitionMaintenance {
+
+   // table, partition key and partition size, as in create_partitioned.sql
+   private static final String[][] PARTITIONED = {
+      { "Booking", "bookingDate", "month" },
+      { "Repair", "repairDate", "year" } };
+
+   private static final String PARTITIONS =
+      "SELECT p.relname AS parent, c.relname AS partition, pg_get_expr(c.relpartbound, c.oid) AS bounds, "
+      + "CAST(c.reltuples AS bigint) AS estimatedRows FROM pg_inherits i "
+      + "JOIN pg_class c ON c.oid = i.inhrelid JOIN pg_class p ON p.oid = i.inhparent "
+      + "WHERE p.relname IN ('booking', 'repair') AND p.relkind = 'p' ORDER BY p.relname, c.relname";
+
+   private PartitionMaintenance () {
+   }//end PartitionMaintenance
+
+   /**
+    * Tells whether Booking is partitioned.
+    *
+    * @param esql the database to check
+    * @throws java.sql.SQLException when the catalog could not be read
+    */
+   public static boolean isPartitioned (DBProject esql) throws SQLException {
+      return esql.executeCount("SELECT COUNT(*) FROM pg_class WHERE relname = 'booking' AND relkind = 'p'") > 0;
+   }//end isPartitioned
+
+   /**
+    * Creates the missing partitions from today to a number of months ahead.
+    *
+    * @param esql the database
+    * @param months how far ahead partitions are created
+    * @return the number of partitions created
+    * @throws java.sql.SQLException when a partition could not be created
+    */
+   public static long createPartitions (DBProject esql, int months) throws SQLException {
+      checkPartitioned(esql);
+      Calendar until = Calendar.getInstance();
+      Date today = until.getTime();
+      until.add(Calendar.MONTH, months);
+      long created = 0;
+      for (String[] table : PARTITIONED) {
+         created += esql.executeCount("SELECT create_partitions(?, ?, ?, ?, ?)", table[0], table[1], table[2],
+            today, until.getTime());
+      }//end for
+      return created;
+   }//end createPartitions
+
+   /**
+    * Detaches the partitions holding only days before a day, and reloads
+    * what DBProject keeps in memory about the rows that left.
+    *
+    * @param esql the database
+    * @param before the first day kept
+    * @return the names of the detached partitions, now tables of their own
+    * @throws java.sql.SQLException when a partition could not be detached
+    */
+   public static List<String> detachPartitions (DBProject esql, Date before) throws SQLException {
+      checkPartitioned(esql);
+      List<String> detached = new ArrayList<String>();
+      for (String[] table : PARTITIONED) {
+         ResultTable names = esql.query("SELECT detach_partitions(?, ?)", table[0], before);
+         for (int r = 0; r < names.rowCount(); ++r) {
+            detached.add(names.getString(r, 0));
+         }//end for
+      }//end for
+      if (!detached.isEmpty()) {
+         esql.reloadBookingsAndRepairs();
+      }//end if
+      return detached;
+   }//end detachPartitions
+
+   /**
+    * Lists the partitions of Booking and Repair with their bounds and
+    * estimated row counts.
+    *
+    * @return the number of partitions
+    * @throws java.sql.SQLException when the catalog could not be read
+    */
+   public static int report (DBProject esql, ReportWriter out) throws SQLException {
+      return esql.query(PARTITIONS).render(out);
+   }//end report
+
+   private static void checkPartitioned (DBProject esql) throws SQLException {
+      if (!isPartitioned(esql)) {
+         throw new IllegalStateException("Booking is not partitioned, run postgresql/create_partitioned.sql");
+      }//end if
+   }//end checkPartitioned
+
+}//end PartitionMaintenance
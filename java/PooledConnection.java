@@ -0,0 +1,185 @@
+/*
+ * Pooled connections for DBProject
+ * ================================
+ *
+ * Target DBMS: 'Postgres'
+ *
+ */
+
+
+import java.sql.Connection;
+import java.sql.PreparedStatement;
+import java.sql.SQLException;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+import org.postgresql.PGStatement;
+
+/**
+ * Wraps one physical connection owned by a ConnectionPool.  Every connection
+ * keeps its own cache of prepared statements, so a statement is parsed by the
+ * server once per connection instead of once per call.
+ *
+ */
+public class PooledConnection {
+
+   private final ConnectionPool _pool;
+   private final Connection _connection;
+
+   // SQL text -> prepared statement, least recently used first
+   private final LinkedHashMap<String, PreparedStatement> _statements;
+
+   // when the connection was last given back to the pool
+   long lastUsed = System.currentTimeMillis ();
+
+   // set when the connection must not go back into the pool
+   private boolean _broken = false;
+
+   // queue updates instead of running them (see DBProject.begin)
+   private boolean _batching = false;
+
+   // the statement whose batch has not been sent yet, if any
+   private PreparedStatement _batch = null;
+
+   PooledConnection (ConnectionPool pool, Connection connection, final int statementCacheSize) {
+      this._pool = pool;
+      this._connection = connection;
+      this._statements = new LinkedHashMap<String, PreparedStatement>(16, 0.75f, true) {
+         protected boolean removeEldestEntry (Map.Entry<String, PreparedStatement> eldest) {
+            if (size() <= statementCacheSize) {
+               return false;
+            }//end if
+            closeQuietly(eldest.getValue());
+            return true;
+         }
+      };
+   }//end PooledConnection
+
+   /**
+    * Returns the physical connection.  Do not close it directly, close this
+    * object instead.
+    *
+    * @return the underlying JDBC connection
+    */
+   public Connection connection () {
+      return this._connection;
+   }//end connection
+
+   /**
+    * Returns a prepared statement for the given SQL, preparing it only the
+    * first time it is seen on this connection.
+    *
+    * @param sql the SQL text, with ? for every parameter
+    * @return the cached statement
+    * @throws java.sql.SQLException when the statement could not be prepared
+    */
+   public PreparedStatement prepare (String sql) throws SQLException {
+      PreparedStatement stmt = this._statements.get(sql);
+      if (stmt == null) {
+         stmt = this._connection.prepareStatement(sql);
+         if (stmt instanceof PGStatement) {
+            // have the server keep the parsed and planned statement
+            ((PGStatement) stmt).setUseServerPrepare(true);
+         }//end if
+         this._statements.put(sql, stmt);
+      }//end if
+      return stmt;
+   }//end prepare
+
+   void setBatching (boolean batching) {
+      this._batching = batching;
+   }//end setBatching
+
+   boolean isBatching () {
+      return this._batching;
+   }//end isBatching
+
+   /**
+    * Queues the current parameters of a statement.  Consecutive rows of the
+    * same statement go out as one batch, a different statement sends the
+    * queued batch first so that statements run in the order they came.
+    *
+    * @param stmt a statement prepared on this connection, with its parameters bound
+    * @throws java.sql.SQLException when the previous batch failed
+    */
+   void addBatch (PreparedStatement stmt) throws SQLException {
+      if (this._batch != null && this._batch != stmt) {
+         flushBatch();
+      }//end if
+      stmt.addBatch();
+      this._batch = stmt;
+   }//end addBatch
+
+   /**
+    * Sends the queued batch, if any.
+    *
+    * @throws java.sql.SQLException when a queued statement failed
+    */
+   void flushBatch () throws SQLException {
+      PreparedStatement stmt = this._batch;
+      if (stmt != null) {
+         this._batch = null;
+         stmt.executeBatch();
+      }//end if
+   }//end flushBatch
+
+   /**
+    * Drops the queued batch without sending it.
+    */
+   void clearBatch () {
+      PreparedStatement stmt = this._batch;
+      if (stmt != null) {
+         this._batch = null;
+         try {
+            stmt.clearBatch();
+         }catch (SQLException e){
+            // ignored.
+         }//end try
+      }//end if
+   }//end clearBatch
+
+   /**
+    * Marks the connection as unusable, it is closed instead of being pooled
+    * again.
+    */
+   public void invalidate () {
+      this._broken = true;
+   }//end invalidate
+
+   boolean isBroken () {
+      return this._broken;
+   }//end isBroken
+
+   /**
+    * Gives the connection back to its pool.
+    */
+   public void close () {
+      this._pool.release(this);
+   }//end close
+
+   /**
+    * Closes the cached statements and the physical connection.
+    */
+   void closePhysical () {
+      Iterator<PreparedStatement> it = this._statements.values().iterator();
+      while (it.hasNext()) {
+         closeQuietly(it.next());
+      }//end while
+      this._statements.clear();
+      try {
+         this._connection.close ();
+      }catch (SQLException e){
+         // ignored.
+      }//end try
+   }//end closePhysical
+
+   private static void closeQuietly (PreparedStatement stmt) {
+      try {
+         stmt.close ();
+      }catch (SQLException e){
+         // ignored.
+      }//end try
+   }//end closeQuietly
+
+}//end PooledConnection
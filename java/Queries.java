@@ -0,0 +1,147 @@
+/*
+ * Statement registry for DBProject
+ * ================================
+ *
+ * Target DBMS: 'Postgres'
+ *
+ */
+
+
+/**
+ * The parameterized SQL behind every menu operation.  Each statement is
+ * prepared once per pooled connection (see PooledConnection.prepare) and then
+ * executed again with new bind values, so the server does not parse and plan
+ * it on every call, and user input never becomes part of the SQL text.
+ *
+ */
+public final class Queries {
+
+   private Queries () {
+   }//end Queries
+
+   /**
+    * Widens a per customer statement to several customers of the same name,
+    * "customer = ?" becomes "customer IN (?, ...)".
+    *
+    * @param sql TOP_K_CUSTOMER_BOOKINGS or CUSTOMER_TOTAL_COST
+    * @param customers the number of customer IDs to bind
+    * @return the statement, unchanged for a single customer
+    */
+   public static String forCustomers (String sql, int customers) {
+      if (customers == 1) {
+         return sql;
+      }//end if
+      StringBuilder in = new StringBuilder("customer IN (?");
+      for (int i = 1; i < customers; ++i) {
+         in.append(", ?");
+      }//end for
+      return sql.replace("customer = ?", in.append(')').toString());
+   }//end forCustomers
+
+   // 1. Add new customer
+   public static final String ADD_CUSTOMER =
+      "INSERT INTO Customer (customerID, fName, lName, Address, phNo, DOB, gender) "
+      + "VALUES (?, ?, ?, ?, ?, ?, CAST(? AS GenderType))";
+
+   // 2. Add new room
+   public static final String ADD_ROOM =
+      "INSERT INTO Room (hotelID, roomNo, roomType) VALUES (?, ?, ?)";
+
+   // 3. Add new maintenance company
+   public static final String ADD_MAINTENANCE_COMPANY =
+      "INSERT INTO MaintenanceCompany (cmpID, name, address, isCertified) VALUES (?, ?, ?, ?)";
+
+   // 4. Add new repair
+   public static final String ADD_REPAIR =
+      "INSERT INTO Repair (rID, hotelID, roomNo, mCompany, repairDate, description, repairType) "
+      + "VALUES (?, ?, ?, ?, ?, ?, ?)";
+
+   // 5. Add new booking
+   public static final String BOOK_ROOM =
+      "INSERT INTO Booking (bID, customer, hotelID, roomNo, bookingDate, noOfPeople, price) "
+      + "VALUES (?, ?, ?, ?, ?, ?, ?)";
+
+   // 6. Assign house cleaning staff to a room
+   public static final String ASSIGN_HOUSE_CLEANING =
+      "INSERT INTO Assigned (asgID, staffID, hotelID, roomNo) VALUES (?, ?, ?, ?)";
+
+   // 7. Raise a repair request
+   public static final String REPAIR_REQUEST =
+      "INSERT INTO Request (reqID, managerID, repairID, requestDate, description) VALUES (?, ?, ?, ?, ?)";
+
+   // 8. Number of rooms of a hotel that have never been booked
+   public static final String AVAILABLE_ROOMS =
+      "SELECT COUNT(*) FROM Room r WHERE r.hotelID = ? "
+      + "AND NOT EXISTS (SELECT 1 FROM Booking b WHERE b.hotelID = r.hotelID AND b.roomNo = r.roomNo)";
+
+   // 9. Number of bookings of a hotel
+   public static final String BOOKED_ROOMS =
+      "SELECT COUNT(*) FROM Booking WHERE hotelID = ?";
+
+   // 10. Rooms of a hotel without a booking in the week starting at a date
+   public static final String ROOM_BOOKINGS_FOR_A_WEEK =
+      "SELECT avail.* FROM ((SELECT r.roomNo, r.hotelID FROM Room r WHERE r.hotelID = ?) "
+      + "EXCEPT (SELECT b.roomNo, b.hotelID FROM Booking b WHERE b.hotelID = ? "
+      + "AND b.bookingDate >= ? AND b.bookingDate <= CAST(? AS Date) + 7)) AS avail";
+
+   // 11. Top k room prices for a date range
+   public static final String TOP_K_ROOM_PRICE =
+      "SELECT price, roomNo, bookingDate FROM Booking WHERE bookingDate >= ? AND bookingDate <= ? "
+      + "ORDER BY price DESC LIMIT ?";
+
+   // 12. and 13. Customers of a name, the CHAR(30) casts let customerNameIndex match
+   public static final String CUSTOMER_IDS_BY_NAME =
+      "SELECT customerID FROM Customer WHERE lname = CAST(? AS CHAR(30)) AND fname = CAST(? AS CHAR(30)) "
+      + "ORDER BY customerID";
+
+   // 12. Top k booking prices of a customer, a range read of bookingCustomerPriceIndex
+   public static final String TOP_K_CUSTOMER_BOOKINGS =
+      "SELECT price FROM Booking WHERE customer = ? ORDER BY price DESC LIMIT ?";
+
+   // 13. Total cost of a customer in a hotel for a date range
+   public static final String CUSTOMER_TOTAL_COST =
+      "SELECT sum(price) FROM Booking "
+      + "WHERE customer = ? AND hotelID = ? AND bookingDate >= ? AND bookingDate <= ?";
+
+   // 14. Repairs made by a maintenance company
+   public static final String REPAIRS_MADE =
+      "SELECT R.rID, R.hotelID, R.repairType, R.repairDate, M.name FROM Repair R, MaintenanceCompany M "
+      + "WHERE M.name = ? AND M.cmpID = R.mCompany";
+
+   // 15. Top k maintenance companies by repair count, from the trigger maintained summary
+   public static final String TOP_K_MAINTENANCE_COMPANY =
+      "SELECT M.name, C.repairs AS count FROM RepairCount C INNER JOIN MaintenanceCompany M "
+      + "ON M.cmpID = C.mCompany WHERE C.repairs > 0 ORDER BY C.repairs DESC LIMIT ?";
+
+   // 16. Repairs per year for a room
+   public static final String REPAIRS_PER_YEAR =
+      "SELECT COUNT(*) AS count, EXTRACT(year FROM repairDate) AS year FROM Repair "
+      + "WHERE hotelID = ? AND roomNo = ? GROUP BY EXTRACT(year FROM repairDate) ORDER BY year";
+
+   // 17. Repairs per year for all rooms of a hotel
+   public static final String REPAIRS_PER_YEAR_FOR_A_HOTEL =
+      "SELECT COUNT(*) AS count, EXTRACT(year FROM repairDate) AS year FROM Repair "
+      + "WHERE hotelID = ? GROUP BY EXTRACT(year FROM repairDate) ORDER BY year";
+
+   // 17. Repairs per year for all hotels
+   public static final String REPAIRS_PER_YEAR_ALL_HOTELS =
+      "SELECT COUNT(*) AS count, EXTRACT(year FROM repairDate) AS year FROM Repair "
+      + "GROUP BY EXTRACT(year FROM repairDate) ORDER BY year";
+
+   // Fleet report (see FleetReport), per hotel of a hotelID range
+   public static final String FLEET_HOTEL_RANGE =
+      "SELECT MIN(hotelID) AS first, MAX(hotelID) AS last FROM Hotel";
+
+   public static final String FLEET_ROOMS =
+      "SELECT H.hotelID, COUNT(R.roomNo) AS rooms FROM Hotel H LEFT JOIN Room R ON R.hotelID = H.hotelID "
+      + "WHERE H.hotelID BETWEEN ? AND ? GROUP BY H.hotelID ORDER BY H.hotelID";
+
+   public static final String FLEET_BOOKINGS =
+      "SELECT hotelID, COUNT(DISTINCT roomNo) AS bookedRooms, COUNT(*) AS bookings, SUM(price) AS revenue "
+      + "FROM Booking WHERE hotelID BETWEEN ? AND ? AND bookingDate BETWEEN ? AND ? GROUP BY hotelID";
+
+   public static final String FLEET_REPAIRS =
+      "SELECT hotelID, COUNT(*) AS repairs FROM Repair "
+      + "WHERE hotelID BETWEEN ? AND ? AND repairDate BETWEEN ? AND ? GROUP BY hotelID";
+
+}//end Queries
@@ -0,0 +1,144 @@
+/*
+ * Repair count index for DBProject
+ * ================================
+ *
+ * Target DBMS: 'Postgres'
+ *
+ */
+
+
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Map;
+import java.util.TreeSet;
+
+/**
+ * Keeps the maintenance companies ordered by their number of repairs, so
+ * that topKMaintenanceCompany walks the first k entries instead of grouping
+ * the whole Repair table.  A repair moves its company to its new place in
+ * O(log n).
+ *
+ * The index is loaded from the RepairCount summary table (see create.sql),
+ * which triggers keep exact for every writer, and then kept current by
+ * DBProject.addMaintenanceCompany and DBProject.addRepair.  Repairs added by
+ * other processes are not seen until rebuild.
+ *
+ */
+public class RepairCountIndex {
+
+   // one company and its repair count
+   private static class Company {
+      final int cmpID;
+      final String name;
+      long repairs;
+
+      Company (int cmpID, String name, long repairs) {
+         this.cmpID = cmpID;
+         this.name = name;
+         this.repairs = repairs;
+      }
+   }//end Company
+
+   // most repairs first, ties by company ID
+   private static final java.util.Comparator<Company> ORDER = new java.util.Comparator<Company>() {
+      public int compare (Company a, Company b) {
+         if (a.repairs != b.repairs) {
+            return a.repairs > b.repairs ? -1 : 1;
+         }//end if
+         return a.cmpID < b.cmpID ? -1 : (a.cmpID == b.cmpID ? 0 : 1);
+      }
+   };
+
+   private final Map<Integer, Company> _companies = new HashMap<Integer, Company>();
+   private final TreeSet<Company> _ranked = new TreeSet<Company>(ORDER);
+
+   /**
+    * Builds an index from the RepairCount summary table.
+    *
+    * @param esql the database to read
+    * @return the loaded index
+    * @throws java.sql.SQLException when the tables could not be read
+    */
+   public static RepairCountIndex load (DBProject esql) throws SQLException {
+      final RepairCountIndex index = new RepairCountIndex();
+      esql.forEachRow("SELECT M.cmpID, M.name, C.repairs FROM MaintenanceCompany M "
+         + "LEFT JOIN RepairCount C ON C.mCompany = M.cmpID", new RowHandler() {
+         public void handleRow (ResultSet rs) throws SQLException {
+            index.put(new Company(rs.getInt(1), rs.getString(2), rs.getLong(3)));
+         }
+      });
+      return index;
+   }//end load
+
+   /**
+    * Recomputes the summary table from Repair and loads a fresh index from it.
+    *
+    * @param esql the database to rebuild
+    * @return the rebuilt index
+    * @throws java.sql.SQLException when the counts could not be rebuilt
+    */
+   public static RepairCountIndex rebuild (DBProject esql) throws SQLException {
+      esql.executeCount("SELECT rebuild_repair_counts()");
+      return load(esql);
+   }//end rebuild
+
+   /**
+    * Records a new company, with no repairs.
+    */
+   public synchronized void addCompany (int cmpID, String name) {
+      if (!_companies.containsKey(cmpID)) {
+         put(new Company(cmpID, name, 0));
+      }//end if
+   }//end addCompany
+
+   /**
+    * Records a repair made by a company.
+    */
+   public synchronized void addRepair (int cmpID) {
+      Company company = _companies.get(cmpID);
+      if (company == null) {
+         // not loaded yet, the name comes with the next rebuild
+         return;
+      }//end if
+      _ranked.remove(company);
+      ++company.repairs;
+      _ranked.add(company);
+   }//end addRepair
+
+   /**
+    * Returns the companies with the most repairs.  Companies without any
+    * repair are left out, as the grouping query leaves them out.
+    *
+    * @param k the number of companies wanted
+    * @return name and repair count of each company, most repairs first
+    */
+   public synchronized List<Object[]> topK (int k) {
+      List<Object[]> result = new ArrayList<Object[]>(Math.max(0, Math.min(k, 64)));
+      Iterator<Company> it = _ranked.iterator();
+      while (result.size() < k && it.hasNext()) {
+         Company company = it.next();
+         if (company.repairs == 0) {
+            break;
+         }//end if
+         result.add(new Object[] { company.name, Long.valueOf(company.repairs) });
+      }//end while
+      return result;
+   }//end topK
+
+   /**
+    * Returns the number of companies in the index.
+    */
+   public synchronized int size () {
+      return _companies.size();
+   }//end size
+
+   private synchronized void put (Company company) {
+      _companies.put(company.cmpID, company);
+      _ranked.add(company);
+   }//end put
+
+}//end RepairCountIndex
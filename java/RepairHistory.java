@@ -0,0 +1,158 @@
+/*
+ * Repair history for DBProject
+ * ============================
+ *
+ * Target DBMS: 'Postgres'
+ *
+ */
+
+
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.util.ArrayList;
+import java.util.Calendar;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.TreeMap;
+import java.util.concurrent.locks.ReentrantReadWriteLock;
+
+/**
+ * Keeps the number of repairs per year of every room, and the same
+ * histogram rolled up per hotel and over all hotels, so the repairs per
+ * year of a room, a hotel or the fleet are read from memory instead of
+ * grouping Repair on EXTRACT(year FROM repairDate) on every call.
+ *
+ * The histograms are seeded with one grouped pass over Repair and then kept
+ * current by DBProject.addRepair.  Repairs added by other processes are not
+ * seen until the next load.
+ *
+ */
+public class RepairHistory {
+
+   // (hotelID, roomNo) -> year -> repairs, years in order
+   private final Map<Long, TreeMap<Integer, long[]>> _rooms = new HashMap<Long, TreeMap<Integer, long[]>>();
+   // hotelID -> year -> repairs of all its rooms
+   private final Map<Integer, TreeMap<Integer, long[]>> _hotels = new HashMap<Integer, TreeMap<Integer, long[]>>();
+   // year -> repairs of all hotels
+   private final TreeMap<Integer, long[]> _fleet = new TreeMap<Integer, long[]>();
+   private final ReentrantReadWriteLock _lock = new ReentrantReadWriteLock();
+
+   /**
+    * Builds the histograms from the Repair table.
+    *
+    * @param esql the database to read
+    * @return the loaded history
+    * @throws java.sql.SQLException when the table could not be read
+    */
+   public static RepairHistory load (DBProject esql) throws SQLException {
+      final RepairHistory history = new RepairHistory();
+      esql.streamQuery("SELECT hotelID, roomNo, CAST(EXTRACT(year FROM repairDate) AS integer), COUNT(*) "
+         + "FROM Repair GROUP BY hotelID, roomNo, EXTRACT(year FROM repairDate)", new RowHandler() {
+         public void handleRow (ResultSet rs) throws SQLException {
+            history.add(rs.getInt(1), rs.getInt(2), rs.getInt(3), rs.getLong(4));
+         }
+      });
+      return history;
+   }//end load
+
+   /**
+    * Records a repair of a room.
+    *
+    * @param repairDate the day of the repair
+    */
+   public void addRepair (int hotelID, int roomNo, java.util.Date repairDate) {
+      Calendar calendar = Calendar.getInstance();
+      calendar.setTime(repairDate);
+      add(hotelID, roomNo, calendar.get(Calendar.YEAR), 1);
+   }//end addRepair
+
+   /**
+    * Returns the repairs per year of a room.
+    *
+    * @return {repairs, year} pairs, oldest year first
+    */
+   public List<long[]> room (int hotelID, int roomNo) {
+      _lock.readLock().lock();
+      try {
+         return rows(_rooms.get(key(hotelID, roomNo)));
+      } finally {
+         _lock.readLock().unlock();
+      }//end try
+   }//end room
+
+   /**
+    * Returns the repairs per year of all rooms of a hotel.
+    *
+    * @return {repairs, year} pairs, oldest year first
+    */
+   public List<long[]> hotel (int hotelID) {
+      _lock.readLock().lock();
+      try {
+         return rows(_hotels.get(hotelID));
+      } finally {
+         _lock.readLock().unlock();
+      }//end try
+   }//end hotel
+
+   /**
+    * Returns the repairs per year of all hotels.
+    *
+    * @return {repairs, year} pairs, oldest year first
+    */
+   public List<long[]> fleet () {
+      _lock.readLock().lock();
+      try {
+         return rows(_fleet);
+      } finally {
+         _lock.readLock().unlock();
+      }//end try
+   }//end fleet
+
+   private void add (int hotelID, int roomNo, int year, long repairs) {
+      _lock.writeLock().lock();
+      try {
+         Long room = key(hotelID, roomNo);
+         TreeMap<Integer, long[]> years = _rooms.get(room);
+         if (years == null) {
+            years = new TreeMap<Integer, long[]>();
+            _rooms.put(room, years);
+         }//end if
+         count(years, year, repairs);
+         years = _hotels.get(hotelID);
+         if (years == null) {
+            years = new TreeMap<Integer, long[]>();
+            _hotels.put(hotelID, years);
+         }//end if
+         count(years, year, repairs);
+         count(_fleet, year, repairs);
+      } finally {
+         _lock.writeLock().unlock();
+      }//end try
+   }//end add
+
+   private static void count (TreeMap<Integer, long[]> years, int year, long repairs) {
+      long[] count = years.get(year);
+      if (count == null) {
+         years.put(year, new long[] { repairs });
+      } else {
+         count[0] += repairs;
+      }//end if
+   }//end count
+
+   // callers hold the read lock
+   private static List<long[]> rows (TreeMap<Integer, long[]> years) {
+      List<long[]> rows = new ArrayList<long[]>();
+      if (years != null) {
+         for (Map.Entry<Integer, long[]> e : years.entrySet()) {
+            rows.add(new long[] { e.getValue()[0], e.getKey() });
+         }//end for
+      }//end if
+      return rows;
+   }//end rows
+
+   private static Long key (int hotelID, int roomNo) {
+      return Long.valueOf(((long) hotelID << 32) | (roomNo & 0xffffffffL));
+   }//end key
+
+}//end RepairHistory
@@ -0,0 +1,33 @@
+/*
+ * Report output for DBProject
+ * ===========================
+ *
+ * Target DBMS: 'Postgres'
+ *
+ */
+
+
+/**
+ * Receives the rows of a menu report.  Reports may be answered by the
+ * database or from an in-memory index, so rows arrive as plain values
+ * rather than as a ResultSet.  The header is given once, before the first
+ * row, and only when there is at least one row.
+ *
+ */
+public interface ReportWriter {
+
+   /**
+    * Called before the first row.
+    *
+    * @param columns the column names
+    */
+   void header (String[] columns);
+
+   /**
+    * Called once for every row, in order.
+    *
+    * @param values the column values, null for SQL NULL
+    */
+   void row (Object[] values);
+
+}//end ReportWriter
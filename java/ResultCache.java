@@ -0,0 +1,298 @@
+/*
+ * Result cache for DBProject
+ * ==========================
+ *
+ * Target DBMS: 'Postgres'
+ *
+ */
+
+
+import java.util.ArrayList;
+import java.util.Date;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+
+/**
+ * Keeps the results of the read operations, keyed by statement and bind
+ * values, so a question asked again is answered without a round trip.
+ *
+ * Every entry records what it was computed from: the kinds of rows
+ * (BOOKINGS, ROOMS, REPAIRS), the hotel, or ANY_HOTEL for reports across
+ * hotels, and the range of days it covers.  A write drops only the entries
+ * it can change, e.g. a booking of hotel 5 on a day drops the entries of
+ * hotel 5 and of all hotels whose range holds that day, and leaves repair
+ * reports and other hotels alone.  Entries also expire after a time to
+ * live, which bounds how stale they get when another process writes, and
+ * the least recently used entry goes when the cache is full.
+ *
+ * New customers and companies need no invalidation: the name based reports
+ * are keyed by the resolved IDs, and a new company has no repairs yet.
+ *
+ * Entries are indexed by hotel and by hotel and day, so a write only looks
+ * at the entries of its hotel and day and at those across hotels or days.
+ * Entries spanning more than INDEXED_DAYS days are indexed as covering any
+ * day.
+ *
+ * A result computed while a write ran is not cached, since it may predate
+ * the write: puts carry the generation read before the query and are
+ * dropped when an invalidation happened since.
+ *
+ */
+public class ResultCache {
+
+   // the kinds of rows an entry depends on, or'ed together
+   public static final int BOOKINGS = 1;
+   public static final int ROOMS = 2;
+   public static final int REPAIRS = 4;
+
+   public static final int ANY_HOTEL = -1;
+   public static final int ANY_DAY = Integer.MIN_VALUE;
+   public static final int FIRST_DAY = Integer.MIN_VALUE;
+   public static final int LAST_DAY = Integer.MAX_VALUE;
+
+   // the longest day range indexed day by day
+   private static final int INDEXED_DAYS = 31;
+
+   // one cached result and what it depends on
+   private static class Cached {
+      final String key;
+      final Object value;
+      final int kinds;
+      final int hotelID;
+      final int firstDay;
+      final int lastDay;
+      final long expires;
+
+      Cached (String key, Object value, int kinds, int hotelID, int firstDay, int lastDay, long expires) {
+         this.key = key;
+         this.value = value;
+         this.kinds = kinds;
+         this.hotelID = hotelID;
+         this.firstDay = firstDay;
+         this.lastDay = lastDay;
+         this.expires = expires;
+      }
+      // whether it is indexed under every day of its range
+      boolean byDay () {
+         return this.firstDay != FIRST_DAY && this.lastDay != LAST_DAY
+            && (long) this.lastDay - this.firstDay < INDEXED_DAYS;
+      }
+   }//end Cached
+
+   private final LinkedHashMap<String, Cached> _entries;
+   // the entries of a hotel, ANY_HOTEL for those across hotels
+   private final Map<Integer, Set<Cached>> _byHotel = new HashMap<Integer, Set<Cached>>();
+   // the entries of a hotel and day, see cell
+   private final Map<Long, Set<Cached>> _byHotelDay = new HashMap<Long, Set<Cached>>();
+   private final long _ttlNanos;
+   // counts invalidations, guarded by _entries
+   private long _generation = 0;
+
+   private long _hits = 0;
+   private long _misses = 0;
+   private long _evictions = 0;
+   private long _expirations = 0;
+   private long _invalidations = 0;
+
+   /**
+    * Creates a cache.
+    *
+    * @param capacity the number of results kept
+    * @param ttlMs how long a result is used, in milliseconds
+    */
+   public ResultCache (final int capacity, long ttlMs) {
+      this._ttlNanos = ttlMs * 1000000L;
+      this._entries = new LinkedHashMap<String, Cached>(16, 0.75f, true) {
+         protected boolean removeEldestEntry (Map.Entry<String, Cached> eldest) {
+            if (size() > capacity) {
+               ++_evictions;
+               unindex(eldest.getValue());
+               return true;
+            }//end if
+            return false;
+         }
+      };
+   }//end ResultCache
+
+   /**
+    * Returns the key of a statement with its bind values.
+    */
+   public static String key (String sql, Object... params) {
+      StringBuilder b = new StringBuilder(sql);
+      for (Object value : params) {
+         b.append('\u0000');
+         if (value instanceof Date) {
+            // dates are days, whatever their time
+            b.append('d').append(DBProject.toEpochDay((Date) value));
+         } else {
+            b.append(value);
+         }//end if
+      }//end for
+      return b.toString();
+   }//end key
+
+   /**
+    * Returns the generation to pass to put for a result about to be
+    * computed.
+    */
+   public long generation () {
+      synchronized (this._entries) {
+         return this._generation;
+      }//end synchronized
+   }//end generation
+
+   /**
+    * Returns a cached result, or null when there is none or it expired.
+    */
+   public Object get (String key) {
+      synchronized (this._entries) {
+         Cached entry = this._entries.get(key);
+         if (entry != null && entry.expires - System.nanoTime() <= 0) {
+            this._entries.remove(key);
+            unindex(entry);
+            ++this._expirations;
+            entry = null;
+         }//end if
+         if (entry == null) {
+            ++this._misses;
+            return null;
+         }//end if
+         ++this._hits;
+         return entry.value;
+      }//end synchronized
+   }//end get
+
+   /**
+    * Caches a result, unless an invalidation happened since generation.
+    *
+    * @param key see key
+    * @param value the result, not changed afterwards
+    * @param generation the generation read before the result was computed
+    * @param kinds the kinds of rows the result depends on
+    * @param hotelID the hotel it is about, or ANY_HOTEL
+    * @param firstDay the first day it covers, or FIRST_DAY
+    * @param lastDay the last day it covers, or LAST_DAY
+    */
+   public void put (String key, Object value, long generation, int kinds, int hotelID, int firstDay, int lastDay) {
+      synchronized (this._entries) {
+         if (generation == this._generation) {
+            Cached entry = new Cached(key, value, kinds, hotelID, firstDay, lastDay,
+               System.nanoTime() + this._ttlNanos);
+            Cached replaced = this._entries.put(key, entry);
+            if (replaced != null) {
+               unindex(replaced);
+            }//end if
+            index(entry);
+         }//end if
+      }//end synchronized
+   }//end put
+
+   /**
+    * Drops the results a write can change.
+    *
+    * @param kinds the kinds of rows written
+    * @param hotelID the hotel written to, or ANY_HOTEL
+    * @param day the day written, or ANY_DAY
+    */
+   public void invalidate (int kinds, int hotelID, int day) {
+      synchronized (this._entries) {
+         ++this._generation;
+         List<Cached> candidates = new ArrayList<Cached>();
+         if (hotelID == ANY_HOTEL) {
+            // reloads, rare enough to look at everything
+            candidates.addAll(this._entries.values());
+         } else if (day == ANY_DAY) {
+            addAll(candidates, this._byHotel.get(hotelID));
+            addAll(candidates, this._byHotel.get(ANY_HOTEL));
+         } else {
+            addAll(candidates, this._byHotelDay.get(cell(hotelID, day)));
+            addAll(candidates, this._byHotelDay.get(cell(hotelID, ANY_DAY)));
+            addAll(candidates, this._byHotelDay.get(cell(ANY_HOTEL, day)));
+            addAll(candidates, this._byHotelDay.get(cell(ANY_HOTEL, ANY_DAY)));
+         }//end if
+         for (Cached entry : candidates) {
+            if ((entry.kinds & kinds) != 0
+                  && (hotelID == ANY_HOTEL || entry.hotelID == ANY_HOTEL || entry.hotelID == hotelID)
+                  && (day == ANY_DAY || (entry.firstDay <= day && day <= entry.lastDay))) {
+               this._entries.remove(entry.key);
+               unindex(entry);
+               ++this._invalidations;
+            }//end if
+         }//end for
+      }//end synchronized
+   }//end invalidate
+
+   // the key of a hotel and day in _byHotelDay, day ANY_DAY for wide entries
+   private static long cell (int hotelID, int day) {
+      return (long) hotelID << 32 | (day & 0xFFFFFFFFL);
+   }//end cell
+
+   private static void addAll (List<Cached> candidates, Set<Cached> entries) {
+      if (entries != null) {
+         candidates.addAll(entries);
+      }//end if
+   }//end addAll
+
+   // called with _entries locked
+   private void index (Cached entry) {
+      add(this._byHotel, Integer.valueOf(entry.hotelID), entry);
+      if (entry.byDay()) {
+         for (int day = entry.firstDay; day <= entry.lastDay; ++day) {
+            add(this._byHotelDay, Long.valueOf(cell(entry.hotelID, day)), entry);
+         }//end for
+      } else {
+         add(this._byHotelDay, Long.valueOf(cell(entry.hotelID, ANY_DAY)), entry);
+      }//end if
+   }//end index
+
+   // called with _entries locked
+   private void unindex (Cached entry) {
+      remove(this._byHotel, Integer.valueOf(entry.hotelID), entry);
+      if (entry.byDay()) {
+         for (int day = entry.firstDay; day <= entry.lastDay; ++day) {
+            remove(this._byHotelDay, Long.valueOf(cell(entry.hotelID, day)), entry);
+         }//end for
+      } else {
+         remove(this._byHotelDay, Long.valueOf(cell(entry.hotelID, ANY_DAY)), entry);
+      }//end if
+   }//end unindex
+
+   private static <K> void add (Map<K, Set<Cached>> index, K key, Cached entry) {
+      Set<Cached> entries = index.get(key);
+      if (entries == null) {
+         entries = new HashSet<Cached>();
+         index.put(key, entries);
+      }//end if
+      entries.add(entry);
+   }//end add
+
+   private static <K> void remove (Map<K, Set<Cached>> index, K key, Cached entry) {
+      Set<Cached> entries = index.get(key);
+      if (entries != null && entries.remove(entry) && entries.isEmpty()) {
+         index.remove(key);
+      }//end if
+   }//end remove
+
+   /**
+    * Lists the size and the hit, miss, eviction, expiration and
+    * invalidation counts.
+    *
+    * @return the number of rows written
+    */
+   public int report (ReportWriter out) {
+      synchronized (this._entries) {
+         long lookups = this._hits + this._misses;
+         out.header(new String[] { "entries", "hits", "misses", "hit_ratio", "evictions", "expirations",
+            "invalidations" });
+         out.row(new Object[] { this._entries.size(), this._hits, this._misses,
+            String.format("%.3f", lookups == 0 ? 0.0 : this._hits / (double) lookups), this._evictions,
+            this._expirations, this._invalidations });
+         return 1;
+      }//end synchronized
+   }//end report
+
+}//end ResultCache
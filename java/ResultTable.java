@@ -0,0 +1,386 @@
+/*
+ * Typed query results for DBProject
+ * =================================
+ *
+ * Target DBMS: 'Postgres'
+ *
+ */
+
+
+import java.math.BigDecimal;
+import java.math.RoundingMode;
+import java.sql.ResultSet;
+import java.sql.ResultSetMetaData;
+import java.sql.SQLException;
+import java.sql.Types;
+import java.util.Arrays;
+import java.util.BitSet;
+
+/**
+ * The rows of a query held column by column in primitive arrays: int for
+ * integer columns, long for bigint and whole numbers, double for fractional
+ * numbers, int epoch days (see DBProject.toEpochDay) for dates, and String
+ * for everything else.  A row costs no objects beyond its strings, values
+ * are read back without parsing text, and render() turns the table into
+ * report rows when it is to be shown.
+ *
+ * Numeric columns start out as long and switch to double at the first
+ * value with a fraction; the largest scale seen is kept so that text()
+ * shows 1501.00 the way the server sent it.
+ *
+ */
+public class ResultTable {
+
+   public static final int INT = 0;
+   public static final int LONG = 1;
+   public static final int DOUBLE = 2;
+   public static final int DATE = 3;
+   public static final int STRING = 4;
+
+   private final String[] _names;
+   private final int[] _types;
+   // decimal places to show, -1 when the column is not NUMERIC
+   private final int[] _scales;
+   // int[], long[], double[], int[] or String[] per column, by type
+   private final Object[] _columns;
+   private final BitSet[] _nulls;
+   private int _rows;
+
+   private ResultTable (String[] names, int[] types, int[] scales, Object[] columns, BitSet[] nulls, int rows) {
+      this._names = names;
+      this._types = types;
+      this._scales = scales;
+      this._columns = columns;
+      this._nulls = nulls;
+      this._rows = rows;
+   }//end ResultTable
+
+   /**
+    * Reads the remaining rows of a result set.
+    */
+   public static ResultTable read (ResultSet rs) throws SQLException {
+      Builder builder = new Builder();
+      while (rs.next()) {
+         builder.handleRow(rs);
+      }//end while
+      return builder.build();
+   }//end read
+
+   public int rowCount () {
+      return this._rows;
+   }//end rowCount
+
+   public int columnCount () {
+      return this._names.length;
+   }//end columnCount
+
+   public String columnName (int col) {
+      return this._names[col];
+   }//end columnName
+
+   /**
+    * Returns INT, LONG, DOUBLE, DATE or STRING.
+    */
+   public int columnType (int col) {
+      return this._types[col];
+   }//end columnType
+
+   /**
+    * Returns the index of a column by name, ignoring case, or -1.
+    */
+   public int columnIndex (String name) {
+      for (int i = 0; i < this._names.length; ++i) {
+         if (this._names[i].equalsIgnoreCase(name)) {
+            return i;
+         }//end if
+      }//end for
+      return -1;
+   }//end columnIndex
+
+   public boolean isNull (int row, int col) {
+      return this._nulls[col].get(row);
+   }//end isNull
+
+   /**
+    * Returns a value of an INT or DATE column, 0 for NULL.
+    */
+   public int getInt (int row, int col) {
+      check(col, INT, DATE);
+      return ((int[]) this._columns[col])[row];
+   }//end getInt
+
+   /**
+    * Returns a value of an INT or LONG column, 0 for NULL.
+    */
+   public long getLong (int row, int col) {
+      if (this._types[col] == INT) {
+         return ((int[]) this._columns[col])[row];
+      }//end if
+      check(col, LONG, LONG);
+      return ((long[]) this._columns[col])[row];
+   }//end getLong
+
+   /**
+    * Returns a value of a numeric column, 0 for NULL.
+    */
+   public double getDouble (int row, int col) {
+      if (this._types[col] == DOUBLE) {
+         return ((double[]) this._columns[col])[row];
+      }//end if
+      return getLong(row, col);
+   }//end getDouble
+
+   /**
+    * Returns a value of a DATE column as an epoch day, 0 for NULL.
+    */
+   public int getEpochDay (int row, int col) {
+      check(col, DATE, DATE);
+      return ((int[]) this._columns[col])[row];
+   }//end getEpochDay
+
+   /**
+    * Returns a value of a STRING column, null for NULL.
+    */
+   public String getString (int row, int col) {
+      check(col, STRING, STRING);
+      return ((String[]) this._columns[col])[row];
+   }//end getString
+
+   /**
+    * Returns the values of an INT or DATE column.
+    */
+   public int[] intColumn (int col) {
+      check(col, INT, DATE);
+      return Arrays.copyOf((int[]) this._columns[col], this._rows);
+   }//end intColumn
+
+   /**
+    * Returns the values of a LONG column.
+    */
+   public long[] longColumn (int col) {
+      check(col, LONG, LONG);
+      return Arrays.copyOf((long[]) this._columns[col], this._rows);
+   }//end longColumn
+
+   /**
+    * Returns the values of a DOUBLE column.
+    */
+   public double[] doubleColumn (int col) {
+      check(col, DOUBLE, DOUBLE);
+      return Arrays.copyOf((double[]) this._columns[col], this._rows);
+   }//end doubleColumn
+
+   /**
+    * Returns a value as the server would have sent it as text, null for
+    * NULL.
+    */
+   public String text (int row, int col) {
+      if (isNull(row, col)) {
+         return null;
+      }//end if
+      switch (this._types[col]) {
+         case INT:
+            return String.valueOf(((int[]) this._columns[col])[row]);
+         case LONG: {
+            long value = ((long[]) this._columns[col])[row];
+            return this._scales[col] > 0 ? BigDecimal.valueOf(value).setScale(this._scales[col]).toPlainString()
+               : String.valueOf(value);
+         }
+         case DOUBLE: {
+            double value = ((double[]) this._columns[col])[row];
+            if (this._scales[col] >= 0) {
+               return BigDecimal.valueOf(value).setScale(this._scales[col], RoundingMode.HALF_UP).toPlainString();
+            }//end if
+            return value == Math.rint(value) && Math.abs(value) < 1e15 ? String.valueOf((long) value)
+               : String.valueOf(value);
+         }
+         case DATE:
+            return DBProject.fromEpochDay(((int[]) this._columns[col])[row]).toString();
+         default:
+            return ((String[]) this._columns[col])[row];
+      }//end switch
+   }//end text
+
+   /**
+    * Sends the table to a report, the header only when there are rows.
+    *
+    * @return the number of rows
+    */
+   public int render (ReportWriter out) {
+      if (this._rows == 0) {
+         return 0;
+      }//end if
+      out.header(this._names.clone());
+      int cols = this._names.length;
+      for (int row = 0; row < this._rows; ++row) {
+         Object[] values = new Object[cols];
+         for (int col = 0; col < cols; ++col) {
+            values[col] = text(row, col);
+         }//end for
+         out.row(values);
+      }//end for
+      return this._rows;
+   }//end render
+
+   private void check (int col, int type, int other) {
+      if (this._types[col] != type && this._types[col] != other) {
+         throw new IllegalStateException("Column " + this._names[col] + " is not of the requested type");
+      }//end if
+   }//end check
+
+   /**
+    * Collects rows handed to it, for DBProject.forEachRow or streamQuery.
+    */
+   public static class Builder implements RowHandler {
+      private String[] names;
+      private int[] types;
+      private int[] scales;
+      private Object[] columns;
+      private BitSet[] nulls;
+      private int rows = 0;
+      private int capacity = 0;
+
+      public void handleRow (ResultSet rs) throws SQLException {
+         if (this.names == null) {
+            start(rs.getMetaData());
+         }//end if
+         if (this.rows == this.capacity) {
+            grow();
+         }//end if
+         int row = this.rows++;
+         for (int col = 0; col < this.names.length; ++col) {
+            int i = col + 1;
+            switch (this.types[col]) {
+               case INT:
+                  ((int[]) this.columns[col])[row] = rs.getInt(i);
+                  break;
+               case DATE: {
+                  java.sql.Date date = rs.getDate(i);
+                  if (date != null) {
+                     ((int[]) this.columns[col])[row] = DBProject.toEpochDay(date);
+                  }//end if
+                  break;
+               }
+               case LONG:
+               case DOUBLE:
+                  if (this.scales[col] >= 0) {
+                     numeric(rs, i, col, row);
+                  } else if (this.types[col] == LONG) {
+                     ((long[]) this.columns[col])[row] = rs.getLong(i);
+                  } else {
+                     ((double[]) this.columns[col])[row] = rs.getDouble(i);
+                  }//end if
+                  break;
+               default:
+                  ((String[]) this.columns[col])[row] = rs.getString(i);
+                  break;
+            }//end switch
+            if (rs.wasNull()) {
+               this.nulls[col].set(row);
+            }//end if
+         }//end for
+      }//end handleRow
+
+      /**
+       * Returns the collected rows.  A builder that saw no row gives a
+       * table without columns.
+       */
+      public ResultTable build () {
+         if (this.names == null) {
+            return new ResultTable(new String[0], new int[0], new int[0], new Object[0], new BitSet[0], 0);
+         }//end if
+         return new ResultTable(this.names, this.types, this.scales, this.columns, this.nulls, this.rows);
+      }//end build
+
+      private void start (ResultSetMetaData md) throws SQLException {
+         int n = md.getColumnCount();
+         this.names = new String[n];
+         this.types = new int[n];
+         this.scales = new int[n];
+         this.columns = new Object[n];
+         this.nulls = new BitSet[n];
+         for (int col = 0; col < n; ++col) {
+            this.names[col] = md.getColumnName(col + 1);
+            this.scales[col] = -1;
+            switch (md.getColumnType(col + 1)) {
+               case Types.INTEGER:
+               case Types.SMALLINT:
+               case Types.TINYINT:
+                  this.types[col] = INT;
+                  break;
+               case Types.BIGINT:
+                  this.types[col] = LONG;
+                  break;
+               case Types.NUMERIC:
+               case Types.DECIMAL:
+                  this.types[col] = LONG;
+                  this.scales[col] = 0;
+                  break;
+               case Types.REAL:
+               case Types.FLOAT:
+               case Types.DOUBLE:
+                  this.types[col] = DOUBLE;
+                  break;
+               case Types.DATE:
+                  this.types[col] = DATE;
+                  break;
+               default:
+                  this.types[col] = STRING;
+                  break;
+            }//end switch
+            this.columns[col] = array(this.types[col], 0);
+            this.nulls[col] = new BitSet();
+         }//end for
+      }//end start
+
+      // a NUMERIC value, the column turns to double at the first fraction
+      private void numeric (ResultSet rs, int i, int col, int row) throws SQLException {
+         BigDecimal value = rs.getBigDecimal(i);
+         if (value == null) {
+            return;
+         }//end if
+         this.scales[col] = Math.max(this.scales[col], value.scale());
+         if (this.types[col] == LONG) {
+            BigDecimal whole = value.stripTrailingZeros();
+            if (whole.scale() <= 0 && whole.compareTo(BigDecimal.valueOf(Long.MAX_VALUE)) <= 0
+                  && whole.compareTo(BigDecimal.valueOf(Long.MIN_VALUE)) >= 0) {
+               ((long[]) this.columns[col])[row] = value.longValue();
+               return;
+            }//end if
+            long[] longs = (long[]) this.columns[col];
+            double[] doubles = new double[this.capacity];
+            for (int r = 0; r < row; ++r) {
+               doubles[r] = longs[r];
+            }//end for
+            this.columns[col] = doubles;
+            this.types[col] = DOUBLE;
+         }//end if
+         ((double[]) this.columns[col])[row] = value.doubleValue();
+      }//end numeric
+
+      private void grow () {
+         this.capacity = Math.max(16, this.capacity * 2);
+         for (int col = 0; col < this.columns.length; ++col) {
+            Object old = this.columns[col];
+            Object grown = array(this.types[col], this.capacity);
+            System.arraycopy(old, 0, grown, 0, this.rows);
+            this.columns[col] = grown;
+         }//end for
+      }//end grow
+
+      private static Object array (int type, int size) {
+         switch (type) {
+            case INT:
+            case DATE:
+               return new int[size];
+            case LONG:
+               return new long[size];
+            case DOUBLE:
+               return new double[size];
+            default:
+               return new String[size];
+         }//end switch
+      }//end array
+   }//end Builder
+
+}//end ResultTable
@@ -0,0 +1,29 @@
+/*
+ * Row callbacks for DBProject
+ * ===========================
+ *
+ * Target DBMS: 'Postgres'
+ *
+ */
+
+
+import java.sql.ResultSet;
+import java.sql.SQLException;
+
+/**
+ * Receives the rows of a streamed query one at a time (see
+ * DBProject.streamQuery).  Only the current row of the result set may be
+ * read, and the result set must not be advanced or closed by the handler.
+ *
+ */
+public interface RowHandler {
+
+   /**
+    * Called once for every row, in order.
+    *
+    * @param rs the result set positioned on the current row
+    * @throws java.sql.SQLException when a column could not be read
+    */
+   void handleRow (ResultSet rs) throws SQLException;
+
+}//end RowHandler
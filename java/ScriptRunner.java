@@ -0,0 +1,579 @@
+/*
+ * Script mode for DBProject
+ * =========================
+ *
+ * Runs menu operations read from a file or standard in, one per line, without
+ * any prompting.
+ *
+ * Target DBMS: 'Postgres'
+ *
+ */
+
+
+import java.io.BufferedReader;
+import java.io.File;
+import java.io.IOException;
+import java.io.PrintStream;
+import java.sql.SQLException;
+import java.text.ParseException;
+import java.text.SimpleDateFormat;
+import java.util.ArrayList;
+import java.util.Date;
+import java.util.List;
+
+/**
+ * Executes operation records.  A record is one line of tab separated fields,
+ * the operation name (the DBProject method name or its menu number) followed
+ * by its arguments in the order the interactive prompts ask for them, e.g.
+ * "bookRoom, 12, 381, 5, 05/12/15, 2, 150.00" with tabs between the fields.
+ * Blank lines and lines starting with # are skipped.  Dates are MM/dd/yy or
+ * yyyy-MM-dd.
+ *
+ * Writes are queued and sent as JDBC batches, batchSize records per
+ * transaction.  Every record produces tab separated output lines:
+ * "row, line, columns..." for each result row of a report, then
+ * "ok, line, operation, result" where result is the new ID, the count or the
+ * number of rows, or "error, line, operation, message".  Write results are
+ * printed once their transaction has committed.
+ *
+ */
+public class ScriptRunner {
+
+   // one parsed input line
+   private static class Record {
+      final int line;
+      final String op;
+      final String[] args;
+      String result;
+
+      Record (int line, String op, String[] args) {
+         this.line = line;
+         this.op = op;
+         this.args = args;
+      }
+   }//end Record
+
+   private final DBProject _esql;
+   private final PrintStream _out;
+   private final int _batchSize;
+
+   // writes of the open transaction, in input order
+   private final List<Record> _pending = new ArrayList<Record>();
+   private boolean _inTransaction = false;
+
+   private long _records = 0;
+   private long _writes = 0;
+   private long _reads = 0;
+   private long _errors = 0;
+
+   /**
+    * Creates a runner.
+    *
+    * @param esql the database to run the operations against
+    * @param out where the result lines go
+    * @param batchSize the number of writes committed together
+    */
+   public ScriptRunner (DBProject esql, PrintStream out, int batchSize) {
+      this._esql = esql;
+      this._out = out;
+      this._batchSize = Math.max(1, batchSize);
+   }//end ScriptRunner
+
+   /**
+    * Runs every record of the input, in order, and prints a summary line to
+    * standard error at the end.
+    *
+    * @param in the records
+    * @return the number of records that failed
+    * @throws java.io.IOException when the input could not be read
+    */
+   public long run (BufferedReader in) throws IOException {
+      long start = System.nanoTime();
+      String text;
+      int line = 0;
+      try {
+         while ((text = in.readLine()) != null) {
+            ++line;
+            if (text.trim().length() == 0 || text.startsWith("#")) {
+               continue;
+            }//end if
+            String[] fields = text.split("\t", -1);
+            String[] args = new String[fields.length - 1];
+            System.arraycopy(fields, 1, args, 0, args.length);
+            runRecord(new Record(line, fields[0].trim(), args));
+         }//end while
+      } finally {
+         commitPending();
+      }//end try
+
+      double seconds = (System.nanoTime() - start) / 1e9;
+      System.err.println(String.format(
+         "records=%d writes=%d reads=%d errors=%d elapsed=%.3fs throughput=%.1f records/s",
+         this._records, this._writes, this._reads, this._errors, seconds,
+         seconds > 0 ? this._records / seconds : 0.0));
+      return this._errors;
+   }//end run
+
+   private void runRecord (Record rec) {
+      ++this._records;
+      String op = operationName(rec.op);
+      if (op == null) {
+         error(rec, "Unrecognized operation " + rec.op);
+         return;
+      }//end if
+
+      if (!isWrite(op)) {
+         ++this._reads;
+         // reads see everything written before them
+         commitPending();
+         try {
+            rec.result = execute(this._esql, op, rec.args, new RowWriter(this._out, rec.line));
+            this._out.println("ok\t" + rec.line + "\t" + op + "\t" + rec.result);
+         }catch (Exception e){
+            error(rec, e.getMessage());
+         }//end try
+         return;
+      }//end if
+
+      ++this._writes;
+      try {
+         if (!this._inTransaction) {
+            this._esql.begin(true);
+            this._inTransaction = true;
+         }//end if
+         this._pending.add(rec);
+         rec.result = execute(this._esql, op, rec.args, null);
+      }catch (IllegalArgumentException e){
+         // bad arguments never reached the database
+         this._pending.remove(rec);
+         error(rec, e.getMessage());
+      }catch (BookingConflictException e){
+         // refused by the availability index before anything was sent
+         this._pending.remove(rec);
+         error(rec, e.getMessage());
+      }catch (Exception e){
+         // an earlier queued statement or this one failed, the transaction is lost
+         replayPending();
+      }//end try
+      if (this._pending.size() >= this._batchSize) {
+         commitPending();
+      }//end if
+   }//end runRecord
+
+   /**
+    * Commits the open transaction and reports its writes.  When the commit
+    * fails the writes are run again one at a time to find the bad ones.
+    */
+   private void commitPending () {
+      if (!this._inTransaction) {
+         return;
+      }//end if
+      this._inTransaction = false;
+      try {
+         this._esql.commit();
+      }catch (SQLException e){
+         replayPending();
+         return;
+      }//end try
+      for (Record rec : this._pending) {
+         this._out.println("ok\t" + rec.line + "\t" + operationName(rec.op) + "\t" + rec.result);
+      }//end for
+      this._pending.clear();
+   }//end commitPending
+
+   private void replayPending () {
+      this._esql.rollback();
+      this._inTransaction = false;
+      List<Record> replay = new ArrayList<Record>(this._pending);
+      this._pending.clear();
+      for (Record rec : replay) {
+         String op = operationName(rec.op);
+         try {
+            rec.result = execute(this._esql, op, rec.args, null);
+            this._out.println("ok\t" + rec.line + "\t" + op + "\t" + rec.result);
+         }catch (Exception e){
+            error(rec, e.getMessage());
+         }//end try
+      }//end for
+   }//end replayPending
+
+   private void error (Record rec, String message) {
+      ++this._errors;
+      this._out.println("error\t" + rec.line + "\t" + rec.op + "\t" + escape(String.valueOf(message)));
+   }//end error
+
+   /**
+    * Returns the method name of an operation the session server offers, a
+    * menu operation given by name or number or a read only diagnostic, or
+    * null when there is no such operation.
+    */
+   static String sessionOperationName (String op) {
+      String[] names = {
+         "addCustomer", "addRoom", "addMaintenanceCompany", "addRepair", "bookRoom",
+         "assignHouseCleaningToRoom", "repairRequest", "numberOfAvailableRooms", "numberOfBookedRooms",
+         "listHotelRoomBookingsForAWeek", "topKHighestRoomPriceForADateRange",
+         "topKHighestPriceBookingsForACustomer", "totalCostForCustomer", "listRepairsMade",
+         "topKMaintenanceCompany", "numberOfRepairsForEachRoomPerYear", "repairTrend",
+         "hotelOccupancy", "customerSummary" };
+      for (int i = 0; i < names.length; ++i) {
+         if (names[i].equalsIgnoreCase(op) || String.valueOf(i + 1).equals(op)) {
+            return names[i];
+         }//end if
+      }//end for
+      // diagnostics that only read
+      String[] diagnostics = { "stats", "slowQueries", "cacheStats", "partitions", "checkIndexes" };
+      for (int i = 0; i < diagnostics.length; ++i) {
+         if (diagnostics[i].equalsIgnoreCase(op)) {
+            return diagnostics[i];
+         }//end if
+      }//end for
+      return null;
+   }//end sessionOperationName
+
+   /**
+    * Returns the method name of an operation given by name or menu number,
+    * or null when there is no such operation.  Script mode also runs the
+    * maintenance operations, which change the schema or the data in bulk.
+    */
+   static String operationName (String op) {
+      String name = sessionOperationName(op);
+      if (name != null) {
+         return name;
+      }//end if
+      // maintenance operations, not served to sessions
+      String[] tools = { "verifyAvailabilityIndex", "rebuildRepairCounts", "explainQueries",
+         "writeIndexMigration", "applyMigrations", "fleetReport", "createPartitions", "detachPartitions",
+         "bulkLoad" };
+      for (int i = 0; i < tools.length; ++i) {
+         if (tools[i].equalsIgnoreCase(op)) {
+            return tools[i];
+         }//end if
+      }//end for
+      return null;
+   }//end operationName
+
+   /**
+    * Tells whether an operation, by method name, changes the database.
+    */
+   static boolean isWrite (String op) {
+      return op.startsWith("add") || op.equals("bookRoom") || op.equals("assignHouseCleaningToRoom")
+         || op.equals("repairRequest");
+   }//end isWrite
+
+   /**
+    * Runs one operation.
+    *
+    * @param esql the database
+    * @param op the operation, by method name
+    * @param args the arguments, as text
+    * @param rows receives the result rows of reports
+    * @return the new ID of writes, the count of count operations, the number of rows of reports
+    * @throws java.sql.SQLException when the database rejected the operation
+    * @throws IllegalArgumentException when the arguments are not valid
+    */
+   static String execute (DBProject esql, String op, String[] args, ReportWriter rows) throws SQLException {
+      if (op.equals("stats")) {
+         // not counted itself
+         expect(args, 0, "");
+         return String.valueOf(esql.metrics().report(rows));
+      }//end if
+      if (op.equals("slowQueries")) {
+         expect(args, 0, "");
+         if (esql.slowQueryLog() == null) {
+            throw new IllegalStateException("The slow query log is not enabled, set -Ddbproject.slowQueryMs");
+         }//end if
+         return String.valueOf(esql.slowQueryLog().report(rows));
+      }//end if
+      if (op.equals("cacheStats")) {
+         expect(args, 0, "");
+         if (esql.resultCache() == null) {
+            throw new IllegalStateException("The result cache is not enabled, set -Ddbproject.resultCache=true");
+         }//end if
+         return String.valueOf(esql.resultCache().report(rows));
+      }//end if
+      long start = System.nanoTime();
+      boolean failed = true;
+      String result = null;
+      try {
+         result = dispatch(esql, op, args, rows);
+         failed = false;
+         return result;
+      } finally {
+         esql.metrics().operation(op).record(System.nanoTime() - start, failed ? 0 : resultRows(op, result), 0,
+            failed);
+      }//end try
+   }//end execute
+
+   // the rows an operation wrote or listed, counts are one row
+   private static long resultRows (String op, String result) {
+      if (isWrite(op) || op.startsWith("numberOfAvailable") || op.startsWith("numberOfBooked")
+            || !result.matches("\\d+")) {
+         return 1;
+      }//end if
+      return Long.parseLong(result);
+   }//end resultRows
+
+   private static String dispatch (DBProject esql, String op, String[] args, ReportWriter rows)
+         throws SQLException {
+      switch (op) {
+         case "addCustomer":
+            expect(args, 6, "fName lName address phNo DOB gender");
+            return String.valueOf(DBProject.addCustomer(esql, args[0], args[1], args[2],
+               longArg(args[3]), dateArg(args[4]), args[5]));
+         case "addRoom":
+            expect(args, 3, "hotelID roomNo roomType");
+            DBProject.addRoom(esql, intArg(args[0]), intArg(args[1]), args[2]);
+            return args[0] + "/" + args[1];
+         case "addMaintenanceCompany":
+            expect(args, 3, "name address isCertified");
+            return String.valueOf(DBProject.addMaintenanceCompany(esql, args[0], args[1],
+               Boolean.parseBoolean(args[2].trim())));
+         case "addRepair":
+            expect(args, 6, "hotelID roomNo mCompany repairDate description repairType");
+            return String.valueOf(DBProject.addRepair(esql, intArg(args[0]), intArg(args[1]), intArg(args[2]),
+               dateArg(args[3]), args[4], args[5]));
+         case "bookRoom":
+            expect(args, 6, "customer hotelID roomNo bookingDate noOfPeople price");
+            return String.valueOf(DBProject.bookRoom(esql, intArg(args[0]), intArg(args[1]), intArg(args[2]),
+               dateArg(args[3]), intArg(args[4]), floatArg(args[5])));
+         case "assignHouseCleaningToRoom":
+            expect(args, 3, "staffID hotelID roomNo");
+            return String.valueOf(DBProject.assignHouseCleaningToRoom(esql, intArg(args[0]), intArg(args[1]),
+               intArg(args[2])));
+         case "repairRequest":
+            expect(args, 4, "managerID repairID requestDate description");
+            return String.valueOf(DBProject.repairRequest(esql, intArg(args[0]), intArg(args[1]),
+               dateArg(args[2]), args[3]));
+         case "numberOfAvailableRooms":
+            expect(args, 1, "hotelID");
+            return String.valueOf(DBProject.numberOfAvailableRooms(esql, intArg(args[0])));
+         case "numberOfBookedRooms":
+            expect(args, 1, "hotelID");
+            return String.valueOf(DBProject.numberOfBookedRooms(esql, intArg(args[0])));
+         case "listHotelRoomBookingsForAWeek":
+            expect(args, 2, "hotelID date");
+            return String.valueOf(DBProject.listHotelRoomBookingsForAWeek(esql, intArg(args[0]),
+               dateArg(args[1]), rows));
+         case "topKHighestRoomPriceForADateRange":
+            expect(args, 3, "start end k");
+            return String.valueOf(DBProject.topKHighestRoomPriceForADateRange(esql, dateArg(args[0]),
+               dateArg(args[1]), intArg(args[2]), rows));
+         case "topKHighestPriceBookingsForACustomer":
+            expect(args, 3, "fName lName k");
+            return String.valueOf(DBProject.topKHighestPriceBookingsForACustomer(esql, args[0], args[1],
+               intArg(args[2]), rows));
+         case "totalCostForCustomer":
+            expect(args, 5, "hotelID fName lName start end");
+            return String.valueOf(DBProject.totalCostForCustomer(esql, intArg(args[0]), args[1], args[2],
+               dateArg(args[3]), dateArg(args[4]), rows));
+         case "listRepairsMade":
+            expect(args, 1, "name");
+            return String.valueOf(DBProject.listRepairsMade(esql, args[0], rows));
+         case "topKMaintenanceCompany":
+            expect(args, 1, "k");
+            return String.valueOf(DBProject.topKMaintenanceCompany(esql, intArg(args[0]), rows));
+         case "numberOfRepairsForEachRoomPerYear":
+            expect(args, 2, "hotelID roomNo");
+            return String.valueOf(DBProject.numberOfRepairsForEachRoomPerYear(esql, intArg(args[0]),
+               intArg(args[1]), rows));
+         case "repairTrend":
+            if (args.length > 1) {
+               expect(args, 1, "[hotelID]");
+            }//end if
+            return String.valueOf(DBProject.repairTrend(esql,
+               args.length == 0 || args[0].trim().length() == 0 ? null : Integer.valueOf(intArg(args[0])), rows));
+         case "hotelOccupancy": {
+            expect(args, 1, "hotelID");
+            long[] counts = DBProject.hotelOccupancy(esql, intArg(args[0]));
+            return counts[0] + "/" + counts[1];
+         }
+         case "customerSummary":
+            expect(args, 6, "hotelID fName lName start end k");
+            return String.valueOf(DBProject.customerSummary(esql, intArg(args[0]), args[1], args[2],
+               dateArg(args[3]), dateArg(args[4]), intArg(args[5]), rows));
+         case "verifyAvailabilityIndex": {
+            expect(args, 0, "");
+            AvailabilityIndex index = esql.availabilityIndex();
+            if (index == null) {
+               throw new IllegalStateException("The availability index is not enabled");
+            }//end if
+            List<String> differences = index.verify(esql);
+            for (String difference : differences) {
+               rows.row(new Object[] { difference });
+            }//end for
+            return String.valueOf(differences.size());
+         }
+         case "explainQueries":
+            expect(args, 0, "");
+            return String.valueOf(IndexAdvisor.explainQueries(esql,
+               Integer.getInteger("dbproject.advisor.mismatchRatio", 10).intValue(), rows));
+         case "checkIndexes": {
+            expect(args, 0, "");
+            List<String> missing = IndexAdvisor.missingIndexes(esql);
+            for (String index : missing) {
+               rows.row(new Object[] { index });
+            }//end for
+            return String.valueOf(missing.size());
+         }
+         case "writeIndexMigration": {
+            expect(args, 1, "directory");
+            File migration = writeMigration(esql, new File(args[0].trim()));
+            return migration == null ? "-" : migration.getPath();
+         }
+         case "applyMigrations":
+            expect(args, 1, "directory");
+            return String.valueOf(applyMigrations(esql, new File(args[0].trim())));
+         case "fleetReport":
+            expect(args, 3, "file start end");
+            return String.valueOf(fleetReport(esql, new File(args[0].trim()), dateArg(args[1]), dateArg(args[2])));
+         case "partitions":
+            expect(args, 0, "");
+            return String.valueOf(PartitionMaintenance.report(esql, rows));
+         case "createPartitions":
+            expect(args, 1, "months");
+            return String.valueOf(PartitionMaintenance.createPartitions(esql, intArg(args[0])));
+         case "detachPartitions": {
+            expect(args, 1, "before");
+            List<String> detached = PartitionMaintenance.detachPartitions(esql, dateArg(args[0]));
+            for (String partition : detached) {
+               rows.row(new Object[] { partition });
+            }//end for
+            return String.valueOf(detached.size());
+         }
+         case "bulkLoad":
+            expect(args, 1, "directory");
+            return String.valueOf(bulkLoad(esql, new File(args[0].trim()), rows));
+         case "rebuildRepairCounts":
+            expect(args, 0, "");
+            return String.valueOf(esql.rebuildRepairCounts());
+         default:
+            throw new IllegalArgumentException("Unrecognized operation " + op);
+      }//end switch
+   }//end dispatch
+
+   // the migration steps of IndexAdvisor, with file errors reported like argument errors
+   private static File writeMigration (DBProject esql, File dir) throws SQLException {
+      try {
+         return IndexAdvisor.writeMigration(esql, dir);
+      }catch (IOException e){
+         throw new IllegalArgumentException(e.getMessage());
+      }//end try
+   }//end writeMigration
+
+   private static int fleetReport (DBProject esql, File file, Date start, Date end) throws SQLException {
+      FleetReport report = new FleetReport(esql,
+         Integer.getInteger("dbproject.fleetReport.threads",
+            Integer.getInteger("dbproject.pool.size", 4).intValue() - 1).intValue(),
+         Integer.getInteger("dbproject.fleetReport.hotelsPerChunk", 50).intValue());
+      try {
+         return report.write(file, start, end);
+      }catch (IOException e){
+         throw new IllegalArgumentException(e.getMessage());
+      }//end try
+   }//end fleetReport
+
+   private static long bulkLoad (DBProject esql, File dir, ReportWriter rows) throws SQLException {
+      BulkLoader loader = new BulkLoader(esql, Integer.getInteger("dbproject.bulkLoad.batchRows", 1000).intValue());
+      try {
+         return loader.load(dir, rows);
+      }catch (IOException e){
+         throw new IllegalArgumentException(e.getMessage());
+      }//end try
+   }//end bulkLoad
+
+   private static int applyMigrations (DBProject esql, File dir) throws SQLException {
+      try {
+         return IndexAdvisor.applyMigrations(esql, dir);
+      }catch (IOException e){
+         throw new IllegalArgumentException(e.getMessage());
+      }//end try
+   }//end applyMigrations
+
+   private static void expect (String[] args, int count, String names) {
+      if (args.length != count) {
+         throw new IllegalArgumentException("Expected " + count + " arguments: " + names);
+      }//end if
+   }//end expect
+
+   private static int intArg (String arg) {
+      try {
+         return Integer.parseInt(arg.trim());
+      }catch (NumberFormatException e){
+         throw new IllegalArgumentException("Not a number: " + arg);
+      }//end try
+   }//end intArg
+
+   private static long longArg (String arg) {
+      try {
+         return Long.parseLong(arg.trim());
+      }catch (NumberFormatException e){
+         throw new IllegalArgumentException("Not a number: " + arg);
+      }//end try
+   }//end longArg
+
+   private static float floatArg (String arg) {
+      try {
+         return Float.parseFloat(arg.trim());
+      }catch (NumberFormatException e){
+         throw new IllegalArgumentException("Not a number: " + arg);
+      }//end try
+   }//end floatArg
+
+   private static Date dateArg (String arg) {
+      String text = arg.trim();
+      SimpleDateFormat format = new SimpleDateFormat(text.indexOf('-') >= 0 ? "yyyy-MM-dd" : "MM/dd/yy");
+      try {
+         return format.parse(text);
+      }catch (ParseException e){
+         throw new IllegalArgumentException("Not a date: " + arg);
+      }//end try
+   }//end dateArg
+
+   /**
+    * Escapes the characters that would break a tab separated line.
+    */
+   static String escape (String value) {
+      if (value == null) {
+         return "\\N";
+      }//end if
+      StringBuilder sb = new StringBuilder(value.length());
+      for (int i = 0; i < value.length(); ++i) {
+         char c = value.charAt(i);
+         switch (c) {
+            case '\\': sb.append("\\\\"); break;
+            case '\t': sb.append("\\t"); break;
+            case '\n': sb.append("\\n"); break;
+            case '\r': sb.append("\\r"); break;
+            default: sb.append(c); break;
+         }//end switch
+      }//end for
+      return sb.toString();
+   }//end escape
+
+   /**
+    * Writes result rows as "row" lines.
+    */
+   static class RowWriter implements ReportWriter {
+      private final PrintStream out;
+      private final String prefix;
+
+      RowWriter (PrintStream out, int line) {
+         this.out = out;
+         this.prefix = "row\t" + line;
+      }
+
+      public void header (String[] columns) {
+         // the columns of every operation are fixed, so no header line
+      }//end header
+
+      public void row (Object[] values) {
+         StringBuilder sb = new StringBuilder(prefix);
+         for (int i = 0; i < values.length; ++i) {
+            Object value = values[i];
+            sb.append('\t').append(escape(value == null ? null : value.toString().trim()));
+         }//end for
+         out.println(sb);
+      }//end row
+   }//end RowWriter
+
+}//end ScriptRunner
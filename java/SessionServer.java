@@ -0,0 +1,143 @@
+/*
+ * Server mode for DBProject
+ * =========================
+ *
+ * Serves the menu operations to many desk sessions at once over a local
+ * socket.
+ *
+ * Target DBMS: 'Postgres'
+ *
+ */
+
+
+import java.io.BufferedReader;
+import java.io.BufferedOutputStream;
+import java.io.IOException;
+import java.io.InputStreamReader;
+import java.io.PrintStream;
+import java.net.InetAddress;
+import java.net.ServerSocket;
+import java.net.Socket;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.SynchronousQueue;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Accepts connections on a loopback port and runs one session per client on
+ * a pooled thread.  Clients send the same tab separated records as script
+ * mode (see ScriptRunner), one request per line, and get back the "row"
+ * lines of the result followed by exactly one "ok" or "error" line, where
+ * the line number is the request number within the session.  "quit" ends
+ * the session.  The menu operations and the read only diagnostics (stats,
+ * slowQueries, cacheStats, partitions, checkIndexes) are served, the
+ * maintenance operations of script mode (migrations, bulkLoad, creating and
+ * detaching partitions, ...) are unknown to sessions.
+ *
+ * Every request runs in autocommit on a connection borrowed from the
+ * DBProject pool, so the pool size (-Ddbproject.pool.size) bounds how many
+ * requests are in the database at once while idle sessions cost only a
+ * parked thread.
+ *
+ */
+public class SessionServer {
+
+   private final DBProject _esql;
+   private final int _port;
+   private final ThreadPoolExecutor _sessions;
+
+   /**
+    * Creates a server.
+    *
+    * @param esql the database the operations run against
+    * @param port the local port to listen on
+    * @param maxSessions the largest number of concurrent sessions
+    */
+   public SessionServer (DBProject esql, int port, int maxSessions) {
+      this._esql = esql;
+      this._port = port;
+      // a thread per session, idle threads are reclaimed after a minute
+      this._sessions = new ThreadPoolExecutor(0, maxSessions, 60, TimeUnit.SECONDS,
+         new SynchronousQueue<Runnable>());
+   }//end SessionServer
+
+   /**
+    * Accepts sessions until the process is stopped.
+    *
+    * @throws java.io.IOException when the port could not be opened
+    */
+   public void serve () throws IOException {
+      ServerSocket server = new ServerSocket(this._port, 128, InetAddress.getByName("localhost"));
+      System.err.println("Serving DBProject operations on localhost:" + this._port);
+      try {
+         while (true) {
+            final Socket client = server.accept();
+            try {
+               this._sessions.execute(new Runnable() {
+                  public void run () {
+                     session(client);
+                  }
+               });
+            }catch (RejectedExecutionException e){
+               PrintStream out = new PrintStream(client.getOutputStream(), true);
+               out.println("error\t0\t-\tServer busy, too many sessions");
+               client.close();
+            }//end try
+         }//end while
+      } finally {
+         server.close();
+         this._sessions.shutdown();
+      }//end try
+   }//end serve
+
+   /**
+    * Runs the requests of one client until it says quit or disconnects.
+    */
+   private void session (Socket client) {
+      try {
+         client.setTcpNoDelay(true);
+         BufferedReader in = new BufferedReader(new InputStreamReader(client.getInputStream(), "UTF-8"));
+         PrintStream out = new PrintStream(new BufferedOutputStream(client.getOutputStream()), false, "UTF-8");
+         int request = 0;
+         String text;
+         while ((text = in.readLine()) != null) {
+            if (text.trim().equalsIgnoreCase("quit")) {
+               break;
+            }//end if
+            if (text.trim().length() == 0) {
+               continue;
+            }//end if
+            ++request;
+            handle(request, text, out);
+            out.flush();
+         }//end while
+      }catch (IOException e){
+         // client went away.
+      }finally{
+         try {
+            client.close();
+         }catch (IOException e){
+            // ignored.
+         }//end try
+      }//end try
+   }//end session
+
+   private void handle (int request, String text, PrintStream out) {
+      String[] fields = text.split("\t", -1);
+      // the maintenance operations of script mode are not served
+      String op = ScriptRunner.sessionOperationName(fields[0].trim());
+      if (op == null) {
+         out.println("error\t" + request + "\t" + fields[0].trim() + "\tUnrecognized operation");
+         return;
+      }//end if
+      String[] args = new String[fields.length - 1];
+      System.arraycopy(fields, 1, args, 0, args.length);
+      try {
+         String result = ScriptRunner.execute(this._esql, op, args, new ScriptRunner.RowWriter(out, request));
+         out.println("ok\t" + request + "\t" + op + "\t" + result);
+      }catch (Exception e){
+         out.println("error\t" + request + "\t" + op + "\t" + ScriptRunner.escape(String.valueOf(e.getMessage())));
+      }//end try
+   }//end handle
+
+}//end SessionServer
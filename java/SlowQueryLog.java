@@ -0,0 +1,258 @@
+/*
+ * Slow query log for DBProject
+ * ============================
+ *
+ * Target DBMS: 'Postgres'
+ *
+ */
+
+
+import java.io.File;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.io.OutputStreamWriter;
+import java.io.PrintWriter;
+import java.sql.SQLException;
+import java.text.SimpleDateFormat;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.Date;
+import java.util.List;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Logs every statement slower than a threshold with its bind values, its
+ * duration and its plan, and aggregates the slow statements by fingerprint
+ * (the statement with literals replaced by ? and blanks collapsed), so a
+ * statement that is slow again and again shows up as one line with a count.
+ *
+ * The plan is taken with a plain EXPLAIN, which does not run the statement
+ * again, on a background thread, so the caller that was already slow does
+ * not wait for it.  It is captured the first time a fingerprint is slow and
+ * again whenever its count reaches a power of two.  The log file is rotated
+ * when it grows past maxBytes, keeping the given number of old files as
+ * file.1 (newest) to file.N.
+ *
+ */
+public class SlowQueryLog {
+
+   // the slow calls of one fingerprint
+   private static class Offender {
+      final String statement;
+      final AtomicLong count = new AtomicLong();
+      final AtomicLong totalNanos = new AtomicLong();
+      final AtomicLong maxNanos = new AtomicLong();
+
+      Offender (String statement) {
+         this.statement = statement;
+      }
+   }//end Offender
+
+   private final DBProject _esql;
+   private final long _thresholdNanos;
+   private final File _file;
+   private final long _maxBytes;
+   private final int _keep;
+   private final ConcurrentMap<String, Offender> _offenders = new ConcurrentHashMap<String, Offender>();
+
+   // the one thread that explains and writes, entries beyond the queue are dropped
+   private final ThreadPoolExecutor _writer = new ThreadPoolExecutor(1, 1, 0, TimeUnit.MILLISECONDS,
+      new LinkedBlockingQueue<Runnable>(1000), new ThreadPoolExecutor.DiscardPolicy());
+   private PrintWriter _out = null;
+
+   /**
+    * Creates a log.
+    *
+    * @param esql the database plans are taken from
+    * @param thresholdMs statements taking this long or longer are logged
+    * @param file the log file
+    * @param maxBytes the size at which the file is rotated
+    * @param keep the number of rotated files kept
+    */
+   public SlowQueryLog (DBProject esql, long thresholdMs, File file, long maxBytes, int keep) {
+      this._esql = esql;
+      this._thresholdNanos = thresholdMs * 1000000L;
+      this._file = file;
+      this._maxBytes = maxBytes;
+      this._keep = keep;
+   }//end SlowQueryLog
+
+   /**
+    * Tells whether a duration is slow enough to be logged.
+    */
+   public boolean isSlow (long nanos) {
+      return nanos >= this._thresholdNanos;
+   }//end isSlow
+
+   /**
+    * Logs a slow statement.
+    *
+    * @param sql the statement, parameterized
+    * @param params the bind values
+    * @param nanos how long it took
+    */
+   public void log (final String sql, final Object[] params, final long nanos) {
+      final String fingerprint = fingerprint(sql);
+      Offender offender = this._offenders.get(fingerprint);
+      if (offender == null) {
+         Offender created = new Offender(fingerprint);
+         offender = this._offenders.putIfAbsent(fingerprint, created);
+         if (offender == null) {
+            offender = created;
+         }//end if
+      }//end if
+      final long count = offender.count.incrementAndGet();
+      offender.totalNanos.addAndGet(nanos);
+      long max = offender.maxNanos.get();
+      while (nanos > max && !offender.maxNanos.compareAndSet(max, nanos)) {
+         max = offender.maxNanos.get();
+      }//end while
+      final Date when = new Date();
+      final boolean explain = (count & (count - 1)) == 0;
+      this._writer.execute(new Runnable() {
+         public void run () {
+            write(when, sql, params, nanos, fingerprint, count, explain);
+         }
+      });
+   }//end log
+
+   /**
+    * Lists the fingerprints of the slow statements, most total time first.
+    *
+    * @return the number of rows written
+    */
+   public int report (ReportWriter out) {
+      List<Offender> all = new ArrayList<Offender>(this._offenders.values());
+      Collections.sort(all, new java.util.Comparator<Offender>() {
+         public int compare (Offender a, Offender b) {
+            return Long.compare(b.totalNanos.get(), a.totalNanos.get());
+         }
+      });
+      if (!all.isEmpty()) {
+         out.header(new String[] { "fingerprint", "count", "total_ms", "avg_ms", "max_ms", "statement" });
+      }//end if
+      for (Offender o : all) {
+         long count = o.count.get();
+         out.row(new Object[] { hash(o.statement), count, ms(o.totalNanos.get()),
+            ms(count == 0 ? 0 : o.totalNanos.get() / count), ms(o.maxNanos.get()), o.statement });
+      }//end for
+      return all.size();
+   }//end report
+
+   /**
+    * Writes what is queued and closes the file.
+    */
+   public void close () {
+      this._writer.shutdown();
+      try {
+         this._writer.awaitTermination(10, TimeUnit.SECONDS);
+      }catch (InterruptedException e){
+         Thread.currentThread().interrupt();
+      }//end try
+      if (this._out != null) {
+         this._out.close();
+      }//end if
+   }//end close
+
+   // runs on the writer thread only
+   private void write (Date when, String sql, Object[] params, long nanos, String fingerprint, long count,
+                       boolean explain) {
+      List<String> plan = null;
+      String planError = null;
+      if (explain) {
+         try {
+            plan = this._esql.explainPlan(sql, params);
+         }catch (SQLException e){
+            planError = e.getMessage();
+         }//end try
+      }//end if
+      try {
+         if (this._out == null || this._file.length() >= this._maxBytes) {
+            rotate();
+         }//end if
+         PrintWriter w = this._out;
+         w.println(new SimpleDateFormat("yyyy-MM-dd'T'HH:mm:ss.SSS").format(when) + " slow " + ms(nanos)
+            + " ms fingerprint=" + hash(fingerprint) + " count=" + count);
+         w.println("  statement: " + sql.replaceAll("\\s+", " "));
+         w.println("  binds: " + binds(params));
+         if (plan != null) {
+            w.println("  plan:");
+            for (String line : plan) {
+               w.println("    " + line);
+            }//end for
+         } else if (planError != null) {
+            w.println("  plan unavailable: " + planError);
+         }//end if
+         w.flush();
+      }catch (IOException e){
+         System.err.println("Unable to write " + this._file + ": " + e.getMessage());
+      }//end try
+   }//end write
+
+   private void rotate () throws IOException {
+      if (this._out != null) {
+         this._out.close();
+         this._out = null;
+      }//end if
+      if (this._file.length() >= this._maxBytes) {
+         for (int i = this._keep; i >= 1; --i) {
+            File older = new File(this._file.getPath() + "." + i);
+            File newer = i == 1 ? this._file : new File(this._file.getPath() + "." + (i - 1));
+            if (i == this._keep) {
+               older.delete();
+            }//end if
+            if (newer.exists()) {
+               newer.renameTo(older);
+            }//end if
+         }//end for
+      }//end if
+      this._out = new PrintWriter(new OutputStreamWriter(new FileOutputStream(this._file, true), "UTF-8"));
+   }//end rotate
+
+   /**
+    * Returns a statement with its literals replaced by ? and its blanks
+    * collapsed, so statements that differ only in their values match.
+    */
+   static String fingerprint (String sql) {
+      return sql.replaceAll("'(?:[^']|'')*'", "?")
+         .replaceAll("\\b\\d+(?:\\.\\d+)?\\b", "?")
+         .replaceAll("\\s+", " ")
+         .trim();
+   }//end fingerprint
+
+   private static String hash (String fingerprint) {
+      return String.format("%08x", fingerprint.hashCode());
+   }//end hash
+
+   private static String binds (Object[] params) {
+      if (params == null) {
+         return "[]";
+      }//end if
+      StringBuilder b = new StringBuilder("[");
+      for (int i = 0; i < params.length; ++i) {
+         Object value = params[i];
+         if (i > 0) {
+            b.append(", ");
+         }//end if
+         if (value instanceof Date) {
+            b.append(new SimpleDateFormat("yyyy-MM-dd").format((Date) value));
+         } else if (value instanceof String) {
+            String s = (String) value;
+            b.append('\'').append(s.length() > 100 ? s.substring(0, 100) + "..." : s).append('\'');
+         } else {
+            b.append(value);
+         }//end if
+      }//end for
+      return b.append(']').toString();
+   }//end binds
+
+   private static String ms (long nanos) {
+      return String.format("%.1f", nanos / 1e6);
+   }//end ms
+
+}//end SlowQueryLog
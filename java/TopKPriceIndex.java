@@ -0,0 +1,200 @@
+/*
+ * Top k booking price index for DBProject
+ * =======================================
+ *
+ * Target DBMS: 'Postgres'
+ *
+ */
+
+
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.PriorityQueue;
+import java.util.concurrent.locks.ReentrantReadWriteLock;
+
+/**
+ * Answers "the k highest booking prices between two dates" without sorting
+ * Booking.  A segment tree over booking days keeps, in every node, the
+ * highest CAPACITY bookings of the days below it.  A date range is covered
+ * by O(log n) nodes whose lists are merged with a heap, so a query costs
+ * O(k log n) and a new booking O(CAPACITY log n).
+ *
+ * The tree covers the days from 1900 through 2079.  Queries for a larger k
+ * than CAPACITY, or reaching outside those years, return null and the
+ * caller asks the database instead.
+ *
+ */
+public class TopKPriceIndex {
+
+   // one booking, the price in cents
+   public static class Entry {
+      public final int cents;
+      public final int roomNo;
+      public final int day;
+
+      Entry (int cents, int roomNo, int day) {
+         this.cents = cents;
+         this.roomNo = roomNo;
+         this.day = day;
+      }
+   }//end Entry
+
+   // 1900-01-01 as an epoch day, and the number of days covered
+   private static final int ORIGIN = -25567;
+   private static final int SPAN = 1 << 16;
+
+   private final int _capacity;
+
+   // node i has children 2i and 2i+1, leaves start at SPAN; lists are highest price first
+   private final Entry[][] _nodes = new Entry[2 * SPAN][];
+   private final ReentrantReadWriteLock _lock = new ReentrantReadWriteLock();
+
+   /**
+    * Creates an empty index.
+    *
+    * @param capacity the largest k the index answers
+    */
+   public TopKPriceIndex (int capacity) {
+      this._capacity = capacity;
+   }//end TopKPriceIndex
+
+   /**
+    * Builds an index from the Booking table.
+    *
+    * @param esql the database to read
+    * @param capacity the largest k the index answers
+    * @return the loaded index
+    * @throws java.sql.SQLException when the table could not be read
+    */
+   public static TopKPriceIndex load (DBProject esql, int capacity) throws SQLException {
+      final TopKPriceIndex index = new TopKPriceIndex(capacity);
+      esql.streamQuery("SELECT price, roomNo, bookingDate FROM Booking", new RowHandler() {
+         public void handleRow (ResultSet rs) throws SQLException {
+            index.addBooking(rs.getBigDecimal(1).movePointRight(2).intValue(), rs.getInt(2),
+               DBProject.toEpochDay(rs.getDate(3)));
+         }
+      });
+      return index;
+   }//end load
+
+   /**
+    * Records a booking.
+    *
+    * @param cents the price in cents
+    * @param roomNo the booked room
+    * @param day the booking date as an epoch day
+    */
+   public void addBooking (int cents, int roomNo, int day) {
+      int leaf = day - ORIGIN;
+      if (leaf < 0 || leaf >= SPAN) {
+         return;
+      }//end if
+      Entry entry = new Entry(cents, roomNo, day);
+      _lock.writeLock().lock();
+      try {
+         for (int node = leaf + SPAN; node >= 1; node >>= 1) {
+            if (!insert(node, entry)) {
+               // not among the highest here, so not in any ancestor either
+               break;
+            }//end if
+         }//end for
+      } finally {
+         _lock.writeLock().unlock();
+      }//end try
+   }//end addBooking
+
+   /**
+    * Returns the k highest priced bookings between two days.
+    *
+    * @param from the first day, as an epoch day
+    * @param to the last day, included
+    * @param k the number of bookings wanted
+    * @return the bookings, highest price first, or null when the index cannot answer
+    */
+   public List<Entry> topK (int from, int to, int k) {
+      if (k > this._capacity || from - ORIGIN < 0 || to - ORIGIN >= SPAN) {
+         return null;
+      }//end if
+      List<Entry> result = new ArrayList<Entry>(Math.min(k, 64));
+      if (from > to || k <= 0) {
+         return result;
+      }//end if
+
+      _lock.readLock().lock();
+      try {
+         // the canonical nodes covering [from, to]
+         List<Entry[]> lists = new ArrayList<Entry[]>();
+         int lo = from - ORIGIN + SPAN;
+         int hi = to - ORIGIN + SPAN + 1;
+         while (lo < hi) {
+            if ((lo & 1) == 1) {
+               addList(lists, _nodes[lo++]);
+            }//end if
+            if ((hi & 1) == 1) {
+               addList(lists, _nodes[--hi]);
+            }//end if
+            lo >>= 1;
+            hi >>= 1;
+         }//end while
+
+         // k way merge of the lists, heap entries are {list, position}
+         final List<Entry[]> heads = lists;
+         PriorityQueue<int[]> heap = new PriorityQueue<int[]>(Math.max(1, lists.size()),
+            new java.util.Comparator<int[]>() {
+               public int compare (int[] a, int[] b) {
+                  return heads.get(b[0])[b[1]].cents - heads.get(a[0])[a[1]].cents;
+               }
+            });
+         for (int i = 0; i < lists.size(); ++i) {
+            heap.add(new int[] { i, 0 });
+         }//end for
+         while (result.size() < k && !heap.isEmpty()) {
+            int[] top = heap.poll();
+            Entry[] list = lists.get(top[0]);
+            result.add(list[top[1]]);
+            if (++top[1] < list.length) {
+               heap.add(top);
+            }//end if
+         }//end while
+         return result;
+      } finally {
+         _lock.readLock().unlock();
+      }//end try
+   }//end topK
+
+   private static void addList (List<Entry[]> lists, Entry[] list) {
+      if (list != null && list.length > 0) {
+         lists.add(list);
+      }//end if
+   }//end addList
+
+   /**
+    * Puts an entry into the list of a node if it is among its highest.
+    *
+    * @return false when the entry did not make it into the list
+    */
+   private boolean insert (int node, Entry entry) {
+      Entry[] list = _nodes[node];
+      if (list == null) {
+         _nodes[node] = new Entry[] { entry };
+         return true;
+      }//end if
+      int n = list.length;
+      if (n == this._capacity && list[n - 1].cents >= entry.cents) {
+         return false;
+      }//end if
+      int pos = n;
+      while (pos > 0 && list[pos - 1].cents < entry.cents) {
+         --pos;
+      }//end while
+      Entry[] grown = new Entry[Math.min(n + 1, this._capacity)];
+      System.arraycopy(list, 0, grown, 0, pos);
+      grown[pos] = entry;
+      System.arraycopy(list, pos, grown, pos + 1, grown.length - pos - 1);
+      _nodes[node] = grown;
+      return true;
+   }//end insert
+
+}//end TopKPriceIndex
@@ -0,0 +1,218 @@
+/*
+ * Write-behind buffer for DBProject
+ * =================================
+ *
+ * Target DBMS: 'Postgres'
+ *
+ */
+
+
+import java.sql.SQLException;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.Future;
+import java.util.concurrent.FutureTask;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Queues inserts and writes them in groups, each group one JDBC batch in
+ * one transaction, so many inserts share a commit instead of each paying
+ * for its own.  A group is written once it has batchRows inserts or its
+ * first insert waited maxDelayMs, whichever comes first.
+ *
+ * add() returns a future that completes with the key of the new row once
+ * its group has committed, or fails with the error of its insert.  When
+ * the queue is full add() blocks until the writer catches up.  A group that
+ * fails as a whole is written again one insert at a time, so one bad row
+ * fails only its own caller.  Inserts still queued when the buffer has
+ * closed fail instead of waiting forever.
+ *
+ */
+public class WriteBehindBuffer {
+
+   private static final Runnable NOTHING = new Runnable() {
+      public void run () {
+      }
+   };
+
+   // one queued insert and its acknowledgement
+   private static class Write extends FutureTask<Integer> {
+      final String sql;
+      final Object[] params;
+      final Runnable afterWrite;
+
+      Write (int id, Runnable afterWrite, String sql, Object[] params) {
+         super(NOTHING, Integer.valueOf(id));
+         this.sql = sql;
+         this.params = params;
+         this.afterWrite = afterWrite;
+      }
+
+      // the insert is committed, so the future completes even if afterWrite fails
+      void written () {
+         try {
+            this.afterWrite.run();
+         }catch (RuntimeException e){
+            System.err.println("Updating after a buffered insert failed: " + e);
+         }//end try
+         run();
+      }
+
+      void failed (Throwable cause) {
+         setException(cause);
+      }
+   }//end Write
+
+   private final DBProject _esql;
+   private final BlockingQueue<Write> _queue;
+   private final int _batchRows;
+   private final long _maxDelayNanos;
+   private final Thread _writer;
+   private volatile boolean _closed = false;
+
+   /**
+    * Creates a buffer and starts its writer thread.
+    *
+    * @param esql the database
+    * @param capacity the number of inserts queued before add() blocks
+    * @param batchRows the most inserts written together
+    * @param maxDelayMs how long an insert waits for others to join its group
+    */
+   public WriteBehindBuffer (DBProject esql, int capacity, int batchRows, long maxDelayMs) {
+      this._esql = esql;
+      this._queue = new ArrayBlockingQueue<Write>(Math.max(1, capacity));
+      this._batchRows = Math.max(1, batchRows);
+      this._maxDelayNanos = maxDelayMs * 1000000L;
+      this._writer = new Thread("dbproject-write-behind") {
+         public void run () {
+            writeLoop();
+         }
+      };
+      this._writer.setDaemon(true);
+      this._writer.start();
+   }//end WriteBehindBuffer
+
+   /**
+    * Returns a future that is already done, for inserts written right away.
+    */
+   public static Future<Integer> written (int id) {
+      FutureTask<Integer> done = new FutureTask<Integer>(NOTHING, Integer.valueOf(id));
+      done.run();
+      return done;
+   }//end written
+
+   /**
+    * Queues an insert, waiting while the queue is full.
+    *
+    * @param id the key of the new row, the result of the future
+    * @param afterWrite run once the row is committed, before the future completes
+    * @param sql the statement, with ? for every parameter (see Queries)
+    * @param params the values bound to the parameters, in order
+    * @return completes once the row is committed
+    * @throws java.sql.SQLException when the buffer is closed or the wait was interrupted
+    */
+   public Future<Integer> add (int id, Runnable afterWrite, String sql, Object... params) throws SQLException {
+      if (this._closed) {
+         throw new SQLException("The write-behind buffer is closed");
+      }//end if
+      Write write = new Write(id, afterWrite, sql, params);
+      try {
+         this._queue.put(write);
+      }catch (InterruptedException e){
+         Thread.currentThread().interrupt();
+         throw new SQLException("Interrupted while waiting for the write-behind buffer");
+      }//end try
+      // close() ran meanwhile and the writer has gone, so nothing will take it
+      if (this._closed && !this._writer.isAlive() && this._queue.remove(write)) {
+         throw new SQLException("The write-behind buffer is closed");
+      }//end if
+      return write;
+   }//end add
+
+   /**
+    * Writes what is queued and stops the writer thread.  Inserts added
+    * while it stopped fail.
+    */
+   public void close () {
+      this._closed = true;
+      try {
+         this._writer.join();
+      }catch (InterruptedException e){
+         Thread.currentThread().interrupt();
+      }//end try
+      for (Write left = this._queue.poll(); left != null; left = this._queue.poll()) {
+         left.failed(new SQLException("The write-behind buffer is closed"));
+      }//end for
+   }//end close
+
+   private void writeLoop () {
+      List<Write> group = new ArrayList<Write>(this._batchRows);
+      while (true) {
+         try {
+            Write first = this._queue.poll(100, TimeUnit.MILLISECONDS);
+            if (first == null) {
+               if (this._closed && this._queue.isEmpty()) {
+                  return;
+               }//end if
+               continue;
+            }//end if
+            group.add(first);
+            long deadline = System.nanoTime() + this._maxDelayNanos;
+            while (group.size() < this._batchRows) {
+               long left = deadline - System.nanoTime();
+               Write next = left > 0 ? this._queue.poll(left, TimeUnit.NANOSECONDS) : this._queue.poll();
+               if (next == null) {
+                  break;
+               }//end if
+               group.add(next);
+            }//end while
+         }catch (InterruptedException e){
+            // close() waits for the queue to drain, keep going
+         }//end try
+         if (!group.isEmpty()) {
+            try {
+               write(group);
+            }catch (RuntimeException e){
+               // keep the writer alive, the inserts not yet acknowledged fail
+               for (Write write : group) {
+                  write.failed(e);
+               }//end for
+            }//end try
+            group.clear();
+         }//end if
+      }//end while
+   }//end writeLoop
+
+   private void write (List<Write> group) {
+      try {
+         this._esql.begin(true);
+         for (Write write : group) {
+            this._esql.executeUpdate(write.sql, write.params);
+         }//end for
+         this._esql.commit();
+      }catch (Exception e){
+         this._esql.rollback();
+         writeOneByOne(group);
+         return;
+      }//end try
+      for (Write write : group) {
+         write.written();
+      }//end for
+   }//end write
+
+   // finds the inserts that fail, each written in its own transaction
+   private void writeOneByOne (List<Write> group) {
+      for (Write write : group) {
+         try {
+            this._esql.executeUpdate(write.sql, write.params);
+         }catch (Exception e){
+            write.failed(e);
+            continue;
+         }//end try
+         write.written();
+      }//end for
+   }//end writeOneByOne
+
+}//end WriteBehindBuffer
@@ -0,0 +1,26 @@
+#!/bin/sh
+# Reloads the database from a data directory and benchmarks every menu
+# operation against it.
+#   ./bench.sh [data directory]     defaults to ../data
+# Generated data sets of other scales can be passed as the directory.
+# Benchmark options go in BENCH_OPTS, e.g.
+#   BENCH_OPTS="-Dbench.threads=4 -Ddbproject.availabilityIndex=true" ./bench.sh
+DATA=${1:-../data}
+
+# Indicate the path of the java compiler to use
+export JAVA_HOME=/usr/csshare/pkgs/jdk1.7.0_17
+export PATH=$JAVA_HOME/bin:$PATH
+
+# Export classpath with the postgressql driver
+export CLASSPATH=$CLASSPATH:$PWD/pg73jdbc3.jar:$PWD
+
+# load the data, create.sql reads the csv files from the database folder
+cp $DATA/*.csv $PGDATA/
+psql -q -h localhost -p $PGPORT $USER"_DB" < ../postgresql/create.sql
+psql -q -h localhost -p $PGPORT $USER"_DB" < ../postgresql/create_indexes.sql
+psql -q -h localhost -p $PGPORT $USER"_DB" -c "VACUUM ANALYZE"
+
+# compile, bring the indexes up to the migrations, and run the benchmark
+javac *.java
+printf 'applyMigrations\t../postgresql/migrations\n' | java DBProject $USER"_DB" $PGPORT $USER --script -
+java $BENCH_OPTS Benchmark $USER"_DB" $PGPORT $USER
@@ -9,6 +9,8 @@ DROP TABLE IF EXISTS Booking CASCADE;
 DROP TABLE IF EXISTS Repair CASCADE;
 DROP TABLE IF EXISTS Request CASCADE;
 DROP TABLE IF EXISTS Assigned CASCADE;
+-- the indexes of applied migrations go with the tables, so their record goes too
+DROP TABLE IF EXISTS SchemaVersion CASCADE;
 
 -- The below sql statements drops of the enum types if they exits
 DROP TYPE IF EXISTS StaffRole CASCADE;
@@ -229,3 +231,98 @@ COPY Assigned(asgID,
 FROM 'assigned.csv'
 WITH DELIMITER ',';		
 	
+
+
+-- ID sequences used by the Java client (see java/IdAllocator.java).
+-- INCREMENT BY must match IdAllocator.BLOCK_SIZE: every nextval() reserves a
+-- block of 50 IDs for one session, so concurrent clerks never collide.
+DROP SEQUENCE IF EXISTS customer_id_seq;
+DROP SEQUENCE IF EXISTS maintenancecompany_id_seq;
+DROP SEQUENCE IF EXISTS repair_id_seq;
+DROP SEQUENCE IF EXISTS booking_id_seq;
+DROP SEQUENCE IF EXISTS assigned_id_seq;
+DROP SEQUENCE IF EXISTS request_id_seq;
+
+CREATE SEQUENCE customer_id_seq INCREMENT BY 50;
+CREATE SEQUENCE maintenancecompany_id_seq INCREMENT BY 50;
+CREATE SEQUENCE repair_id_seq INCREMENT BY 50;
+CREATE SEQUENCE booking_id_seq INCREMENT BY 50;
+CREATE SEQUENCE assigned_id_seq INCREMENT BY 50;
+CREATE SEQUENCE request_id_seq INCREMENT BY 50;
+
+-- start each sequence right after the loaded data
+SELECT setval('customer_id_seq', (SELECT COALESCE(MAX(customerID), 0)::bigint + 1 FROM Customer), false);
+SELECT setval('maintenancecompany_id_seq', (SELECT COALESCE(MAX(cmpID), 0)::bigint + 1 FROM MaintenanceCompany), false);
+SELECT setval('repair_id_seq', (SELECT COALESCE(MAX(rID), 0)::bigint + 1 FROM Repair), false);
+SELECT setval('booking_id_seq', (SELECT COALESCE(MAX(bID), 0)::bigint + 1 FROM Booking), false);
+SELECT setval('assigned_id_seq', (SELECT COALESCE(MAX(asgID), 0)::bigint + 1 FROM Assigned), false);
+SELECT setval('request_id_seq', (SELECT COALESCE(MAX(reqID), 0)::bigint + 1 FROM Request), false);
+
+
+-- Repair counts per maintenance company, kept current by triggers so that
+-- topKMaintenanceCompany reads a few rows instead of aggregating Repair.
+-- Increments are row updates, so concurrent inserts serialize on the
+-- company's row and the counts stay exact.
+DROP TABLE IF EXISTS RepairCount CASCADE;
+CREATE TABLE RepairCount( mCompany Numeric NOT NULL,
+						  repairs Numeric NOT NULL DEFAULT 0,
+						  PRIMARY KEY(mCompany));
+
+CREATE INDEX repairCountIndex
+ON RepairCount
+USING BTREE
+(repairs DESC);
+
+-- recomputes every count from Repair, returns the number of companies
+CREATE OR REPLACE FUNCTION rebuild_repair_counts() RETURNS integer AS $$
+DECLARE
+	n integer;
+BEGIN
+	-- keep repairs from being added while the counts are recomputed
+	LOCK TABLE Repair IN SHARE MODE;
+	DELETE FROM RepairCount;
+	INSERT INTO RepairCount(mCompany, repairs)
+		SELECT M.cmpID, COUNT(R.rID)
+		FROM MaintenanceCompany M LEFT JOIN Repair R ON R.mCompany = M.cmpID
+		GROUP BY M.cmpID;
+	GET DIAGNOSTICS n = ROW_COUNT;
+	RETURN n;
+END;
+$$ LANGUAGE plpgsql;
+
+CREATE OR REPLACE FUNCTION repair_count_trigger() RETURNS trigger AS $$
+BEGIN
+	IF TG_OP = 'INSERT' OR TG_OP = 'UPDATE' THEN
+		UPDATE RepairCount SET repairs = repairs + 1 WHERE mCompany = NEW.mCompany;
+		IF NOT FOUND THEN
+			INSERT INTO RepairCount(mCompany, repairs) VALUES (NEW.mCompany, 1);
+		END IF;
+	END IF;
+	IF TG_OP = 'DELETE' OR TG_OP = 'UPDATE' THEN
+		UPDATE RepairCount SET repairs = repairs - 1 WHERE mCompany = OLD.mCompany;
+	END IF;
+	RETURN NULL;
+END;
+$$ LANGUAGE plpgsql;
+
+-- every company gets its row up front, so repair inserts only ever update
+CREATE OR REPLACE FUNCTION company_count_trigger() RETURNS trigger AS $$
+BEGIN
+	IF TG_OP = 'INSERT' THEN
+		INSERT INTO RepairCount(mCompany, repairs) VALUES (NEW.cmpID, 0);
+	ELSE
+		DELETE FROM RepairCount WHERE mCompany = OLD.cmpID;
+	END IF;
+	RETURN NULL;
+END;
+$$ LANGUAGE plpgsql;
+
+CREATE TRIGGER repairCountTrigger
+AFTER INSERT OR DELETE OR UPDATE OF mCompany ON Repair
+FOR EACH ROW EXECUTE PROCEDURE repair_count_trigger();
+
+CREATE TRIGGER companyCountTrigger
+AFTER INSERT OR DELETE ON MaintenanceCompany
+FOR EACH ROW EXECUTE PROCEDURE company_count_trigger();
+
+SELECT rebuild_repair_counts();
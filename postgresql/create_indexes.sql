@@ -4,15 +4,25 @@ CREATE INDEX bookingDateIndex
 ON Booking
 USING BTREE
 (bookingDate);
-/* Customer's first names and last names are also used in multiple functions,
-usually checking if they're equal to a string. Therefore it will also be
-beneficial to create indexes using hashes.*/
-CREATE INDEX customerfNameIndex
+/* Customer names are resolved to customer IDs before the name based reports
+read Booking. A single Btree on last name, first name and ID answers that
+lookup from the index alone, where the two hash indexes had to be combined
+and the rows visited.*/
+CREATE INDEX customerNameIndex
 ON Customer
-USING HASH
-(fname);
+USING BTREE
+(lname, fname, customerID);
 
-CREATE INDEX customerlNameIndex
-ON Customer
-USING HASH
-(lname);
\ No newline at end of file
+/* The bookings of a customer, most expensive first, are a range of this
+index, so the top k prices of a customer stop after k entries.*/
+CREATE INDEX bookingCustomerPriceIndex
+ON Booking
+USING BTREE
+(customer, price DESC);
+
+/* Repairs are looked up by room for the repairs per year report, and by
+hotel for the hotel wide trend; the composite index serves both.*/
+CREATE INDEX repairRoomIndex
+ON Repair
+USING BTREE
+(hotelID, roomNo);
@@ -0,0 +1,160 @@
+-- Partitioned Booking and Repair, run after create.sql and before the
+-- migrations (the indexes of V001 and V002 are then created on every
+-- partition). Booking is partitioned by month of bookingDate and Repair by
+-- year of repairDate, so the date range reports of options 10, 11 and 13 and
+-- the fleet report only read the partitions of their range, and old months
+-- are archived by detaching them instead of deleting rows.
+--
+-- Needs PostgreSQL 11 or later. A partitioned table's primary key must hold
+-- the partition key, so the keys become (bID, bookingDate) and
+-- (rID, repairDate); IDs stay unique through their sequences. Request can
+-- no longer reference Repair(rID) with a foreign key, requestRepairConstraint
+-- is dropped.
+--
+-- Rows outside every partition go to Booking_default and Repair_default.
+-- java/PartitionMaintenance.java creates the partitions of coming months and
+-- detaches old ones, see the script operations createPartitions and
+-- detachPartitions.
+
+-- creates the missing partitions of parent from the one holding first to the
+-- one holding last, unit being 'month' or 'year'. Rows of a new partition's
+-- range are moved out of the default partition through the parent, so
+-- triggers see them leave and come back. Returns the number created.
+CREATE OR REPLACE FUNCTION create_partitions(parent text, key text, unit text, first date, last date)
+RETURNS integer AS $$
+DECLARE
+	n integer := 0;
+	low date;
+	high date;
+	name text;
+	dflt text := lower(parent) || '_default';
+	moved boolean;
+BEGIN
+	low := date_trunc(unit, first)::date;
+	WHILE low <= last LOOP
+		high := (low + ('1 ' || unit)::interval)::date;
+		name := lower(parent) || '_p' || to_char(low, CASE unit WHEN 'month' THEN 'YYYYMM' ELSE 'YYYY' END);
+		IF to_regclass(name) IS NULL THEN
+			EXECUTE format('SELECT EXISTS (SELECT 1 FROM %I WHERE %I >= %L AND %I < %L)',
+				dflt, key, low, key, high) INTO moved;
+			IF moved THEN
+				EXECUTE format('CREATE TEMP TABLE moved_rows (LIKE %s)', parent::regclass);
+				EXECUTE format('WITH gone AS (DELETE FROM %I WHERE %I >= %L AND %I < %L RETURNING *) '
+					|| 'INSERT INTO moved_rows SELECT * FROM gone', dflt, key, low, key, high);
+			END IF;
+			EXECUTE format('CREATE TABLE %I PARTITION OF %s FOR VALUES FROM (%L) TO (%L)',
+				name, parent::regclass, low, high);
+			IF moved THEN
+				EXECUTE format('INSERT INTO %s SELECT * FROM moved_rows', parent::regclass);
+				DROP TABLE moved_rows;
+			END IF;
+			n := n + 1;
+		END IF;
+		low := high;
+	END LOOP;
+	RETURN n;
+END;
+$$ LANGUAGE plpgsql;
+
+-- detaches the partitions of parent that end on or before the given day,
+-- they stay as tables of their own to be archived or dropped. Returns their
+-- names.
+CREATE OR REPLACE FUNCTION detach_partitions(parent text, before date)
+RETURNS SETOF text AS $$
+DECLARE
+	child text;
+	bound text;
+	high text;
+BEGIN
+	FOR child, bound IN
+		SELECT c.relname, pg_get_expr(c.relpartbound, c.oid)
+		FROM pg_inherits i JOIN pg_class c ON c.oid = i.inhrelid
+		WHERE i.inhparent = parent::regclass
+		ORDER BY c.relname
+	LOOP
+		high := substring(bound from 'TO \(''([^'']+)''\)');
+		IF high IS NOT NULL AND high::date <= before THEN
+			EXECUTE format('ALTER TABLE %s DETACH PARTITION %I', parent::regclass, child);
+			RETURN NEXT child;
+		END IF;
+	END LOOP;
+END;
+$$ LANGUAGE plpgsql;
+
+-- The loaded tables are renamed and their rows moved into the partitioned ones
+ALTER TABLE Booking RENAME TO BookingHeap;
+ALTER INDEX booking_pkey RENAME TO bookingheap_pkey;
+ALTER TABLE Repair RENAME TO RepairHeap;
+ALTER INDEX repair_pkey RENAME TO repairheap_pkey;
+
+CREATE TABLE Booking( bID Numeric NOT NULL,
+					  customer Numeric NOT NULL DEFAULT 0,
+					  hotelID Numeric NOT NULL DEFAULT 0,
+					  roomNo Numeric NOT NULL DEFAULT 0,
+					  bookingDate Date NOT NULL,
+					  noOfPeople Numeric,
+					  price Numeric(6,2) NOT NULL,
+					  PRIMARY KEY(bID, bookingDate))
+PARTITION BY RANGE (bookingDate);
+
+CREATE TABLE Repair( rID Numeric NOT NULL,
+					 hotelID Numeric NOT NULL DEFAULT 0,
+					 roomNo Numeric NOT NULL DEFAULT 0,
+					 mCompany Numeric NOT NULL DEFAULT 0,
+					 repairDate Date NOT NULL,
+					 description TEXT,
+					 repairType CHAR(10),
+					 PRIMARY KEY(rID, repairDate))
+PARTITION BY RANGE (repairDate);
+
+CREATE TABLE Booking_default PARTITION OF Booking DEFAULT;
+CREATE TABLE Repair_default PARTITION OF Repair DEFAULT;
+
+-- a partition for every month or year of the data up to a year ahead, the
+-- default rows with ID 0 are left to the default partitions
+SELECT create_partitions('Booking', 'bookingDate', 'month', MIN(bookingDate),
+	GREATEST(MAX(bookingDate), CURRENT_DATE) + 365)
+FROM BookingHeap WHERE bID <> 0;
+
+SELECT create_partitions('Repair', 'repairDate', 'year', MIN(repairDate),
+	GREATEST(MAX(repairDate), CURRENT_DATE) + 365)
+FROM RepairHeap WHERE rID <> 0;
+
+INSERT INTO Booking SELECT * FROM BookingHeap;
+INSERT INTO Repair SELECT * FROM RepairHeap;
+
+-- drops the foreign keys, RepairHeap's trigger and requestRepairConstraint
+DROP TABLE BookingHeap CASCADE;
+DROP TABLE RepairHeap CASCADE;
+
+ALTER TABLE Booking
+ADD CONSTRAINT bookingCustomerConstraint
+FOREIGN KEY(customer)
+REFERENCES Customer(customerID)
+ON DELETE SET DEFAULT;
+
+ALTER TABLE Booking
+ADD CONSTRAINT bookingRoomConstraint
+FOREIGN KEY(hotelID, roomNo)
+REFERENCES Room(hotelID, roomNo)
+ON DELETE SET DEFAULT;
+
+ALTER TABLE Repair
+ADD CONSTRAINT repairMcmpConstraint
+FOREIGN KEY(mCompany)
+REFERENCES MaintenanceCompany(cmpID)
+ON DELETE SET DEFAULT;
+
+ALTER TABLE Repair
+ADD CONSTRAINT repairRoomConstraint
+FOREIGN KEY(hotelID, roomNo)
+REFERENCES Room(hotelID, roomNo)
+ON DELETE SET DEFAULT;
+
+-- RepairCount already counts the moved rows, the trigger keeps it from here
+CREATE TRIGGER repairCountTrigger
+AFTER INSERT OR DELETE OR UPDATE OF mCompany ON Repair
+FOR EACH ROW EXECUTE PROCEDURE repair_count_trigger();
+
+ANALYZE Booking;
+ANALYZE Repair;
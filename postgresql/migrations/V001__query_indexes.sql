@@ -0,0 +1,56 @@
+/* Index set for the sixteen menu queries, as checked with the index advisor
+(script operation explainQueries). Applied by the script operation
+applyMigrations, which records the version in SchemaVersion.*/
+
+/* Booking dates are compared with ranges in options 10, 11 and 13.*/
+CREATE INDEX IF NOT EXISTS bookingDateIndex
+ON Booking
+USING BTREE
+(bookingDate);
+
+/* Bookings of a hotel, counted for option 9 and filtered by date for
+option 10.*/
+CREATE INDEX IF NOT EXISTS bookingHotelDateIndex
+ON Booking
+USING BTREE
+(hotelID, bookingDate);
+
+/* Bookings of one room, probed by the NOT EXISTS of option 8.*/
+CREATE INDEX IF NOT EXISTS bookingRoomDateIndex
+ON Booking
+USING BTREE
+(hotelID, roomNo, bookingDate);
+
+/* Repairs of a company, joined for option 14.*/
+CREATE INDEX IF NOT EXISTS repairCompanyIndex
+ON Repair
+USING BTREE
+(mCompany);
+
+/* Repairs of a room for option 16 and of a hotel for option 17.*/
+CREATE INDEX IF NOT EXISTS repairRoomIndex
+ON Repair
+USING BTREE
+(hotelID, roomNo);
+
+/* Companies are looked up by name for option 14.*/
+CREATE INDEX IF NOT EXISTS maintenanceCompanyNameIndex
+ON MaintenanceCompany
+USING BTREE
+(name);
+
+/* Customer name resolution and per customer bookings, options 12 and 13.*/
+CREATE INDEX IF NOT EXISTS customerNameIndex
+ON Customer
+USING BTREE
+(lname, fname, customerID);
+
+CREATE INDEX IF NOT EXISTS bookingCustomerPriceIndex
+ON Booking
+USING BTREE
+(customer, price DESC);
+
+ANALYZE Booking;
+ANALYZE Repair;
+ANALYZE MaintenanceCompany;
+ANALYZE Customer;
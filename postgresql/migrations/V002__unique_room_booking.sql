@@ -0,0 +1,12 @@
+/* A room is booked at most once a day. The unique index keeps that true
+when bookings are made at the same time, DBProject turns its violation into
+a booking conflict, and it serves the NOT EXISTS probe of option 8 in place
+of bookingRoomDateIndex.*/
+CREATE UNIQUE INDEX IF NOT EXISTS bookingRoomDateUnique
+ON Booking
+USING BTREE
+(hotelID, roomNo, bookingDate);
+
+DROP INDEX IF EXISTS bookingRoomDateIndex;
+
+ANALYZE Booking;